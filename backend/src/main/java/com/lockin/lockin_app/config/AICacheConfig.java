@@ -0,0 +1,34 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Persistent second-level cache for AI results, the in-memory caches stay in front of it */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ai.cache")
+public class AICacheConfig {
+
+    private Boolean persistentEnabled = true;
+
+    // time to keep a stored result per feature, 0 or less disables storing for that feature
+    private Integer breakdownTtlHours = 168;
+
+    private Integer enhanceTtlHours = 168;
+
+    private Integer briefingTtlHours = 24;
+
+    // gzip level for stored payloads, results are small JSON documents
+    private Integer compressionLevel = 6;
+
+    public int ttlHoursFor(String featureType) {
+        return switch (featureType) {
+            case "BREAKDOWN" -> breakdownTtlHours;
+            case "ENHANCE" -> enhanceTtlHours;
+            case "BRIEFING" -> briefingTtlHours;
+            default -> 0;
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Worker pool that runs AI requests off the servlet threads */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ai.executor")
+public class AIExecutorConfig {
+
+    // at most this many AI requests are worked on at once, the API bulkhead allows a few more
+    private Integer threads = 16;
+
+    // requests waiting for a worker, beyond this new requests get a 503
+    private Integer queueCapacity = 64;
+
+    private Integer retryAfterSeconds = 5;
+}
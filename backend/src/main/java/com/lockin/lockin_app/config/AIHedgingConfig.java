@@ -0,0 +1,30 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Hedged Claude API calls: a second identical request when the first one is slow */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ai.hedging")
+public class AIHedgingConfig {
+
+    private Boolean enabled = false;
+
+    // a call still running after this percentile of recent latencies gets hedged
+    private Double percentile = 0.9;
+
+    private Long minDelayMs = 500L;
+
+    // recent successful calls per model the percentile is taken from, no hedging until minSamples
+    private Integer windowSize = 500;
+
+    private Integer minSamples = 50;
+
+    // hedges allowed per request, with a small burst on top
+    private Double budgetRatio = 0.05;
+
+    private Integer budgetBurst = 5;
+}
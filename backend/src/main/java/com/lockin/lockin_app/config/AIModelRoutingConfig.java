@@ -0,0 +1,87 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Which model serves each AI feature and when to fall back to a faster one */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ai.routing")
+public class AIModelRoutingConfig {
+
+    // taken when a feature's model misses its latency target, fails or has its circuit open
+    private String fallbackModel = "claude-3-5-haiku-20241022";
+
+    // per feature model, empty means anthropic.api.model
+    private String breakdownModel = "";
+
+    private String enhanceModel = "claude-3-5-haiku-20241022";
+
+    private String briefingModel = "";
+
+    // latency target for the feature's model, 0 or less turns the fallback off
+    private Long breakdownSloMs = 20000L;
+
+    private Long enhanceSloMs = 8000L;
+
+    private Long briefingSloMs = 15000L;
+
+    /** Most output tokens the model accepts in max_tokens, unknown models get the smallest current limit */
+    public static int maxOutputTokens(String model) {
+        if (model == null) {
+            return 8192;
+        }
+        if (model.contains("opus-4")) {
+            return 32000;
+        }
+        if (model.contains("sonnet-4") || model.contains("3-7-sonnet")) {
+            return 64000;
+        }
+        if (model.contains("claude-3-5")) {
+            return 8192;
+        }
+        if (model.contains("claude-3-")) {
+            return 4096;
+        }
+        return 8192;
+    }
+
+    public Route routeFor(String featureType, String defaultModel) {
+        String model = switch (featureType) {
+            case "BREAKDOWN" -> breakdownModel;
+            case "ENHANCE" -> enhanceModel;
+            case "BRIEFING" -> briefingModel;
+            default -> "";
+        };
+        long sloMs = switch (featureType) {
+            case "BREAKDOWN" -> breakdownSloMs;
+            case "ENHANCE" -> enhanceSloMs;
+            case "BRIEFING" -> briefingSloMs;
+            default -> 0L;
+        };
+
+        return new Route(
+                model == null || model.isBlank() ? defaultModel : model,
+                sloMs,
+                fallbackModel);
+    }
+
+    public record Route(String model, long sloMs, String fallbackModel) {
+
+        /** No fallback without a latency target or when the feature already uses the fallback model */
+        public boolean hasFallback() {
+            return sloMs > 0
+                    && fallbackModel != null
+                    && !fallbackModel.isBlank()
+                    && !fallbackModel.equals(model);
+        }
+
+        /** A request must fit whichever model ends up answering it */
+        public int maxOutputTokens() {
+            int limit = AIModelRoutingConfig.maxOutputTokens(model);
+            return hasFallback() ? Math.min(limit, AIModelRoutingConfig.maxOutputTokens(fallbackModel)) : limit;
+        }
+    }
+}
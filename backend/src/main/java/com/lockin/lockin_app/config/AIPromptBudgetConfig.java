@@ -0,0 +1,19 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Input token budgets for the user data placed into AI prompts */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ai.prompt")
+public class AIPromptBudgetConfig {
+
+    // task list of the daily briefing, tasks past the budget are only counted, 0 or less means no limit
+    private Integer briefingTaskTokens = 1200;
+
+    // description of a task to break down, longer ones are shortened, 0 or less means no limit
+    private Integer breakdownDescriptionTokens = 500;
+}
@@ -0,0 +1,35 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Per-user AI request limits over a sliding 24 hour window */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ai.requests")
+public class AIRateLimitConfig {
+
+    // all AI features together
+    private Integer perUserPerDay = 10;
+
+    // per feature limits on top of the overall one, 0 or less means only the overall limit applies
+    private Integer breakdownPerDay = 0;
+
+    private Integer enhancePerDay = 0;
+
+    private Integer briefingPerDay = 0;
+
+    // the window slides in steps of 24h / windowBuckets
+    private Integer windowBuckets = 24;
+
+    public int perDayFor(String featureType) {
+        return switch (featureType) {
+            case "BREAKDOWN" -> breakdownPerDay;
+            case "ENHANCE" -> enhancePerDay;
+            case "BRIEFING" -> briefingPerDay;
+            default -> 0;
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Write-behind of AI usage records */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ai.usage")
+public class AIUsageWriterConfig {
+
+    // records waiting to be written, when full the caller writes its record itself
+    private Integer queueCapacity = 10000;
+
+    private Integer batchSize = 200;
+
+    private Long flushIntervalMs = 2000L;
+
+    // a record that keeps failing is dropped after this many tries
+    private Integer maxAttempts = 3;
+
+    // finished days the nightly reconciliation recomputes, must stay inside retention.ai-usage-days
+    private Integer reconcileDays = 7;
+
+    private Long reconcileLeaseMinutes = 30L;
+}
@@ -22,6 +22,28 @@ public class AnthropicConfig {
 
     private Double temperature = 0.7;
 
+    private Long connectTimeoutMs = 5000L;
+
+    // per attempt, until the response is complete
+    private Long requestTimeoutMs = 60000L;
+
+    private Integer maxAttempts = 3;
+
+    private Long initialBackoffMs = 500L;
+
+    private Long maxBackoffMs = 8000L;
+
+    // a retry-after longer than this fails the request instead of waiting
+    private Long maxRetryAfterMs = 30000L;
+
+    // bulkhead: requests beyond this are rejected instead of queued
+    private Integer maxConcurrentRequests = 20;
+
+    // consecutive failures that open the circuit
+    private Integer circuitFailureThreshold = 5;
+
+    private Long circuitOpenMs = 30000L;
+
     @PostConstruct
     public void validate() {
         if (key == null || key.isEmpty() || key.equals("your-key-here")) {
@@ -0,0 +1,27 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Overnight generation of daily briefings for users who read them */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ai.briefing.precompute")
+public class BriefingPrecomputeConfig {
+
+    private Boolean enabled = true;
+
+    // users who requested a briefing within this many days get one generated
+    private Integer activeDays = 7;
+
+    // briefings generated at the same time, keep well below the API bulkhead
+    private Integer concurrency = 2;
+
+    // random delay before each briefing, spreads the calls out
+    private Long maxJitterMs = 3000L;
+
+    // whatever isn't done by then is left for the morning
+    private Integer maxDurationMinutes = 90;
+}
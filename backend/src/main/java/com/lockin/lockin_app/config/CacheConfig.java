@@ -1,6 +1,7 @@
 package com.lockin.lockin_app.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCache;
@@ -16,7 +17,8 @@ import java.util.concurrent.TimeUnit;
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(
+            @Value("${notifications.unread-count.ttl-seconds:15}") long unreadCountTtlSeconds) {
         SimpleCacheManager cacheManager = new SimpleCacheManager();
 
         cacheManager.setCaches(Arrays.asList(
@@ -44,11 +46,11 @@ public class CacheConfig {
                                           .recordStats()
                                           .build()),
 
-
+                // AI rate limit windows: kept while the user is active, rebuilt from ai_usage after eviction
                 new CaffeineCache("rateLimitCounters",
                                   Caffeine.newBuilder()
-                                          .maximumSize(1000)
-                                          .expireAfterWrite(5, TimeUnit.MINUTES)
+                                          .maximumSize(10000)
+                                          .expireAfterAccess(25, TimeUnit.HOURS)
                                           .recordStats()
                                           .build()),
 
@@ -61,6 +63,24 @@ public class CacheConfig {
                                           .build()),
 
 
+                // badge hints, earned badges and when counting started: never wrong in a way that
+                // matters since badges aren't taken back, counts are always read from the table
+                new CaffeineCache("badgeStates",
+                                  Caffeine.newBuilder()
+                                          .maximumSize(10000)
+                                          .expireAfterAccess(2, TimeUnit.HOURS)
+                                          .recordStats()
+                                          .build()),
+
+                // unread notification counts: per node, a short TTL bounds how long a change made on
+                // another node goes unseen before the count is rebuilt from the database
+                new CaffeineCache("unreadNotificationCounts",
+                                  Caffeine.newBuilder()
+                                          .maximumSize(10000)
+                                          .expireAfterWrite(unreadCountTtlSeconds, TimeUnit.SECONDS)
+                                          .recordStats()
+                                          .build()),
+
                 // period analytics (for comparisons): 30 minute TTL, 500 entries
                 new CaffeineCache("periodAnalytics",
                                   Caffeine.newBuilder()
@@ -0,0 +1,24 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Periodic import from Google Tasks for every connected user */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "google.calendar.sync")
+public class CalendarSyncConfig {
+
+    private Long intervalMs = 15 * 60 * 1000L;
+
+    // users synced at the same time, a sync holds a database connection only for its short writes
+    private Integer concurrency = 32;
+
+    // a sync still running after this is cancelled and retried on the next run
+    private Integer userTimeoutSeconds = 60;
+
+    // users not started by then wait for the next run, keep below the interval
+    private Integer maxDurationMinutes = 12;
+}
@@ -0,0 +1,29 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "events.pipeline")
+public class EventPipelineConfig {
+
+    // events buffered per consumer before the poller stops reading from the table
+    private Integer queueCapacity = 1000;
+
+    private Integer batchSize = 50;
+
+    private Integer workersPerConsumer = 2;
+
+    // fallback poll when no commit has signalled new events
+    private Long pollIntervalMs = 5000L;
+
+    private Integer maxAttempts = 5;
+
+    private Long retryBackoffSeconds = 30L;
+
+    // how long shutdown waits for workers to finish the batch in hand before interrupting them
+    private Long shutdownTimeoutMs = 10000L;
+}
@@ -0,0 +1,20 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "notifications.delivery")
+public class NotificationDeliveryConfig {
+
+    // notifications arriving within this window go out in one frame
+    private Long coalesceWindowMs = 250L;
+
+    // oldest notifications are dropped beyond this, the frame reports how many
+    private Integer capacityPerUser = 50;
+
+    private Integer senderThreads = 2;
+}
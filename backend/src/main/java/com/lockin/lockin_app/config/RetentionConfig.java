@@ -0,0 +1,39 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "retention")
+public class RetentionConfig {
+
+    private Boolean enabled = true;
+
+    // rows deleted per transaction, keeps row locks short
+    private Integer batchSize = 1000;
+
+    private Long pauseBetweenBatchesMs = 50L;
+
+    // one instance purges per night, a run outliving the lease only finds nothing left to delete
+    private Integer leaseMinutes = 60;
+
+    // write purged rows to gzipped JSON lines files before deleting them
+    private Boolean archiveEnabled = false;
+
+    private String archiveDir = "archive";
+
+    // days to keep, 0 or less disables the policy
+    private Integer readNotificationsDays = 30;
+
+    private Integer aiUsageDays = 365;
+
+    private Integer dailyAnalyticsDays = 730;
+
+    private Integer processedEventsDays = 7;
+
+    // counted from expiry, expired AI results are never served but kept briefly
+    private Integer expiredAiResponsesDays = 1;
+}
@@ -3,6 +3,8 @@ package com.lockin.lockin_app.config;
 import com.lockin.lockin_app.security.JwtAuthenticationFilter;
 import com.lockin.lockin_app.features.auth.service.CustomUserDetailsService;
 
+import jakarta.servlet.DispatcherType;
+
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,6 +49,8 @@ public class SecurityConfig {
                             .permitAll()
                             .requestMatchers("/api/calendar/oauth/callback/**").permitAll()
                             .requestMatchers("/ws/**").permitAll()
+                            // async AI responses finish on an async dispatch of an already authorised request
+                            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                             .anyRequest()
                             .authenticated();
                     })
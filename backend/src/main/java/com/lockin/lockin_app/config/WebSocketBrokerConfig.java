@@ -0,0 +1,46 @@
+package com.lockin.lockin_app.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "websocket.broker")
+public class WebSocketBrokerConfig {
+
+    // relay to an external STOMP broker (RabbitMQ, Artemis) so any node can reach any user
+    private Boolean relayEnabled = false;
+
+    private String relayHost = "localhost";
+
+    private Integer relayPort = 61613;
+
+    private String clientLogin = "guest";
+
+    private String clientPasscode = "guest";
+
+    // used by the shared system connection the backend sends through
+    private String systemLogin = "guest";
+
+    private String systemPasscode = "guest";
+
+    private String virtualHost;
+
+    // matches the 10s heartbeats of the frontend client
+    private Long heartbeatSendMs = 10000L;
+
+    private Long heartbeatReceiveMs = 10000L;
+
+    private Integer sendTimeLimitMs = 15000;
+
+    // per-session outbound buffer before a slow client is disconnected
+    private Integer sendBufferSizeLimitBytes = 512 * 1024;
+
+    private Integer messageSizeLimitBytes = 64 * 1024;
+
+    private Integer inboundThreads = 8;
+
+    private Integer outboundThreads = 8;
+}
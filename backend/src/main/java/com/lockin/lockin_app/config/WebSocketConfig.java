@@ -1,18 +1,74 @@
 package com.lockin.lockin_app.config;
 
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/**
+ * STOMP over WebSocket setup
+ *
+ * <p>By default an in-memory broker is used, which only reaches users connected to this instance.
+ * With websocket.broker.relay-enabled the broker is an external STOMP server and user
+ * destinations are resolved across instances through a shared user registry, so several backend
+ * nodes can run behind a load balancer.
+ */
+@Slf4j
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final WebSocketBrokerConfig brokerConfig;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    // the broker's own scheduler, lazy because it is created by this configuration
+    @Autowired
+    public void setMessageBrokerTaskScheduler(
+            @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler taskScheduler) {
+        this.messageBrokerTaskScheduler = taskScheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        long[] heartbeat = {brokerConfig.getHeartbeatSendMs(), brokerConfig.getHeartbeatReceiveMs()};
+
+        if (Boolean.TRUE.equals(brokerConfig.getRelayEnabled())) {
+            log.info(
+                    "Using STOMP broker relay at {}:{}",
+                    brokerConfig.getRelayHost(),
+                    brokerConfig.getRelayPort());
+
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(brokerConfig.getRelayHost())
+                    .setRelayPort(brokerConfig.getRelayPort())
+                    .setClientLogin(brokerConfig.getClientLogin())
+                    .setClientPasscode(brokerConfig.getClientPasscode())
+                    .setSystemLogin(brokerConfig.getSystemLogin())
+                    .setSystemPasscode(brokerConfig.getSystemPasscode())
+                    .setVirtualHost(brokerConfig.getVirtualHost())
+                    .setSystemHeartbeatSendInterval(brokerConfig.getHeartbeatSendMs())
+                    .setSystemHeartbeatReceiveInterval(brokerConfig.getHeartbeatReceiveMs())
+                    // share connected users between nodes and forward messages for users
+                    // connected elsewhere
+                    .setUserRegistryBroadcast("/topic/lockin-user-registry")
+                    .setUserDestinationBroadcast("/topic/lockin-unresolved-user");
+        } else {
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(heartbeat)
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
 
         config.setApplicationDestinationPrefixes("/app");
 
@@ -23,6 +79,27 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOrigins("http://localhost:5173")
-                .withSockJS();
+                .withSockJS()
+                .setHeartbeatTime(25000)
+                .setDisconnectDelay(5000);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration
+                .setSendTimeLimit(brokerConfig.getSendTimeLimitMs())
+                .setSendBufferSizeLimit(brokerConfig.getSendBufferSizeLimitBytes())
+                .setMessageSizeLimit(brokerConfig.getMessageSizeLimitBytes())
+                .setTimeToFirstMessage(30000);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(brokerConfig.getInboundThreads());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(brokerConfig.getOutboundThreads());
     }
 }
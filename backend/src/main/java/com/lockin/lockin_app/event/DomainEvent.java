@@ -0,0 +1,29 @@
+package com.lockin.lockin_app.event;
+
+import lombok.Getter;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Map;
+
+/**
+ * Base class for events that are handed to the durable event pipeline
+ *
+ * <p>Events carry a snapshot of everything their consumers need, so consumers never have to
+ * re-fetch the entity that was just saved by the publisher.
+ */
+@Getter
+public abstract class DomainEvent extends ApplicationEvent {
+    private final Long userId;
+
+    protected DomainEvent(Object source, Long userId) {
+        super(source);
+        this.userId = userId;
+    }
+
+    public abstract String getEventType();
+
+    public abstract Long getAggregateId();
+
+    public abstract Map<String, Object> getPayload();
+}
@@ -0,0 +1,22 @@
+package com.lockin.lockin_app.event;
+
+import com.lockin.lockin_app.event.entity.DomainEventRecord;
+
+import java.util.Set;
+
+/**
+ * A subscriber of the durable event pipeline
+ *
+ * <p>Every published event gets one stored row per interested consumer. handle is always called
+ * inside the transaction that claims the row, so anything it writes commits together with the
+ * claim.
+ */
+public interface DomainEventConsumer {
+
+    /** Stable name stored with each row, must not change once events have been written */
+    String getName();
+
+    Set<String> getEventTypes();
+
+    void handle(DomainEventRecord event);
+}
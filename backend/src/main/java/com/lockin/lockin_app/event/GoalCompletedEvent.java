@@ -2,16 +2,31 @@ package com.lockin.lockin_app.event;
 
 import lombok.Getter;
 
-import org.springframework.context.ApplicationEvent;
+import java.util.Map;
 
 @Getter
-public class GoalCompletedEvent extends ApplicationEvent {
-    private final Long userId;
+public class GoalCompletedEvent extends DomainEvent {
+    public static final String TYPE = "GOAL_COMPLETED";
+
     private final Long goalId;
 
     public GoalCompletedEvent(Object source, Long userId, Long goalId) {
-        super(source);
-        this.userId = userId;
+        super(source, userId);
         this.goalId = goalId;
     }
+
+    @Override
+    public String getEventType() {
+        return TYPE;
+    }
+
+    @Override
+    public Long getAggregateId() {
+        return goalId;
+    }
+
+    @Override
+    public Map<String, Object> getPayload() {
+        return Map.of("goalId", goalId);
+    }
 }
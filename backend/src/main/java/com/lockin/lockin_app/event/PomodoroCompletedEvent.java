@@ -1,17 +1,51 @@
 package com.lockin.lockin_app.event;
 
+import com.lockin.lockin_app.features.focus_sessions.entity.SessionType;
+
 import lombok.Getter;
 
-import org.springframework.context.ApplicationEvent;
+import java.time.LocalDateTime;
+import java.util.Map;
 
 @Getter
-public class PomodoroCompletedEvent extends ApplicationEvent {
-    private final Long userId;
+public class PomodoroCompletedEvent extends DomainEvent {
+    public static final String TYPE = "POMODORO_COMPLETED";
+
     private final Long sessionId;
+    private final SessionType sessionType;
+    private final Integer actualMinutes;
+    private final LocalDateTime completedAt;
 
-    public PomodoroCompletedEvent(Object source, Long userId, Long sessionId) {
-        super(source);
-        this.userId = userId;
+    public PomodoroCompletedEvent(
+            Object source,
+            Long userId,
+            Long sessionId,
+            SessionType sessionType,
+            Integer actualMinutes,
+            LocalDateTime completedAt) {
+        super(source, userId);
         this.sessionId = sessionId;
+        this.sessionType = sessionType;
+        this.actualMinutes = actualMinutes;
+        this.completedAt = completedAt;
+    }
+
+    @Override
+    public String getEventType() {
+        return TYPE;
+    }
+
+    @Override
+    public Long getAggregateId() {
+        return sessionId;
+    }
+
+    @Override
+    public Map<String, Object> getPayload() {
+        return Map.of(
+                "sessionId", sessionId,
+                "sessionType", sessionType,
+                "actualMinutes", actualMinutes != null ? actualMinutes : 0,
+                "completedAt", completedAt);
     }
 }
@@ -2,16 +2,35 @@ package com.lockin.lockin_app.event;
 
 import lombok.Getter;
 
-import org.springframework.context.ApplicationEvent;
+import java.time.LocalDateTime;
+import java.util.Map;
 
 @Getter
-public class TaskCompletedEvent extends ApplicationEvent {
-    private final Long userId;
+public class TaskCompletedEvent extends DomainEvent {
+    public static final String TYPE = "TASK_COMPLETED";
+
     private final Long taskId;
+    private final LocalDateTime completedAt;
 
-    public TaskCompletedEvent(Object source, Long userId, Long taskId) {
-        super(source);
-        this.userId = userId;
+    public TaskCompletedEvent(
+            Object source, Long userId, Long taskId, LocalDateTime completedAt) {
+        super(source, userId);
         this.taskId = taskId;
+        this.completedAt = completedAt;
+    }
+
+    @Override
+    public String getEventType() {
+        return TYPE;
+    }
+
+    @Override
+    public Long getAggregateId() {
+        return taskId;
+    }
+
+    @Override
+    public Map<String, Object> getPayload() {
+        return Map.of("taskId", taskId, "completedAt", completedAt);
     }
-}
\ No newline at end of file
+}
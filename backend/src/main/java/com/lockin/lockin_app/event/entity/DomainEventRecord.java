@@ -0,0 +1,66 @@
+package com.lockin.lockin_app.event.entity;
+
+import jakarta.persistence.*;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable copy of a domain event for one consumer
+ *
+ * <p>Written in the publisher's transaction, so an event exists exactly when the change that
+ * caused it was committed. A row is processed once processedAt is set.
+ */
+@Entity
+@Table(
+        name = "domain_events",
+        indexes = {
+            @Index(name = "idx_domain_events_pending", columnList = "consumer, processed_at, id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class DomainEventRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 30)
+    private String consumer;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
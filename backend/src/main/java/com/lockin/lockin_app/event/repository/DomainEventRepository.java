@@ -0,0 +1,64 @@
+package com.lockin.lockin_app.event.repository;
+
+import com.lockin.lockin_app.event.entity.DomainEventRecord;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DomainEventRepository extends JpaRepository<DomainEventRecord, Long> {
+
+    @Query(
+            value =
+                    "SELECT id FROM domain_events "
+                            + "WHERE consumer = :consumer "
+                            + "AND processed_at IS NULL "
+                            + "AND attempts < :maxAttempts "
+                            + "AND (next_attempt_at IS NULL OR next_attempt_at <= LOCALTIMESTAMP) "
+                            + "ORDER BY id "
+                            + "LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findPendingIds(
+            @Param("consumer") String consumer,
+            @Param("maxAttempts") int maxAttempts,
+            @Param("limit") int limit);
+
+    @Query(
+            "SELECT MIN(e.createdAt) FROM DomainEventRecord e "
+                    + "WHERE e.consumer = :consumer "
+                    + "AND e.processedAt IS NULL "
+                    + "AND e.attempts < :maxAttempts")
+    LocalDateTime findOldestPendingCreatedAt(
+            @Param("consumer") String consumer, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Claims events for processing inside the caller's transaction
+     *
+     * <p>Rows already processed by someone else are not returned, which is what makes consumers
+     * idempotent: the claim and the consumer's writes commit or roll back together.
+     */
+    @Query(
+            value =
+                    "UPDATE domain_events SET processed_at = LOCALTIMESTAMP "
+                            + "WHERE id IN (:ids) AND processed_at IS NULL "
+                            + "RETURNING id",
+            nativeQuery = true)
+    List<Long> claimUnprocessed(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(
+            "UPDATE DomainEventRecord e SET e.attempts = e.attempts + 1, "
+                    + "e.lastError = :error, e.nextAttemptAt = :nextAttemptAt "
+                    + "WHERE e.id = :id")
+    int recordFailure(
+            @Param("id") Long id,
+            @Param("error") String error,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+}
@@ -0,0 +1,313 @@
+package com.lockin.lockin_app.event.service;
+
+import com.lockin.lockin_app.config.EventPipelineConfig;
+import com.lockin.lockin_app.event.DomainEventConsumer;
+import com.lockin.lockin_app.event.entity.DomainEventRecord;
+import com.lockin.lockin_app.event.repository.DomainEventRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feeds stored domain events to their consumers on background threads
+ *
+ * <p>Each consumer gets a poller thread that moves pending event ids from the table into a bounded
+ * queue, and a few workers that drain the queue in batches. When the queue is full the poller stops
+ * reading and the events simply wait in the table, so publishers are never blocked and nothing is
+ * lost across restarts.
+ *
+ * <p>A batch is claimed and handled in one transaction. If it fails, its events are retried one by
+ * one so a single bad event can't hold back the rest; failing events back off and are given up
+ * after the configured number of attempts.
+ */
+@Slf4j
+@Component
+public class DomainEventDispatcher {
+
+    private final DomainEventRepository eventRepository;
+    private final List<DomainEventConsumer> consumers;
+    private final EventPipelineConfig config;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final List<Pipeline> pipelines = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public DomainEventDispatcher(
+            DomainEventRepository eventRepository,
+            List<DomainEventConsumer> consumers,
+            EventPipelineConfig config,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.consumers = consumers;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+
+        for (DomainEventConsumer consumer : consumers) {
+            Pipeline pipeline = new Pipeline(consumer);
+            pipelines.add(pipeline);
+
+            threads.add(
+                    Thread.ofPlatform()
+                            .name("events-" + consumer.getName() + "-poller")
+                            .daemon()
+                            .start(pipeline::poll));
+
+            for (int i = 0; i < config.getWorkersPerConsumer(); i++) {
+                threads.add(
+                        Thread.ofPlatform()
+                                .name("events-" + consumer.getName() + "-worker-" + i)
+                                .daemon()
+                                .start(pipeline::work));
+            }
+
+            log.info(
+                    "Started event pipeline for {} with {} workers",
+                    consumer.getName(),
+                    config.getWorkersPerConsumer());
+        }
+    }
+
+    /**
+     * Stops the pipelines and waits for their threads
+     *
+     * <p>Pollers are woken and workers finish the batch they hold, so no transaction is cut
+     * short. Threads still running once the shutdown timeout has passed are interrupted.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        pipelines.forEach(pipeline -> pipeline.wakeUp.release());
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getShutdownTimeoutMs());
+        for (Thread thread : threads) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                thread.join(Duration.ofNanos(remaining));
+            }
+        }
+
+        for (Thread thread : threads) {
+            if (thread.isAlive()) {
+                log.warn(
+                        "Event thread {} still running after {} ms, interrupting it",
+                        thread.getName(),
+                        config.getShutdownTimeoutMs());
+                thread.interrupt();
+            }
+        }
+    }
+
+    /** Wakes the pollers of every consumer interested in the given event type */
+    public void signal(String eventType) {
+        for (Pipeline pipeline : pipelines) {
+            if (pipeline.consumer.getEventTypes().contains(eventType)) {
+                pipeline.wakeUp.release();
+            }
+        }
+    }
+
+    private final class Pipeline {
+        private final DomainEventConsumer consumer;
+        private final BlockingQueue<Long> queue;
+        private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+        private final Semaphore wakeUp = new Semaphore(0);
+        private final AtomicLong lagSeconds = new AtomicLong();
+
+        private final Counter processed;
+        private final Counter failed;
+        private final Counter backpressure;
+        private final Timer batchTimer;
+
+        private Pipeline(DomainEventConsumer consumer) {
+            this.consumer = consumer;
+            this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+
+            Tags tags = Tags.of("consumer", consumer.getName());
+            meterRegistry.gauge("lockin.events.queue.size", tags, queue, BlockingQueue::size);
+            meterRegistry.gauge("lockin.events.in_flight", tags, inFlight, Set::size);
+            meterRegistry.gauge("lockin.events.lag.seconds", tags, lagSeconds);
+
+            this.processed =
+                    meterRegistry.counter("lockin.events.processed", "consumer", consumer.getName());
+            this.failed =
+                    meterRegistry.counter("lockin.events.failed", "consumer", consumer.getName());
+            this.backpressure =
+                    meterRegistry.counter(
+                            "lockin.events.backpressure", "consumer", consumer.getName());
+            this.batchTimer =
+                    meterRegistry.timer("lockin.events.batch", "consumer", consumer.getName());
+        }
+
+        private void poll() {
+            while (running) {
+                try {
+                    wakeUp.tryAcquire(config.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+                    wakeUp.drainPermits();
+
+                    enqueuePending();
+                    updateLag();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.error("Event poller for {} failed: {}", consumer.getName(), e.getMessage());
+                }
+            }
+        }
+
+        private void enqueuePending() throws InterruptedException {
+            int free = queue.remainingCapacity();
+            if (free == 0) {
+                backpressure.increment();
+                return;
+            }
+
+            List<Long> pending =
+                    eventRepository.findPendingIds(
+                            consumer.getName(), config.getMaxAttempts(), free + inFlight.size());
+
+            for (Long id : pending) {
+                if (!inFlight.add(id)) {
+                    continue;
+                }
+
+                if (!queue.offer(id, 1, TimeUnit.SECONDS)) {
+                    inFlight.remove(id);
+                    backpressure.increment();
+                    log.debug("Event queue for {} is full, deferring", consumer.getName());
+                    return;
+                }
+            }
+        }
+
+        private void updateLag() {
+            LocalDateTime oldest =
+                    eventRepository.findOldestPendingCreatedAt(
+                            consumer.getName(), config.getMaxAttempts());
+
+            lagSeconds.set(
+                    oldest != null
+                            ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds())
+                            : 0);
+        }
+
+        private void work() {
+            List<Long> batch = new ArrayList<>(config.getBatchSize());
+
+            while (running) {
+                try {
+                    Long first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+
+                    batch.add(first);
+                    queue.drainTo(batch, config.getBatchSize() - 1);
+
+                    batchTimer.record(() -> processBatch(batch));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    batch.forEach(inFlight::remove);
+                    batch.clear();
+                }
+            }
+        }
+
+        private void processBatch(List<Long> ids) {
+            try {
+                Integer handled = transactionTemplate.execute(status -> handle(ids));
+                processed.increment(handled != null ? handled : 0);
+            } catch (Exception e) {
+                log.warn(
+                        "Batch of {} {} events failed, retrying one by one: {}",
+                        ids.size(),
+                        consumer.getName(),
+                        e.getMessage());
+
+                for (Long id : ids) {
+                    processSingle(id);
+                }
+            }
+        }
+
+        private void processSingle(Long id) {
+            try {
+                Integer handled = transactionTemplate.execute(status -> handle(List.of(id)));
+                processed.increment(handled != null ? handled : 0);
+            } catch (Exception e) {
+                failed.increment();
+                recordFailure(id, e);
+            }
+        }
+
+        private int handle(List<Long> ids) {
+            List<Long> claimed = eventRepository.claimUnprocessed(ids);
+            if (claimed.isEmpty()) {
+                return 0;
+            }
+
+            List<DomainEventRecord> events = eventRepository.findAllById(claimed);
+            for (DomainEventRecord event : events) {
+                consumer.handle(event);
+            }
+
+            return events.size();
+        }
+
+        private void recordFailure(Long id, Exception e) {
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+            if (message.length() > 500) {
+                message = message.substring(0, 500);
+            }
+
+            String error = message;
+            try {
+                transactionTemplate.executeWithoutResult(
+                        status ->
+                                eventRepository.recordFailure(
+                                        id,
+                                        error,
+                                        LocalDateTime.now()
+                                                .plusSeconds(config.getRetryBackoffSeconds())));
+            } catch (Exception ex) {
+                log.error("Failed to record failure of event {}: {}", id, ex.getMessage());
+            }
+
+            log.error("Event {} failed for {}: {}", id, consumer.getName(), message);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.lockin.lockin_app.event.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockin.lockin_app.event.DomainEvent;
+import com.lockin.lockin_app.event.DomainEventConsumer;
+import com.lockin.lockin_app.event.entity.DomainEventRecord;
+import com.lockin.lockin_app.event.repository.DomainEventRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores published domain events in the publisher's transaction and wakes the dispatcher once it
+ * commits
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DomainEventOutbox {
+
+    private final DomainEventRepository eventRepository;
+    private final List<DomainEventConsumer> consumers;
+    private final DomainEventDispatcher dispatcher;
+    private final ObjectMapper objectMapper;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void store(DomainEvent event) {
+        String payload = serialize(event);
+
+        List<DomainEventRecord> records = new ArrayList<>();
+        for (DomainEventConsumer consumer : consumers) {
+            if (!consumer.getEventTypes().contains(event.getEventType())) {
+                continue;
+            }
+
+            DomainEventRecord record = new DomainEventRecord();
+            record.setConsumer(consumer.getName());
+            record.setEventType(event.getEventType());
+            record.setUserId(event.getUserId());
+            record.setAggregateId(event.getAggregateId());
+            record.setPayload(payload);
+            records.add(record);
+        }
+
+        if (records.isEmpty()) {
+            log.debug("No consumers for {} event, nothing stored", event.getEventType());
+            return;
+        }
+
+        eventRepository.saveAll(records);
+
+        log.debug(
+                "Stored {} event for user {} for {} consumers",
+                event.getEventType(),
+                event.getUserId(),
+                records.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void signal(DomainEvent event) {
+        dispatcher.signal(event.getEventType());
+    }
+
+    private String serialize(DomainEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event.getPayload());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(
+                    "Failed to serialize " + event.getEventType() + " event", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.lockin.lockin_app.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/** The AI provider can't take more requests right now, clients should retry after a while */
+@Getter
+public class AIServiceUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public AIServiceUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
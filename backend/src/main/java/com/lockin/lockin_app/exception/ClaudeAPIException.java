@@ -1,13 +1,24 @@
 package com.lockin.lockin_app.exception;
 
+import lombok.Getter;
 
+@Getter
 public class ClaudeAPIException extends RuntimeException {
 
+    // HTTP status returned by the API, 0 when no response was received
+    private final int statusCode;
+
     public ClaudeAPIException(String message) {
+        this(message, 0);
+    }
+
+    public ClaudeAPIException(String message, int statusCode) {
         super(message);
+        this.statusCode = statusCode;
     }
 
     public ClaudeAPIException(String message, Throwable cause) {
         super(message, cause);
+        this.statusCode = 0;
     }
 }
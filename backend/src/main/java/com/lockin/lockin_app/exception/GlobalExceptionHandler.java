@@ -4,6 +4,7 @@ import com.lockin.lockin_app.shared.dto.ErrorResponseDTO;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -159,6 +160,27 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(errorResponse);
     }
 
+    @ExceptionHandler(AIServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponseDTO> handleAIServiceUnavailable(
+            AIServiceUnavailableException ex, WebRequest request) {
+
+        log.warn("AI service unavailable: {}", ex.getMessage());
+
+        ErrorResponseDTO errorResponse =
+                ErrorResponseDTO.builder()
+                                .timestamp(LocalDateTime.now())
+                                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                                .error(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase())
+                                .message(ex.getMessage())
+                                .path(extractPath(request))
+                                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                             .header(HttpHeaders.RETRY_AFTER,
+                                     String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                             .body(errorResponse);
+    }
+
     private String extractPath(WebRequest request) {
         return request.getDescription(false).replace("uri=", "");
     }
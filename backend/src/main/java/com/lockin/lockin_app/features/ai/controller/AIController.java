@@ -1,10 +1,17 @@
 package com.lockin.lockin_app.features.ai.controller;
 
+import com.lockin.lockin_app.exception.AIServiceUnavailableException;
+import com.lockin.lockin_app.exception.RateLimitExceededException;
+import com.lockin.lockin_app.features.ai.dto.AIUsageReportDTO;
+import com.lockin.lockin_app.features.ai.dto.BatchBreakdownRequestDTO;
+import com.lockin.lockin_app.features.ai.dto.BatchBreakdownResultDTO;
 import com.lockin.lockin_app.features.ai.dto.BriefingResultDTO;
 import com.lockin.lockin_app.features.ai.dto.EnhancementResultDTO;
 import com.lockin.lockin_app.features.ai.dto.RateLimitStatusDTO;
 import com.lockin.lockin_app.features.ai.dto.TaskBreakdownRequestDTO;
 import com.lockin.lockin_app.features.ai.dto.TaskBreakdownResultDTO;
+import com.lockin.lockin_app.features.ai.service.AIRequestExecutor;
+import com.lockin.lockin_app.features.ai.service.AIUsageReportService;
 import com.lockin.lockin_app.features.ai.service.DailyBriefingService;
 import com.lockin.lockin_app.features.ai.service.DescriptionEnhancementService;
 import com.lockin.lockin_app.features.ai.service.RateLimitService;
@@ -17,10 +24,19 @@ import com.lockin.lockin_app.features.users.service.UserService;
 import com.lockin.lockin_app.shared.controller.BaseController;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 
 @Slf4j
@@ -28,11 +44,15 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/ai")
 public class AIController extends BaseController {
 
+    private static final long STREAM_TIMEOUT_MS = 120_000;
+
     private final TaskBreakdownService taskBreakdownService;
     private final TaskService taskService;
     private final DescriptionEnhancementService descriptionEnhancementService;
     private final DailyBriefingService dailyBriefingService;
     private final RateLimitService rateLimitService;
+    private final AIRequestExecutor aiRequestExecutor;
+    private final AIUsageReportService usageReportService;
 
     public AIController(
             UserService userService,
@@ -40,17 +60,21 @@ public class AIController extends BaseController {
             TaskService taskService,
             DescriptionEnhancementService descriptionEnhancementService,
             DailyBriefingService dailyBriefingService,
-            RateLimitService rateLimitService) {
+            RateLimitService rateLimitService,
+            AIRequestExecutor aiRequestExecutor,
+            AIUsageReportService usageReportService) {
         super(userService);
         this.taskBreakdownService = taskBreakdownService;
         this.taskService = taskService;
         this.descriptionEnhancementService = descriptionEnhancementService;
         this.dailyBriefingService = dailyBriefingService;
         this.rateLimitService = rateLimitService;
+        this.aiRequestExecutor = aiRequestExecutor;
+        this.usageReportService = usageReportService;
     }
 
     @PostMapping("/breakdown/{taskId}")
-    public ResponseEntity<TaskBreakdownResultDTO> breakdownTask(
+    public CompletableFuture<ResponseEntity<TaskBreakdownResultDTO>> breakdownTask(
             @PathVariable Long taskId,
             @AuthenticationPrincipal UserDetails userDetails) {
 
@@ -59,31 +83,35 @@ public class AIController extends BaseController {
         Long userId = getCurrentUserId(userDetails);
         Task task = taskService.getTaskEntity(taskId, userId);
 
-        try {
-            TaskBreakdownResultDTO result = taskBreakdownService.breakdownTask(
-                    task.getTitle(),
-                    task.getDescription(),
-                    task.getDueDate(),
-                    userId
-            );
-
-            log.info("AI breakdown successful: {} subtasks, ${} cost",
-                     result.getSubtasks().size(),
-                     String.format("%.4f", result.getCostUSD()));
-
-            return ResponseEntity.ok(result);
-
-        } catch (IllegalArgumentException e) {
-            log.error("Invalid request: {}", e.getMessage());
-            throw e;
-        } catch (Exception e) {
-            log.error("AI breakdown failed: {}", e.getMessage());
-            throw new RuntimeException("AI task breakdown failed: " + e.getMessage(), e);
-        }
+        return aiRequestExecutor.submit(() -> {
+            try {
+                TaskBreakdownResultDTO result = taskBreakdownService.breakdownTask(
+                        task.getTitle(),
+                        task.getDescription(),
+                        task.getDueDate(),
+                        userId
+                );
+
+                log.info("AI breakdown successful: {} subtasks, ${} cost",
+                         result.getSubtasks().size(),
+                         String.format("%.4f", result.getCostUSD()));
+
+                return ResponseEntity.ok(result);
+
+            } catch (IllegalArgumentException e) {
+                log.error("Invalid request: {}", e.getMessage());
+                throw e;
+            } catch (RateLimitExceededException | AIServiceUnavailableException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("AI breakdown failed: {}", e.getMessage());
+                throw new RuntimeException("AI task breakdown failed: " + e.getMessage(), e);
+            }
+        });
     }
 
     @PostMapping("/breakdown-preview")
-    public ResponseEntity<TaskBreakdownResultDTO> breakdownPreview(
+    public CompletableFuture<ResponseEntity<TaskBreakdownResultDTO>> breakdownPreview(
             @Valid @RequestBody TaskBreakdownRequestDTO request,
             @AuthenticationPrincipal UserDetails userDetails) {
 
@@ -98,31 +126,72 @@ public class AIController extends BaseController {
         User user = userService.getUserById(userId);
         tempTask.setUser(user);
 
-        try {
-            TaskBreakdownResultDTO result = taskBreakdownService.breakdownTask(
-                    request.getTitle(),
-                    request.getDescription(),
-                    null,
-                    userId
-            );
-
-            log.info("AI breakdown preview successful: {} subtasks, ${} cost",
-                     result.getSubtasks().size(),
-                     String.format("%.4f", result.getCostUSD()));
-
-            return ResponseEntity.ok(result);
-
-        } catch (IllegalArgumentException e) {
-            log.error("Invalid request: {}", e.getMessage());
-            throw e;
-        } catch (Exception e) {
-            log.error("AI breakdown preview failed: {}", e.getMessage());
-            throw new RuntimeException("AI task breakdown failed: " + e.getMessage(), e);
-        }
+        return aiRequestExecutor.submit(() -> {
+            try {
+                TaskBreakdownResultDTO result = taskBreakdownService.breakdownTask(
+                        request.getTitle(),
+                        request.getDescription(),
+                        null,
+                        userId
+                );
+
+                log.info("AI breakdown preview successful: {} subtasks, ${} cost",
+                         result.getSubtasks().size(),
+                         String.format("%.4f", result.getCostUSD()));
+
+                return ResponseEntity.ok(result);
+
+            } catch (IllegalArgumentException e) {
+                log.error("Invalid request: {}", e.getMessage());
+                throw e;
+            } catch (RateLimitExceededException | AIServiceUnavailableException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("AI breakdown preview failed: {}", e.getMessage());
+                throw new RuntimeException("AI task breakdown failed: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @PostMapping("/breakdown/batch")
+    public CompletableFuture<ResponseEntity<BatchBreakdownResultDTO>> breakdownTasks(
+            @Valid @RequestBody BatchBreakdownRequestDTO request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        log.info("AI batch breakdown requested for {} tasks by user {}",
+                 request.getTaskIds().size(), getCurrentUserEmail(userDetails));
+
+        Long userId = getCurrentUserId(userDetails);
+        List<Task> tasks = request.getTaskIds().stream()
+                                  .distinct()
+                                  .map(taskId -> taskService.getTaskEntity(taskId, userId))
+                                  .toList();
+
+        return aiRequestExecutor.submit(() -> {
+            try {
+                BatchBreakdownResultDTO result = taskBreakdownService.breakdownTasks(tasks, userId);
+
+                log.info("AI batch breakdown successful: {} tasks, {} failed, ${} cost",
+                         result.getBreakdowns().size(),
+                         result.getFailedTaskIds().size(),
+                         String.format("%.4f", result.getCostUSD()));
+
+                return ResponseEntity.ok(result);
+
+            } catch (IllegalArgumentException e) {
+                log.error("Invalid request: {}", e.getMessage());
+                throw e;
+            } catch (RateLimitExceededException | AIServiceUnavailableException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("AI batch breakdown failed: {}", e.getMessage());
+                throw new RuntimeException("AI batch breakdown failed: " + e.getMessage(), e);
+            }
+        });
     }
 
     @PostMapping("/enhance-description")
-    public ResponseEntity<EnhancementResultDTO> enhanceDescription(
+    public CompletableFuture<ResponseEntity<EnhancementResultDTO>> enhanceDescription(
             @Valid @RequestBody TaskBreakdownRequestDTO request,
             @AuthenticationPrincipal UserDetails userDetails) {
 
@@ -131,50 +200,135 @@ public class AIController extends BaseController {
 
         Long userId = getCurrentUserId(userDetails);
 
-        try {
-            EnhancementResultDTO result =
-                    descriptionEnhancementService.enhanceDescription(
-                            request.getTitle(),
-                            request.getDescription(),
-                            userId
-                    );
-
-            log.info("AI description enhancement successful: {} tokens, ${} cost",
-                     result.getTokensUsed(),
-                     String.format("%.4f", result.getCostUSD()));
-
-            return ResponseEntity.ok(result);
-
-        } catch (IllegalArgumentException e) {
-            log.error("Invalid request: {}", e.getMessage());
-            throw e;
-        } catch (Exception e) {
-            log.error("AI description enhancement failed: {}", e.getMessage());
-            throw new RuntimeException("AI description enhancement failed: " + e.getMessage(), e);
-        }
+        return aiRequestExecutor.submit(() -> {
+            try {
+                EnhancementResultDTO result =
+                        descriptionEnhancementService.enhanceDescription(
+                                request.getTitle(),
+                                request.getDescription(),
+                                userId
+                        );
+
+                log.info("AI description enhancement successful: {} tokens, ${} cost",
+                         result.getTokensUsed(),
+                         String.format("%.4f", result.getCostUSD()));
+
+                return ResponseEntity.ok(result);
+
+            } catch (IllegalArgumentException e) {
+                log.error("Invalid request: {}", e.getMessage());
+                throw e;
+            } catch (RateLimitExceededException | AIServiceUnavailableException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("AI description enhancement failed: {}", e.getMessage());
+                throw new RuntimeException("AI description enhancement failed: " + e.getMessage(), e);
+            }
+        });
     }
 
     @GetMapping("/daily-briefing")
-    public ResponseEntity<BriefingResultDTO> getDailyBriefing(
+    public CompletableFuture<ResponseEntity<BriefingResultDTO>> getDailyBriefing(
             @AuthenticationPrincipal UserDetails userDetails) {
         log.info("Daily briefing requested by user: {}", getCurrentUserEmail(userDetails));
 
         Long userId = getCurrentUserId(userDetails);
 
-        try {
-            BriefingResultDTO result =
-                    dailyBriefingService.generateDailyBriefing(userId);
+        return aiRequestExecutor.submit(() -> {
+            try {
+                BriefingResultDTO result =
+                        dailyBriefingService.generateDailyBriefing(userId);
 
-            log.info("Daily briefing generated: {} tokens, ${} cost",
-                     result.getTokensUsed(),
-                     String.format("%.4f", result.getCostUSD()));
+                log.info("Daily briefing generated: {} tokens, ${} cost",
+                         result.getTokensUsed(),
+                         String.format("%.4f", result.getCostUSD()));
 
-            return ResponseEntity.ok(result);
+                return ResponseEntity.ok(result);
 
-        } catch (Exception e) {
-            log.error("Daily briefing generation failed: {}", e.getMessage());
-            throw new RuntimeException("Daily briefing generation failed: " + e.getMessage(), e);
-        }
+            } catch (RateLimitExceededException | AIServiceUnavailableException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Daily briefing generation failed: {}", e.getMessage());
+                throw new RuntimeException("Daily briefing generation failed: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @PostMapping(value = "/breakdown/{taskId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBreakdown(
+            @PathVariable Long taskId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        log.info("AI breakdown stream requested for task {} by user {}", taskId, getCurrentUserEmail(userDetails));
+
+        Long userId = getCurrentUserId(userDetails);
+        Task task = taskService.getTaskEntity(taskId, userId);
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+
+        return completeStream(emitter, taskBreakdownService.streamBreakdown(
+                task.getTitle(),
+                task.getDescription(),
+                task.getDueDate(),
+                userId,
+                subtask -> sendEvent(emitter, "subtask", subtask)
+        ));
+    }
+
+    @PostMapping(value = "/breakdown-preview/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBreakdownPreview(
+            @Valid @RequestBody TaskBreakdownRequestDTO request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        log.info("AI breakdown preview stream requested by user {} for task: {}",
+                 getCurrentUserEmail(userDetails), request.getTitle());
+
+        Long userId = getCurrentUserId(userDetails);
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+
+        return completeStream(emitter, taskBreakdownService.streamBreakdown(
+                request.getTitle(),
+                request.getDescription(),
+                null,
+                userId,
+                subtask -> sendEvent(emitter, "subtask", subtask)
+        ));
+    }
+
+    @PostMapping(value = "/enhance-description/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEnhanceDescription(
+            @Valid @RequestBody TaskBreakdownRequestDTO request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        log.info("AI description enhancement stream requested by user {} for task: {}",
+                 getCurrentUserEmail(userDetails), request.getTitle());
+
+        Long userId = getCurrentUserId(userDetails);
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+
+        return completeStream(emitter, descriptionEnhancementService.streamEnhancement(
+                request.getTitle(),
+                request.getDescription(),
+                userId,
+                text -> sendEvent(emitter, "delta", Map.of("text", text))
+        ));
+    }
+
+    @GetMapping(value = "/daily-briefing/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDailyBriefing(
+            @AuthenticationPrincipal UserDetails userDetails) {
+        log.info("Daily briefing stream requested by user: {}", getCurrentUserEmail(userDetails));
+
+        Long userId = getCurrentUserId(userDetails);
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+
+        return completeStream(emitter, dailyBriefingService.streamDailyBriefing(
+                userId,
+                text -> sendEvent(emitter, "delta", Map.of("text", text))
+        ));
     }
 
     @GetMapping("/rate-limit")
@@ -184,12 +338,57 @@ public class AIController extends BaseController {
 
         Long userId = getCurrentUserId(userDetails);
 
-        int limit = rateLimitService.getMaxRequests();
-        int used = rateLimitService.getUsedRequests(userId);
-        int remaining = rateLimitService.getRemainingRequests(userId);
+        return ResponseEntity.ok(rateLimitService.getStatus(userId));
+    }
 
-        RateLimitStatusDTO status = new RateLimitStatusDTO(limit, remaining, used);
+    /** Calls, tokens and cost of the last {@code days} days including today, at most a year */
+    @GetMapping("/usage")
+    public ResponseEntity<AIUsageReportDTO> getUsageReport(
+            @RequestParam(defaultValue = "30") int days,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        log.debug("AI usage report requested by user: {}", getCurrentUserEmail(userDetails));
 
-        return ResponseEntity.ok(status);
+        Long userId = getCurrentUserId(userDetails);
+
+        return ResponseEntity.ok(usageReportService.getReport(userId, Math.max(1, Math.min(days, 365))));
+    }
+
+    /**
+     * Sends the final result as a "done" event, or an "error" event if generation failed.
+     * Rate limit and validation errors are thrown before the stream starts and get the usual
+     * error responses.
+     */
+    private <T> SseEmitter completeStream(SseEmitter emitter, CompletableFuture<T> result) {
+        result.whenComplete((value, error) -> {
+            if (error == null) {
+                sendEvent(emitter, "done", value);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                log.error("AI stream failed: {}", cause.getMessage());
+
+                Map<String, Object> body = new HashMap<>();
+                if (cause instanceof AIServiceUnavailableException unavailable) {
+                    body.put("message", unavailable.getMessage());
+                    body.put("retryAfterSeconds", unavailable.getRetryAfter().toSeconds());
+                } else {
+                    body.put("message", "AI request failed, please try again");
+                }
+                sendEvent(emitter, "error", body);
+            }
+            emitter.complete();
+        });
+
+        return emitter;
+    }
+
+    // the client may have gone away, generation still finishes so the result gets cached
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropped {} event for a closed stream: {}", name, e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package com.lockin.lockin_app.features.ai.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AIUsageReportDTO {
+    private LocalDate from;
+    private LocalDate to;
+
+    private Long totalCalls;
+    private Long totalTokens;
+    private Double totalCostUSD;
+
+    private Map<String, UsageTotals> byFeature;
+
+    // only days with usage, oldest first
+    private List<DailyUsage> days;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UsageTotals {
+        private Long calls;
+        private Long tokens;
+        private Double costUSD;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DailyUsage {
+        private LocalDate date;
+        private Long calls;
+        private Long tokens;
+        private Double costUSD;
+    }
+}
@@ -0,0 +1,15 @@
+package com.lockin.lockin_app.features.ai.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchBreakdownRequestDTO {
+
+    @NotEmpty(message = "At least one task is required")
+    @Size(max = 10, message = "Cannot break down more than 10 tasks at once")
+    private List<Long> taskIds;
+}
@@ -0,0 +1,21 @@
+package com.lockin.lockin_app.features.ai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchBreakdownResultDTO {
+    // keyed by task id
+    private Map<Long, TaskBreakdownResultDTO> breakdowns;
+    // tasks the response had no usable breakdown for
+    private List<Long> failedTaskIds;
+    // for the single model call, cached breakdowns cost nothing
+    private int tokensUsed;
+    private double costUSD;
+}
@@ -2,10 +2,12 @@ package com.lockin.lockin_app.features.ai.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 
 @AllArgsConstructor
+@NoArgsConstructor
 @Data
 public class BriefingResultDTO {
     String summary;
@@ -12,14 +12,55 @@ public class ClaudeResponseDTO {
     private int outputTokens;
     private String model;
 
+    // prompt prefix tokens written to and read from the prompt cache, not included in inputTokens
+    private int cacheWriteTokens;
+    private int cacheReadTokens;
+
+    // true when this caller joined an identical request already in flight, nothing was billed for it
+    private boolean coalesced;
+
+    public ClaudeResponseDTO(String text, int inputTokens, int outputTokens, String model) {
+        this(text, inputTokens, outputTokens, model, 0, 0, false);
+    }
+
+    public ClaudeResponseDTO(
+            String text,
+            int inputTokens,
+            int outputTokens,
+            String model,
+            int cacheWriteTokens,
+            int cacheReadTokens) {
+        this(text, inputTokens, outputTokens, model, cacheWriteTokens, cacheReadTokens, false);
+    }
+
+    public ClaudeResponseDTO asCoalesced() {
+        return new ClaudeResponseDTO(
+                text, inputTokens, outputTokens, model, cacheWriteTokens, cacheReadTokens, true);
+    }
+
+    // priced by the model that answered, cache writes cost 1.25x the input price, cache reads 0.1x
     public double getEstimatedCost() {
-        double inputCost = (inputTokens / 1_000_000.0) * 3.0;
-        double outputCost = (outputTokens / 1_000_000.0) * 15.0;
-        return inputCost + outputCost;
+        double inputPrice = inputPricePerMillion(model);
+        double inputCost = (inputTokens / 1_000_000.0) * inputPrice;
+        double cacheWriteCost = (cacheWriteTokens / 1_000_000.0) * inputPrice * 1.25;
+        double cacheReadCost = (cacheReadTokens / 1_000_000.0) * inputPrice * 0.1;
+        double outputCost = (outputTokens / 1_000_000.0) * inputPrice * 5;
+        return inputCost + cacheWriteCost + cacheReadCost + outputCost;
+    }
+
+    // USD per million input tokens, output tokens cost five times as much for all of them
+    private static double inputPricePerMillion(String model) {
+        if (model != null && model.contains("haiku")) {
+            return 0.80;
+        }
+        if (model != null && model.contains("opus")) {
+            return 15.0;
+        }
+        return 3.0;
     }
 
     public int getTotalTokens() {
-        return inputTokens + outputTokens;
+        return inputTokens + cacheWriteTokens + cacheReadTokens + outputTokens;
     }
 
 }
@@ -2,8 +2,10 @@ package com.lockin.lockin_app.features.ai.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @AllArgsConstructor
+@NoArgsConstructor
 @Data
 public class EnhancementResultDTO {
     String enhancedDescription;
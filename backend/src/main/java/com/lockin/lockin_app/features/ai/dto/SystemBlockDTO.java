@@ -0,0 +1,30 @@
+package com.lockin.lockin_app.features.ai.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One text block of a system prompt
+ *
+ * <p>A cached block marks the end of a prefix the API may cache, everything up to and including
+ * it has to be identical between calls to hit the cache. Static instructions go into cached
+ * blocks first, anything that varies per request after them.
+ *
+ * <p>The API only caches prefixes of at least 1024 tokens, a shorter cached block is sent and
+ * billed like a plain one. None of the current system prompts reach that length yet.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class SystemBlockDTO {
+    private final String text;
+    private final boolean cached;
+
+    public static SystemBlockDTO cached(String text) {
+        return new SystemBlockDTO(text, true);
+    }
+
+    public static SystemBlockDTO plain(String text) {
+        return new SystemBlockDTO(text, false);
+    }
+}
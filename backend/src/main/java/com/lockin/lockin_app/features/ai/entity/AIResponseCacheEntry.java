@@ -0,0 +1,48 @@
+package com.lockin.lockin_app.features.ai.entity;
+
+import jakarta.persistence.*;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored AI result, the payload is gzipped JSON of the result DTO
+ *
+ * <p>The key is a hash of the feature, model, sampling parameters, prompt version and the inputs
+ * the result was generated from.
+ */
+@Entity
+@Table(
+        name = "ai_response_cache",
+        indexes = @Index(name = "idx_ai_response_cache_expires_at", columnList = "expires_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class AIResponseCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cache_key", nullable = false, unique = true, length = 64)
+    private String cacheKey;
+
+    @Column(name = "feature_type", nullable = false, length = 20)
+    private String featureType;
+
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+
+    // what generating the result cost, counted as saved on every hit
+    @Column(name = "cost_usd", nullable = false)
+    private double costUSD;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -30,6 +30,11 @@ public class AIUsage {
     @Column(nullable = false)
     private Double costUSD;
 
+    // prompt cache tokens, part of tokensUsed
+    private Integer cacheWriteTokens;
+
+    private Integer cacheReadTokens;
+
     @Column(length = 1000)
     private String requestDetails;
 
@@ -0,0 +1,45 @@
+package com.lockin.lockin_app.features.ai.entity;
+
+import jakarta.persistence.*;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/** AI calls, tokens and cost per user, day and feature, kept up to date with the usage records */
+@Entity
+@Table(
+        name = "ai_usage_daily",
+        uniqueConstraints =
+                @UniqueConstraint(
+                        name = "uk_ai_usage_daily",
+                        columnNames = {"user_id", "usage_date", "feature_type"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class AIUsageDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "usage_date", nullable = false)
+    private LocalDate usageDate;
+
+    @Column(name = "feature_type", nullable = false, length = 20)
+    private String featureType;
+
+    @Column(nullable = false)
+    private long calls;
+
+    @Column(nullable = false)
+    private long tokens;
+
+    @Column(name = "cost_usd", nullable = false)
+    private double costUSD;
+}
@@ -0,0 +1,39 @@
+package com.lockin.lockin_app.features.ai.repository;
+
+import com.lockin.lockin_app.features.ai.entity.AIResponseCacheEntry;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface AIResponseCacheRepository extends JpaRepository<AIResponseCacheEntry, Long> {
+
+    Optional<AIResponseCacheEntry> findByCacheKeyAndExpiresAtAfter(
+            String cacheKey, LocalDateTime now);
+
+    // two nodes storing the same result race harmlessly, the later write wins
+    @Modifying
+    @Transactional
+    @Query(
+            value =
+                    "INSERT INTO ai_response_cache (cache_key, feature_type, payload, cost_usd, "
+                            + "created_at, expires_at) "
+                            + "VALUES (:cacheKey, :featureType, :payload, :costUSD, LOCALTIMESTAMP, :expiresAt) "
+                            + "ON CONFLICT (cache_key) DO UPDATE SET "
+                            + "payload = EXCLUDED.payload, cost_usd = EXCLUDED.cost_usd, "
+                            + "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at",
+            nativeQuery = true)
+    int upsert(
+            @Param("cacheKey") String cacheKey,
+            @Param("featureType") String featureType,
+            @Param("payload") byte[] payload,
+            @Param("costUSD") double costUSD,
+            @Param("expiresAt") LocalDateTime expiresAt);
+}
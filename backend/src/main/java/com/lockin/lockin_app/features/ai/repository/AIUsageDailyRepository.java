@@ -0,0 +1,23 @@
+package com.lockin.lockin_app.features.ai.repository;
+
+import com.lockin.lockin_app.features.ai.entity.AIUsageDaily;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AIUsageDailyRepository extends JpaRepository<AIUsageDaily, Long> {
+
+    List<AIUsageDaily> findByUserIdAndUsageDateBetweenOrderByUsageDateAsc(
+            Long userId, LocalDate from, LocalDate to);
+
+    @Query("SELECT DISTINCT d.userId FROM AIUsageDaily d " +
+            "WHERE d.featureType = :featureType AND d.usageDate >= :since")
+    List<Long> findUserIdsWithFeatureSince(@Param("featureType") String featureType,
+                                           @Param("since") LocalDate since);
+}
@@ -19,4 +19,16 @@ public interface AIUsageRepository extends JpaRepository<AIUsage, Long> {
             "AND u.createdAt >= :since")
     long countRecentRequests(@Param("user") User user,
                              @Param("since") LocalDateTime since);
-}
\ No newline at end of file
+
+    // only what the rate limiter needs to rebuild its window
+    @Query("SELECT u.featureType AS featureType, u.createdAt AS createdAt FROM AIUsage u " +
+            "WHERE u.user.id = :userId AND u.createdAt >= :since")
+    List<UsageTime> findUsageTimesSince(@Param("userId") Long userId,
+                                        @Param("since") LocalDateTime since);
+
+    interface UsageTime {
+        String getFeatureType();
+
+        LocalDateTime getCreatedAt();
+    }
+}
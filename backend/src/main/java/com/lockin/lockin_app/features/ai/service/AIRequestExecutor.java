@@ -0,0 +1,80 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.lockin.lockin_app.config.AIExecutorConfig;
+import com.lockin.lockin_app.exception.AIServiceUnavailableException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool for AI requests, keeps slow model calls off the servlet threads
+ *
+ * <p>Controllers hand the work over and return a future, the servlet thread goes back to serving
+ * other requests. When every worker is busy and the queue is full, new requests are shed with
+ * {@link AIServiceUnavailableException} instead of piling up.
+ */
+@Slf4j
+@Component
+public class AIRequestExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final AIExecutorConfig config;
+    private final MeterRegistry meterRegistry;
+
+    public AIRequestExecutor(AIExecutorConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor =
+                new ThreadPoolExecutor(
+                        config.getThreads(),
+                        config.getThreads(),
+                        60,
+                        TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(runnable, "ai-request-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        },
+                        new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        meterRegistry.gauge("lockin.ai.executor.queue.size", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("lockin.ai.executor.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("lockin.ai.requests.rejected", "reason", "queue").increment();
+            log.warn("AI request queue full ({} waiting), shedding request", executor.getQueue().size());
+            return CompletableFuture.failedFuture(
+                    new AIServiceUnavailableException(
+                            "Too many AI requests in progress, please try again shortly",
+                            Duration.ofSeconds(config.getRetryAfterSeconds())));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,165 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockin.lockin_app.config.AICacheConfig;
+import com.lockin.lockin_app.config.AIModelRoutingConfig;
+import com.lockin.lockin_app.config.AnthropicConfig;
+import com.lockin.lockin_app.features.ai.entity.AIResponseCacheEntry;
+import com.lockin.lockin_app.features.ai.repository.AIResponseCacheRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent second-level cache for AI results, shared by all nodes and kept across restarts
+ *
+ * <p>Sits behind the in-memory caches and in front of the API. The cache is an optimisation only:
+ * a failing read counts as a miss and a failing write is logged and dropped.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AIResponseCacheService {
+
+    private final AIResponseCacheRepository repository;
+    private final AICacheConfig config;
+    private final AnthropicConfig anthropicConfig;
+    private final AIModelRoutingConfig routingConfig;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Builds the key for a result of a feature, from the model the feature is routed to
+     *
+     * @param promptVersion bumped by the feature whenever its prompts change
+     * @param inputs the values the prompt is built from
+     */
+    public String key(String featureType, String promptVersion, Object... inputs) {
+        String[] parts =
+                Stream.concat(
+                                Stream.of(
+                                        featureType,
+                                        route(featureType).model(),
+                                        String.valueOf(anthropicConfig.getMaxTokens()),
+                                        String.valueOf(anthropicConfig.getTemperature()),
+                                        promptVersion),
+                                Stream.of(inputs).map(input -> input == null ? "" : input.toString()))
+                        .toArray(String[]::new);
+
+        return PromptHash.of(parts);
+    }
+
+    public <T> Optional<T> get(String featureType, String key, Class<T> type) {
+        if (!isEnabled(featureType)) {
+            return Optional.empty();
+        }
+
+        try {
+            Optional<AIResponseCacheEntry> entry =
+                    repository.findByCacheKeyAndExpiresAtAfter(key, LocalDateTime.now());
+
+            if (entry.isEmpty()) {
+                record(featureType, "miss");
+                return Optional.empty();
+            }
+
+            T value = objectMapper.readValue(decompress(entry.get().getPayload()), type);
+
+            record(featureType, "hit");
+            meterRegistry
+                    .counter("lockin.ai.cache.cost_saved", "feature", featureType)
+                    .increment(entry.get().getCostUSD());
+
+            log.debug("Persistent AI cache hit for {}", featureType);
+            return Optional.of(value);
+
+        } catch (Exception e) {
+            record(featureType, "error");
+            log.warn("Persistent AI cache read failed for {}: {}", featureType, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a result under a key built by {@link #key}
+     *
+     * @param answeredBy the model that produced the result, a fallback answer isn't kept since the
+     *     key stands for the routed model
+     */
+    public void put(String featureType, String key, Object value, double costUSD, String answeredBy) {
+        if (!isEnabled(featureType)) {
+            return;
+        }
+
+        AIModelRoutingConfig.Route route = route(featureType);
+        if (route.hasFallback() && route.fallbackModel().equals(answeredBy)) {
+            record(featureType, "skipped_fallback");
+            return;
+        }
+
+        try {
+            byte[] payload = compress(objectMapper.writeValueAsBytes(value));
+
+            repository.upsert(
+                    key,
+                    featureType,
+                    payload,
+                    costUSD,
+                    LocalDateTime.now().plusHours(config.ttlHoursFor(featureType)));
+
+        } catch (Exception e) {
+            log.warn("Persistent AI cache write failed for {}: {}", featureType, e.getMessage());
+        }
+    }
+
+    private AIModelRoutingConfig.Route route(String featureType) {
+        return routingConfig.routeFor(featureType, anthropicConfig.getModel());
+    }
+
+    private boolean isEnabled(String featureType) {
+        return Boolean.TRUE.equals(config.getPersistentEnabled())
+                && config.ttlHoursFor(featureType) > 0;
+    }
+
+    private void record(String featureType, String result) {
+        meterRegistry
+                .counter("lockin.ai.cache.persistent", "feature", featureType, "result", result)
+                .increment();
+    }
+
+    private byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 2 + 32);
+
+        try (OutputStream gzip =
+                new GZIPOutputStream(bytes) {
+                    {
+                        def.setLevel(config.getCompressionLevel());
+                    }
+                }) {
+            gzip.write(data);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private byte[] decompress(byte[] data) throws IOException {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.lockin.lockin_app.features.ai.dto.AIUsageReportDTO;
+import com.lockin.lockin_app.features.ai.dto.AIUsageReportDTO.DailyUsage;
+import com.lockin.lockin_app.features.ai.dto.AIUsageReportDTO.UsageTotals;
+import com.lockin.lockin_app.features.ai.entity.AIUsageDaily;
+import com.lockin.lockin_app.features.ai.repository.AIUsageDailyRepository;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** AI usage and cost per feature and day, read from the daily aggregates */
+@Service
+@RequiredArgsConstructor
+public class AIUsageReportService {
+
+    private final AIUsageDailyRepository usageDailyRepository;
+
+    public AIUsageReportDTO getReport(Long userId, int days) {
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(days - 1L);
+
+        List<AIUsageDaily> rows =
+                usageDailyRepository.findByUserIdAndUsageDateBetweenOrderByUsageDateAsc(userId, from, to);
+
+        Map<String, UsageTotals> byFeature = new TreeMap<>();
+        Map<LocalDate, DailyUsage> byDay = new TreeMap<>();
+        long calls = 0;
+        long tokens = 0;
+        double cost = 0;
+
+        for (AIUsageDaily row : rows) {
+            UsageTotals feature =
+                    byFeature.computeIfAbsent(row.getFeatureType(), f -> new UsageTotals(0L, 0L, 0.0));
+            feature.setCalls(feature.getCalls() + row.getCalls());
+            feature.setTokens(feature.getTokens() + row.getTokens());
+            feature.setCostUSD(feature.getCostUSD() + row.getCostUSD());
+
+            DailyUsage day =
+                    byDay.computeIfAbsent(row.getUsageDate(), d -> new DailyUsage(d, 0L, 0L, 0.0));
+            day.setCalls(day.getCalls() + row.getCalls());
+            day.setTokens(day.getTokens() + row.getTokens());
+            day.setCostUSD(day.getCostUSD() + row.getCostUSD());
+
+            calls += row.getCalls();
+            tokens += row.getTokens();
+            cost += row.getCostUSD();
+        }
+
+        return AIUsageReportDTO.builder()
+                .from(from)
+                .to(to)
+                .totalCalls(calls)
+                .totalTokens(tokens)
+                .totalCostUSD(cost)
+                .byFeature(byFeature)
+                .days(List.copyOf(byDay.values()))
+                .build();
+    }
+}
@@ -0,0 +1,328 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.lockin.lockin_app.config.AIUsageWriterConfig;
+import com.lockin.lockin_app.config.RetentionConfig;
+import com.lockin.lockin_app.features.ai.dto.ClaudeResponseDTO;
+import com.lockin.lockin_app.shared.service.JobLockService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind for AI usage records
+ *
+ * <p>Records are queued by the calling thread and written in batches every flush interval. Each
+ * batch is inserted with a JDBC batch and added to the per-day aggregates in ai_usage_daily in the
+ * same transaction, so the report never disagrees with the raw rows. The insert goes by user id,
+ * nobody has to load the user first.
+ *
+ * <p>When the queue is full the caller writes its own record. A batch that fails is written again
+ * record by record, only the records that still fail go back to the front of the queue and they
+ * are dropped once they have failed {@code maxAttempts} times. Whatever is still queued at shutdown
+ * is written before the application stops.
+ *
+ * <p>Usage written without aggregates, by older nodes during a rolling deploy or before the
+ * aggregates existed, is picked up by reconciliation. It recomputes every aggregate of a finished
+ * day from the usage records, up to the start of today, so it can run any number of times. Days
+ * whose records were partly purged by retention are left alone. On startup it covers all
+ * retained days, every night only the last {@code reconcileDays}.
+ */
+@Slf4j
+@Component
+public class AIUsageWriter {
+
+    // AIUsage.costUSD has no explicit column name, the naming strategy maps it to costusd
+    private static final String INSERT_USAGE =
+            "INSERT INTO ai_usage (user_id, feature_type, tokens_used, costusd, cache_write_tokens, "
+                    + "cache_read_tokens, request_details, created_at) "
+                    + "VALUES (:userId, :featureType, :tokens, :costUSD, :cacheWriteTokens, "
+                    + ":cacheReadTokens, :requestDetails, :createdAt)";
+
+    private static final String UPSERT_DAILY =
+            "INSERT INTO ai_usage_daily (user_id, usage_date, feature_type, calls, tokens, cost_usd) "
+                    + "VALUES (:userId, :usageDate, :featureType, :calls, :tokens, :costUSD) "
+                    + "ON CONFLICT (user_id, usage_date, feature_type) DO UPDATE SET "
+                    + "calls = ai_usage_daily.calls + EXCLUDED.calls, "
+                    + "tokens = ai_usage_daily.tokens + EXCLUDED.tokens, "
+                    + "cost_usd = ai_usage_daily.cost_usd + EXCLUDED.cost_usd";
+
+    // today is still being written to by the upserts, only finished days are recomputed
+    private static final String RECOMPUTE_DAILY =
+            "INSERT INTO ai_usage_daily (user_id, usage_date, feature_type, calls, tokens, cost_usd) "
+                    + "SELECT user_id, CAST(created_at AS DATE), feature_type, COUNT(*), "
+                    + "SUM(tokens_used), SUM(costusd) FROM ai_usage "
+                    + "WHERE created_at >= :from AND created_at < :watermark "
+                    + "GROUP BY user_id, CAST(created_at AS DATE), feature_type "
+                    + "ON CONFLICT (user_id, usage_date, feature_type) DO UPDATE SET "
+                    + "calls = EXCLUDED.calls, "
+                    + "tokens = EXCLUDED.tokens, "
+                    + "cost_usd = EXCLUDED.cost_usd";
+
+    private static final String RECONCILE_JOB = "ai-usage-reconcile";
+
+    // the same order on every node, concurrent upserts then can't deadlock
+    private static final Comparator<DayKey> DAY_ORDER =
+            Comparator.comparing(DayKey::userId)
+                    .thenComparing(DayKey::usageDate)
+                    .thenComparing(DayKey::featureType);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AIUsageWriterConfig config;
+    private final RetentionConfig retentionConfig;
+    private final JobLockService jobLockService;
+    private final BlockingDeque<PendingUsage> queue;
+    private final ScheduledExecutorService writer;
+
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter overflow;
+
+    public AIUsageWriter(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            AIUsageWriterConfig config,
+            RetentionConfig retentionConfig,
+            JobLockService jobLockService,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = config;
+        this.retentionConfig = retentionConfig;
+        this.jobLockService = jobLockService;
+        this.queue = new LinkedBlockingDeque<>(config.getQueueCapacity());
+        this.writer =
+                Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("ai-usage-writer").daemon().factory());
+
+        meterRegistry.gauge("lockin.ai.usage.queue.size", queue, BlockingDeque::size);
+        this.written = meterRegistry.counter("lockin.ai.usage.written");
+        this.dropped = meterRegistry.counter("lockin.ai.usage.dropped");
+        this.overflow = meterRegistry.counter("lockin.ai.usage.overflow");
+
+        writer.scheduleWithFixedDelay(
+                this::flush,
+                config.getFlushIntervalMs(),
+                config.getFlushIntervalMs(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /** Queues the usage of a billed call, returns without touching the database unless the queue is full */
+    public void record(Long userId, String featureType, ClaudeResponseDTO response, String requestDetails) {
+        PendingUsage usage =
+                new PendingUsage(
+                        userId,
+                        featureType,
+                        response.getTotalTokens(),
+                        response.getEstimatedCost(),
+                        response.getCacheWriteTokens(),
+                        response.getCacheReadTokens(),
+                        requestDetails,
+                        LocalDateTime.now(),
+                        0);
+
+        if (!queue.offerLast(usage)) {
+            overflow.increment();
+            try {
+                write(List.of(usage));
+            } catch (Exception e) {
+                dropped.increment();
+                log.error("Failed to write AI usage record of user {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileRetainedDays() {
+        // the day retention cuts into is incomplete, start the day after
+        reconcile(LocalDate.now().minusDays(retentionConfig.getAiUsageDays() - 1L));
+    }
+
+    @Scheduled(cron = "${ai.usage.reconcile-cron:0 30 3 * * ?}")
+    public void reconcileRecentDays() {
+        reconcile(LocalDate.now().minusDays(config.getReconcileDays()));
+    }
+
+    /** Runs on the writer thread and on one instance at a time, the scheduler thread isn't held */
+    private void reconcile(LocalDate from) {
+        writer.execute(() -> {
+            if (!jobLockService.tryAcquire(RECONCILE_JOB, Duration.ofMinutes(config.getReconcileLeaseMinutes()))) {
+                return;
+            }
+
+            try {
+                LocalDate watermark = LocalDate.now();
+                int rows = jdbcTemplate.update(
+                        RECOMPUTE_DAILY,
+                        new MapSqlParameterSource()
+                                .addValue("from", Timestamp.valueOf(from.atStartOfDay()))
+                                .addValue("watermark", Timestamp.valueOf(watermark.atStartOfDay())));
+                log.info("Recomputed {} daily AI usage aggregates from {} up to {}", rows, from, watermark);
+            } catch (Exception e) {
+                log.error("Daily AI usage reconciliation failed, will retry on the next run: {}", e.getMessage());
+            } finally {
+                jobLockService.release(RECONCILE_JOB);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private void flush() {
+        List<PendingUsage> batch = new ArrayList<>(config.getBatchSize());
+
+        while (queue.drainTo(batch, config.getBatchSize()) > 0) {
+            try {
+                write(batch);
+            } catch (Exception e) {
+                log.warn("Failed to write {} AI usage records as a batch, writing them one by one: {}",
+                         batch.size(), e.getMessage());
+
+                // one bad record doesn't take the rest of its batch down with it
+                List<PendingUsage> failed = writeEach(batch);
+                if (!failed.isEmpty()) {
+                    requeue(failed);
+                    return;
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private List<PendingUsage> writeEach(List<PendingUsage> batch) {
+        List<PendingUsage> failed = new ArrayList<>();
+
+        for (PendingUsage usage : batch) {
+            try {
+                write(List.of(usage));
+            } catch (Exception e) {
+                log.error("Failed to write AI usage record of user {}: {}", usage.userId(), e.getMessage());
+                failed.add(usage);
+            }
+        }
+
+        return failed;
+    }
+
+    private void write(List<PendingUsage> batch) {
+        transactionTemplate.executeWithoutResult(
+                status -> {
+                    jdbcTemplate.batchUpdate(
+                            INSERT_USAGE,
+                            batch.stream().map(this::usageParams).toArray(MapSqlParameterSource[]::new));
+                    jdbcTemplate.batchUpdate(
+                            UPSERT_DAILY,
+                            aggregate(batch).entrySet().stream()
+                                    .map(entry -> dailyParams(entry.getKey(), entry.getValue()))
+                                    .toArray(MapSqlParameterSource[]::new));
+                });
+
+        written.increment(batch.size());
+        log.debug("Wrote {} AI usage records", batch.size());
+    }
+
+    private void requeue(List<PendingUsage> batch) {
+        // back to the front in reverse, the records keep their order
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            PendingUsage usage = batch.get(i).retried();
+            if (usage.attempts() >= config.getMaxAttempts() || !queue.offerFirst(usage)) {
+                dropped.increment();
+                log.warn("Dropping AI usage record of user {} ({})", usage.userId(), usage.featureType());
+            }
+        }
+    }
+
+    private Map<DayKey, DayTotals> aggregate(List<PendingUsage> batch) {
+        Map<DayKey, DayTotals> days = new TreeMap<>(DAY_ORDER);
+        for (PendingUsage usage : batch) {
+            days.merge(
+                    new DayKey(usage.userId(), usage.createdAt().toLocalDate(), usage.featureType()),
+                    new DayTotals(1, usage.tokens(), usage.costUSD()),
+                    DayTotals::plus);
+        }
+        return days;
+    }
+
+    private MapSqlParameterSource usageParams(PendingUsage usage) {
+        return new MapSqlParameterSource()
+                .addValue("userId", usage.userId())
+                .addValue("featureType", usage.featureType())
+                .addValue("tokens", usage.tokens())
+                .addValue("costUSD", usage.costUSD())
+                .addValue("cacheWriteTokens", usage.cacheWriteTokens())
+                .addValue("cacheReadTokens", usage.cacheReadTokens())
+                .addValue("requestDetails", usage.requestDetails())
+                .addValue("createdAt", Timestamp.valueOf(usage.createdAt()));
+    }
+
+    private MapSqlParameterSource dailyParams(DayKey key, DayTotals totals) {
+        return new MapSqlParameterSource()
+                .addValue("userId", key.userId())
+                .addValue("usageDate", Date.valueOf(key.usageDate()))
+                .addValue("featureType", key.featureType())
+                .addValue("calls", totals.calls())
+                .addValue("tokens", totals.tokens())
+                .addValue("costUSD", totals.costUSD());
+    }
+
+    private record PendingUsage(
+            Long userId,
+            String featureType,
+            int tokens,
+            double costUSD,
+            int cacheWriteTokens,
+            int cacheReadTokens,
+            String requestDetails,
+            LocalDateTime createdAt,
+            int attempts) {
+
+        PendingUsage retried() {
+            return new PendingUsage(
+                    userId, featureType, tokens, costUSD, cacheWriteTokens, cacheReadTokens,
+                    requestDetails, createdAt, attempts + 1);
+        }
+    }
+
+    private record DayKey(Long userId, LocalDate usageDate, String featureType) {}
+
+    private record DayTotals(long calls, long tokens, double costUSD) {
+
+        DayTotals plus(DayTotals other) {
+            return new DayTotals(calls + other.calls, tokens + other.tokens, costUSD + other.costUSD);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Cancels every exchange of one logical call, including those of retries and a fallback yet to start */
+class Abort {
+
+    private final List<Exchange> exchanges = new ArrayList<>();
+    private boolean aborted;
+
+    synchronized void register(Exchange exchange) {
+        if (aborted) {
+            exchange.cancel();
+        } else {
+            exchanges.add(exchange);
+        }
+    }
+
+    synchronized void abort() {
+        aborted = true;
+        exchanges.forEach(Exchange::cancel);
+    }
+}
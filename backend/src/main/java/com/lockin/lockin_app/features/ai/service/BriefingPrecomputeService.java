@@ -0,0 +1,109 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.lockin.lockin_app.config.BriefingPrecomputeConfig;
+import com.lockin.lockin_app.exception.AIServiceUnavailableException;
+import com.lockin.lockin_app.features.ai.repository.AIUsageDailyRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates today's briefings ahead of the morning rush
+ *
+ * <p>Briefings go through {@link DailyBriefingService#precomputeDailyBriefing}, so they land in the
+ * in-memory and persistent caches exactly as a dashboard visit would put them there, without
+ * touching the user's rate limit. Only users who requested a briefing themselves recently are
+ * included, precomputed briefings are recorded under their own feature type and don't keep a user
+ * in the run. A user who only reads precomputed briefings drops out after {@code active-days},
+ * their next visit generates one on demand and brings them back. The run stops early if the AI
+ * service becomes unavailable.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BriefingPrecomputeService {
+
+    private final DailyBriefingService dailyBriefingService;
+    private final AIUsageDailyRepository usageDailyRepository;
+    private final BriefingPrecomputeConfig config;
+    private final MeterRegistry meterRegistry;
+
+    /** Returns the number of briefings that are ready */
+    public int precomputeBriefings() throws InterruptedException {
+        // BRIEFING usage is only recorded for briefings the user asked for
+        List<Long> userIds =
+                usageDailyRepository.findUserIdsWithFeatureSince(
+                        "BRIEFING", LocalDate.now().minusDays(config.getActiveDays()));
+
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+
+        log.info("Precomputing daily briefings for {} users", userIds.size());
+
+        AtomicInteger ready = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicBoolean unavailable = new AtomicBoolean();
+
+        ExecutorService workers = Executors.newFixedThreadPool(config.getConcurrency());
+
+        try {
+            for (Long userId : userIds) {
+                workers.execute(() -> {
+                    if (unavailable.get()) {
+                        return;
+                    }
+
+                    try {
+                        Thread.sleep(ThreadLocalRandom.current().nextLong(config.getMaxJitterMs() + 1));
+
+                        dailyBriefingService.precomputeDailyBriefing(userId);
+                        ready.incrementAndGet();
+                        record("ready");
+
+                    } catch (AIServiceUnavailableException e) {
+                        if (unavailable.compareAndSet(false, true)) {
+                            log.warn("AI service unavailable, stopping briefing precomputation: {}", e.getMessage());
+                        }
+                        record("unavailable");
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        record("failed");
+                        log.warn("Failed to precompute briefing for user {}: {}", userId, e.getMessage());
+                    }
+                });
+            }
+
+            workers.shutdown();
+
+            if (!workers.awaitTermination(config.getMaxDurationMinutes(), TimeUnit.MINUTES)) {
+                log.warn("Briefing precomputation ran out of time, the rest are generated on demand");
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        log.info("Precomputed {} daily briefings, {} failed", ready.get(), failed.get());
+
+        return ready.get();
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter("lockin.ai.briefing.precomputed", "outcome", outcome).increment();
+    }
+}
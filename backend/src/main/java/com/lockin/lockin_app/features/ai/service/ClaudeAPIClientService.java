@@ -1,111 +1,678 @@
 package com.lockin.lockin_app.features.ai.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.lockin.lockin_app.features.ai.dto.ClaudeResponseDTO;
+import com.lockin.lockin_app.config.AIHedgingConfig;
+import com.lockin.lockin_app.config.AIModelRoutingConfig;
 import com.lockin.lockin_app.config.AnthropicConfig;
+import com.lockin.lockin_app.exception.AIServiceUnavailableException;
 import com.lockin.lockin_app.exception.ClaudeAPIException;
+import com.lockin.lockin_app.features.ai.dto.ClaudeResponseDTO;
+import com.lockin.lockin_app.features.ai.dto.SystemBlockDTO;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.http.*;
-import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Client for the Anthropic Messages API
+ *
+ * <p>Calls go through a shared HTTP/2 client and complete asynchronously. Failed attempts are
+ * retried with exponential backoff and jitter on a timer, never by sleeping on the caller's
+ * thread, and a retry-after header from the API takes precedence. Client errors other than 408,
+ * 409 and 429 are not retried.
+ *
+ * <p>A bulkhead caps the number of requests in flight and a circuit breaker stops calling the API
+ * after repeated failures. In both cases the request fails fast with {@link
+ * AIServiceUnavailableException} instead of tying up a request thread.
+ *
+ * <p>System prompts are sent as text blocks, blocks marked as cached get a cache_control
+ * breakpoint so the API can reuse the prefix up to them.
+ *
+ * <p>Identical prompts that arrive while a call for them is still running share that call, see
+ * {@link SingleFlight}.
+ *
+ * <p>Streamed calls use the same bulkhead and circuit breaker but are neither coalesced nor
+ * retried, text may already have reached the caller when a stream breaks.
+ *
+ * <p>Each feature is routed to its own model with a fallback, see {@link ModelRouter}. Every model
+ * has its own circuit. Unary calls can be hedged, see {@link Hedging}, streams never are.
+ */
 @Slf4j
-@Component
 @Service
-@RequiredArgsConstructor
 public class ClaudeAPIClientService {
 
+    private static final String ANTHROPIC_VERSION = "2023-06-01";
+
+    static final Set<Integer> RETRYABLE_STATUSES =
+            Set.of(408, 409, 429, 500, 502, 503, 504, 529);
+
+    // route of callers that don't name a feature, the default model without a fallback
+    private static final String DEFAULT_ROUTE = "DEFAULT";
+
+    private static final double[] COST_BUCKETS_USD = {
+        0.0005, 0.001, 0.002, 0.005, 0.01, 0.02, 0.05, 0.1
+    };
+
     private final AnthropicConfig anthropicConfig;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final AIHedgingConfig hedgingConfig;
+    private final ModelRouter router;
+    private final Hedging hedging;
+    private final SingleFlight singleFlight;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final Semaphore bulkhead;
+    private final Map<String, CircuitBreaker> circuits = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService streamReader = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ClaudeAPIClientService(
+            AnthropicConfig anthropicConfig,
+            AIModelRoutingConfig routingConfig,
+            AIHedgingConfig hedgingConfig,
+            MeterRegistry meterRegistry) {
+        this.anthropicConfig = anthropicConfig;
+        this.hedgingConfig = hedgingConfig;
+        this.meterRegistry = meterRegistry;
+        this.httpClient =
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(Duration.ofMillis(anthropicConfig.getConnectTimeoutMs()))
+                        .build();
+        this.bulkhead = new Semaphore(anthropicConfig.getMaxConcurrentRequests());
+        this.router = new ModelRouter(anthropicConfig, routingConfig, this::circuitFor, meterRegistry);
+        this.hedging =
+                new Hedging(hedgingConfig, bulkhead, meterRegistry, this::latencyFor, exchange -> attempt(exchange, 1));
+        this.singleFlight = new SingleFlight(meterRegistry);
 
+        meterRegistry.gauge(
+                "lockin.ai.requests.in_flight",
+                bulkhead,
+                b -> anthropicConfig.getMaxConcurrentRequests() - b.availablePermits());
 
+        circuitFor(anthropicConfig.getModel());
+    }
+
+    private CircuitBreaker circuitFor(String model) {
+        return circuits.computeIfAbsent(
+                model,
+                m -> {
+                    CircuitBreaker circuit =
+                            new CircuitBreaker(
+                                    "claude-api:" + m,
+                                    anthropicConfig.getCircuitFailureThreshold(),
+                                    Duration.ofMillis(anthropicConfig.getCircuitOpenMs()));
+                    meterRegistry.gauge(
+                            "lockin.ai.circuit.open",
+                            Tags.of("model", m),
+                            circuit,
+                            cb -> cb.getState() == CircuitBreaker.State.CLOSED ? 0 : 1);
+                    return circuit;
+                });
+    }
+
+    private LatencyWindow latencyFor(String model) {
+        return latencies.computeIfAbsent(model, m -> new LatencyWindow(hedgingConfig.getWindowSize()));
+    }
+
+    /** Blocking variant for callers that need the result on the current thread, uses the default model */
     public ClaudeResponseDTO sendMessage(String systemPrompt, String userMessage) {
-        return sendMessageWithRetry(systemPrompt, userMessage, 3);
+        return sendMessage(DEFAULT_ROUTE, List.of(SystemBlockDTO.plain(systemPrompt)), userMessage);
+    }
+
+    public ClaudeResponseDTO sendMessage(
+            String featureType, List<SystemBlockDTO> system, String userMessage) {
+        return await(
+                sendMessageAsync(featureType, system, userMessage, anthropicConfig.getMaxTokens()));
+    }
+
+    /** Same with a larger output budget, for prompts that ask for several results at once */
+    public ClaudeResponseDTO sendMessage(
+            String featureType, List<SystemBlockDTO> system, String userMessage, int maxTokens) {
+        return await(sendMessageAsync(featureType, system, userMessage, maxTokens));
+    }
+
+    /**
+     * Sends a message, sharing the call with an identical request that is already in flight
+     *
+     * <p>Joiners get the leader's response marked as coalesced. Every caller holds its own
+     * dependent future, cancelling it detaches that caller only and the shared call carries on
+     * for the others. Once the last caller has cancelled, the shared call is cancelled too, on
+     * the wire and before any further retry or fallback.
+     */
+    public CompletableFuture<ClaudeResponseDTO> sendMessageAsync(
+            String featureType, List<SystemBlockDTO> system, String userMessage, int maxTokens) {
+        AIModelRoutingConfig.Route route = router.routeFor(featureType);
+
+        String key =
+                PromptHash.of(
+                        route.model(),
+                        String.valueOf(maxTokens),
+                        String.valueOf(anthropicConfig.getTemperature()),
+                        system.stream().map(SystemBlockDTO::getText).collect(Collectors.joining("\n")),
+                        userMessage);
+
+        return singleFlight.execute(
+                key,
+                abort -> router.send(
+                        featureType,
+                        route,
+                        maxTokens,
+                        (model, timeout, maxAttempts) -> call(
+                                featureType, model, system, userMessage, maxTokens, timeout, maxAttempts, abort)));
+    }
+
+    private CompletableFuture<ClaudeResponseDTO> call(
+            String featureType,
+            String model,
+            List<SystemBlockDTO> system,
+            String userMessage,
+            int maxTokens,
+            Duration timeout,
+            int maxAttempts,
+            Abort abort) {
+        if (!bulkhead.tryAcquire()) {
+            meterRegistry.counter("lockin.ai.requests.rejected", "reason", "bulkhead").increment();
+            return CompletableFuture.failedFuture(
+                    new AIServiceUnavailableException(
+                            "Too many AI requests in progress, please try again shortly",
+                            Duration.ofSeconds(2)));
+        }
+
+        HttpRequest request;
+        try {
+            request = buildRequest(model, system, userMessage, maxTokens, false, timeout);
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long started = System.nanoTime();
+
+        return hedging.send(new Exchange(model, request, circuitFor(model), maxAttempts), abort)
+                .whenComplete(
+                        (response, error) -> {
+                            bulkhead.release();
+                            sample.stop(
+                                    meterRegistry.timer(
+                                            "lockin.ai.requests",
+                                            "outcome",
+                                            error == null ? "success" : "failure"));
+                            recordModelCall(featureType, model, started, response, error);
+                        });
+    }
+
+    /** Latency and cost per model, the histograms behind the routing table */
+    private void recordModelCall(
+            String featureType, String model, long started, ClaudeResponseDTO response, Throwable error) {
+        Timer.builder("lockin.ai.model.latency")
+                .tags("feature", featureType, "model", model, "outcome", error == null ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        if (response != null) {
+            DistributionSummary.builder("lockin.ai.model.cost")
+                    .baseUnit("usd")
+                    .tags("feature", featureType, "model", model)
+                    .serviceLevelObjectives(COST_BUCKETS_USD)
+                    .register(meterRegistry)
+                    .record(response.getEstimatedCost());
+        }
+    }
+
+    /**
+     * Streams the response, handing every text fragment to {@code onText} as it arrives
+     *
+     * <p>The callback runs on the thread reading the stream, the returned future completes with
+     * the full text and token usage once the message is done.
+     */
+    public CompletableFuture<ClaudeResponseDTO> streamMessageAsync(
+            String featureType,
+            List<SystemBlockDTO> system,
+            String userMessage,
+            Consumer<String> onText) {
+        return router.stream(
+                featureType,
+                router.routeFor(featureType),
+                onText,
+                (model, consumer) -> stream(featureType, model, system, userMessage, consumer));
+    }
+
+    private CompletableFuture<ClaudeResponseDTO> stream(
+            String featureType,
+            String model,
+            List<SystemBlockDTO> system,
+            String userMessage,
+            Consumer<String> onText) {
+        CircuitBreaker circuitBreaker = circuitFor(model);
+
+        if (!bulkhead.tryAcquire()) {
+            meterRegistry.counter("lockin.ai.requests.rejected", "reason", "bulkhead").increment();
+            return CompletableFuture.failedFuture(
+                    new AIServiceUnavailableException(
+                            "Too many AI requests in progress, please try again shortly",
+                            Duration.ofSeconds(2)));
+        }
+
+        if (!circuitBreaker.tryAcquirePermission()) {
+            bulkhead.release();
+            meterRegistry.counter("lockin.ai.requests.rejected", "reason", "circuit").increment();
+            return CompletableFuture.failedFuture(
+                    new AIServiceUnavailableException(
+                            "AI service is temporarily unavailable, please try again later",
+                            circuitBreaker.getRemainingOpen()));
+        }
+
+        HttpRequest request;
+        try {
+            request =
+                    buildRequest(
+                            model,
+                            system,
+                            userMessage,
+                            anthropicConfig.getMaxTokens(),
+                            true,
+                            Duration.ofMillis(anthropicConfig.getRequestTimeoutMs()));
+        } catch (RuntimeException e) {
+            circuitBreaker.onIgnored();
+            bulkhead.release();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        log.info("Calling Claude API (streaming, {})", model);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long started = System.nanoTime();
+
+        return httpClient
+                .sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                .thenApplyAsync(response -> readStream(response, model, onText, sample), streamReader)
+                .whenComplete(
+                        (response, error) -> {
+                            // same rule as unary calls, client errors don't count against the API
+                            boolean clientError =
+                                    error != null
+                                            && unwrap(error) instanceof ClaudeAPIException apiError
+                                            && apiError.getStatusCode() != 0
+                                            && !RETRYABLE_STATUSES.contains(apiError.getStatusCode());
+                            if (error == null || clientError) {
+                                circuitBreaker.onSuccess();
+                            } else {
+                                circuitBreaker.onFailure();
+                            }
+
+                            bulkhead.release();
+                            sample.stop(
+                                    meterRegistry.timer(
+                                            "lockin.ai.streams",
+                                            "outcome",
+                                            error == null ? "success" : "failure"));
+                            recordModelCall(featureType, model, started, response, error);
+                        });
+    }
+
+    /** Waits for a pending call and unwraps its failure */
+    public <T> T await(CompletableFuture<T> future) {
+        // the primary model's attempt is bounded by the request timeout, then the fallback's retries
+        long maxWaitMs =
+                (anthropicConfig.getRequestTimeoutMs() + anthropicConfig.getMaxBackoffMs())
+                                * anthropicConfig.getMaxAttempts()
+                        + anthropicConfig.getRequestTimeoutMs();
+        try {
+            return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e;
+            while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+                    && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ClaudeAPIException("Claude API call failed", cause);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ClaudeAPIException("Claude API call timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ClaudeAPIException("Claude API call interrupted", e);
+        }
+    }
+
+    private CompletableFuture<ClaudeResponseDTO> attempt(Exchange exchange, int attempt) {
+        CircuitBreaker circuitBreaker = exchange.circuit();
+
+        if (exchange.isCancelled()) {
+            return CompletableFuture.failedFuture(new CancellationException("Claude API call cancelled"));
+        }
+
+        if (!circuitBreaker.tryAcquirePermission()) {
+            meterRegistry.counter("lockin.ai.requests.rejected", "reason", "circuit").increment();
+            return CompletableFuture.failedFuture(
+                    new AIServiceUnavailableException(
+                            "AI service is temporarily unavailable, please try again later",
+                            circuitBreaker.getRemainingOpen()));
+        }
+
+        log.info("Calling Claude API (attempt {})", attempt);
+
+        long started = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> sent =
+                httpClient.sendAsync(exchange.request(), HttpResponse.BodyHandlers.ofString());
+        exchange.track(sent);
+
+        return sent
+                .handle(
+                        (response, error) -> {
+                            // lost a hedge or nobody waits for it any more, says nothing about the API
+                            if (exchange.isCancelled()) {
+                                circuitBreaker.onIgnored();
+                                return CompletableFuture.<ClaudeResponseDTO>failedFuture(
+                                        new CancellationException("Claude API call cancelled"));
+                            }
+
+                            if (error == null && response.statusCode() == 200) {
+                                circuitBreaker.onSuccess();
+                                latencyFor(exchange.model())
+                                        .record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                                return CompletableFuture.completedFuture(
+                                        parseResponse(response.body()));
+                            }
+
+                            return retryOrFail(exchange, attempt, response, error);
+                        })
+                .thenCompose(future -> future);
+    }
+
+    private CompletableFuture<ClaudeResponseDTO> retryOrFail(
+            Exchange exchange, int attempt, HttpResponse<String> response, Throwable error) {
+        CircuitBreaker circuitBreaker = exchange.circuit();
+        int status = response != null ? response.statusCode() : 0;
+        boolean retryable = error != null ? isRetryable(error) : RETRYABLE_STATUSES.contains(status);
+
+        // the API answering with a client error says nothing about its health
+        if (retryable) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+
+        ClaudeAPIException failure =
+                error != null
+                        ? new ClaudeAPIException("Failed to call Claude API", unwrap(error))
+                        : new ClaudeAPIException(
+                                "API returned status: " + status + " " + errorMessage(response),
+                                status);
+
+        Optional<Duration> retryAfter = response != null ? retryAfter(response) : Optional.empty();
+
+        if (!retryable || attempt >= exchange.maxAttempts()) {
+            log.warn("Claude API attempt {} failed, giving up: {}", attempt, failure.getMessage());
+            return CompletableFuture.failedFuture(failure);
+        }
+
+        if (retryAfter.isPresent()
+                && retryAfter.get().toMillis() > anthropicConfig.getMaxRetryAfterMs()) {
+            log.warn("Claude API asked to retry after {}, giving up", retryAfter.get());
+            return CompletableFuture.failedFuture(failure);
+        }
+
+        Duration delay = retryAfter.map(this::withJitter).orElseGet(() -> backoff(attempt));
+
+        log.warn(
+                "Claude API attempt {} failed: {}, retrying in {} ms",
+                attempt,
+                failure.getMessage(),
+                delay.toMillis());
+        meterRegistry.counter("lockin.ai.requests.retries").increment();
+
+        return CompletableFuture.supplyAsync(
+                        () -> null,
+                        CompletableFuture.delayedExecutor(
+                                delay.toMillis(), TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> attempt(exchange, attempt + 1));
     }
 
+    /** Reads server-sent events until message_stop, see the Messages API streaming docs */
+    private ClaudeResponseDTO readStream(
+            HttpResponse<Stream<String>> response,
+            String requestedModel,
+            Consumer<String> onText,
+            Timer.Sample sample) {
+        try (Stream<String> lines = response.body()) {
+            if (response.statusCode() != 200) {
+                String body = lines.collect(Collectors.joining("\n"));
+                throw new ClaudeAPIException(
+                        "API returned status: "
+                                + response.statusCode()
+                                + " "
+                                + errorMessage(body),
+                        response.statusCode());
+            }
 
-    private ClaudeResponseDTO sendMessageWithRetry(
-            String systemPrompt, String userMessage, int maxRetries) {
+            StringBuilder text = new StringBuilder();
+            String model = requestedModel;
+            int inputTokens = 0;
+            int outputTokens = 0;
+            int cacheWriteTokens = 0;
+            int cacheReadTokens = 0;
+            boolean firstToken = true;
 
-        int attempt = 0;
-        Exception lastException = null;
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
 
-        while (attempt < maxRetries) {
-            try {
-                return sendMessageInternal(systemPrompt, userMessage);
-            } catch (Exception e) {
-                lastException = e;
-                attempt++;
-                log.warn(" API attempt {} failed: {}", attempt, e.getMessage());
+                JsonNode event = objectMapper.readTree(line.substring(5).trim());
 
-                if (attempt < maxRetries) {
-                    try {
-                        Thread.sleep(1000 * attempt);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new ClaudeAPIException("Retry interrupted", ie);
+                switch (event.path("type").asText()) {
+                    case "message_start" -> {
+                        JsonNode message = event.path("message");
+                        model = message.path("model").asText(model);
+                        JsonNode usage = message.path("usage");
+                        inputTokens = usage.path("input_tokens").asInt();
+                        cacheWriteTokens = usage.path("cache_creation_input_tokens").asInt();
+                        cacheReadTokens = usage.path("cache_read_input_tokens").asInt();
+                    }
+                    case "content_block_delta" -> {
+                        JsonNode delta = event.path("delta");
+                        if ("text_delta".equals(delta.path("type").asText())) {
+                            if (firstToken) {
+                                firstToken = false;
+                                sample.stop(meterRegistry.timer("lockin.ai.streams.first_token"));
+                            }
+                            String fragment = delta.path("text").asText();
+                            text.append(fragment);
+                            onText.accept(fragment);
+                        }
+                    }
+                    case "message_delta" ->
+                            outputTokens =
+                                    event.path("usage").path("output_tokens").asInt(outputTokens);
+                    case "error" ->
+                            throw new ClaudeAPIException(
+                                    "Stream failed: "
+                                            + event.path("error").path("message").asText(""));
+                    default -> {
+                        // ping, content_block_start/stop and message_stop carry nothing we need
                     }
                 }
             }
+
+            log.info(
+                    "Claude API stream finished: {} chars, {} input tokens ({} cache write, {} cache read), {} output tokens",
+                    text.length(),
+                    inputTokens,
+                    cacheWriteTokens,
+                    cacheReadTokens,
+                    outputTokens);
+            recordPromptCache(cacheWriteTokens, cacheReadTokens);
+
+            return new ClaudeResponseDTO(
+                    text.toString(),
+                    inputTokens,
+                    outputTokens,
+                    model,
+                    cacheWriteTokens,
+                    cacheReadTokens);
+
+        } catch (JsonProcessingException e) {
+            throw new ClaudeAPIException("Failed to parse API stream", e);
+        } catch (UncheckedIOException e) {
+            throw new ClaudeAPIException("Claude API stream broke off", e.getCause());
         }
+    }
+
+    static boolean isRetryable(Throwable error) {
+        Throwable cause = unwrap(error);
+        return cause instanceof HttpTimeoutException || cause instanceof IOException;
+    }
+
+    static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+    }
 
-        throw new ClaudeAPIException(
-                "Claude API failed after " + maxRetries + " attempts", lastException);
+    /** Exponential backoff with equal jitter: half the step fixed, half random */
+    private Duration backoff(int attempt) {
+        long step =
+                Math.min(
+                        anthropicConfig.getMaxBackoffMs(),
+                        anthropicConfig.getInitialBackoffMs() << (attempt - 1));
+        long half = step / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
     }
-    private ClaudeResponseDTO sendMessageInternal(String systemPrompt, String userMessage) {
-        log.info("Calling Claude API");
 
+    private Duration withJitter(Duration retryAfter) {
+        return retryAfter.plusMillis(ThreadLocalRandom.current().nextLong(250));
+    }
+
+    private Optional<Duration> retryAfter(HttpResponse<String> response) {
+        return response.headers()
+                .firstValue("retry-after")
+                .flatMap(
+                        value -> {
+                            try {
+                                return Optional.of(
+                                        Duration.ofMillis(
+                                                (long) (Double.parseDouble(value.trim()) * 1000)));
+                            } catch (NumberFormatException e) {
+                                // HTTP dates are not used by the API, fall back to backoff
+                                return Optional.empty();
+                            }
+                        });
+    }
+
+    private String errorMessage(HttpResponse<String> response) {
+        return errorMessage(response.body());
+    }
+
+    private String errorMessage(String body) {
         try {
-            // request headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("x-api-key", anthropicConfig.getKey());
-            headers.set("anthropic-version", "2023-06-01");
-
-            // request body
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", anthropicConfig.getModel());
-            requestBody.put("max_tokens", anthropicConfig.getMaxTokens());
-            requestBody.put("temperature", anthropicConfig.getTemperature());
-            requestBody.put("system", systemPrompt); // System prompt as separate field!
-
-            //  user message
-            Map<String, String> userMsg = new HashMap<>();
-            userMsg.put("role", "user");
-            userMsg.put("content", userMessage);
-            requestBody.put("messages", List.of(userMsg));
-
-            // request
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-
-            ResponseEntity<String> response =
-                    restTemplate.exchange(
-                            anthropicConfig.getUrl(), HttpMethod.POST, request, String.class);
-
-            //response
-            if (response.getStatusCode() == HttpStatus.OK) {
-                return parseResponse(response.getBody());
-            } else {
-                throw new ClaudeAPIException("API returned status: " + response.getStatusCode());
-            }
+            JsonNode error = objectMapper.readTree(body).path("error");
+            return error.path("message").asText("");
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private HttpRequest buildRequest(
+            String model,
+            List<SystemBlockDTO> system,
+            String userMessage,
+            int maxTokens,
+            boolean stream,
+            Duration timeout) {
+        // request body
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        requestBody.put("max_tokens", Math.min(maxTokens, AIModelRoutingConfig.maxOutputTokens(model)));
+        requestBody.put("temperature", anthropicConfig.getTemperature());
+        requestBody.put("system", systemBlocks(system)); // System prompt as separate field!
+
+        //  user message
+        Map<String, String> userMsg = new HashMap<>();
+        userMsg.put("role", "user");
+        userMsg.put("content", userMessage);
+        requestBody.put("messages", List.of(userMsg));
 
-        } catch (RestClientException e) {
-            log.error("RestClient error ");
-            throw new ClaudeAPIException("Failed to call Claude API", e);
+        if (stream) {
+            requestBody.put("stream", true);
         }
+
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(requestBody);
+        } catch (JsonProcessingException e) {
+            throw new ClaudeAPIException("Failed to build API request", e);
+        }
+
+        return HttpRequest.newBuilder(URI.create(anthropicConfig.getUrl()))
+                .timeout(timeout)
+                .header("content-type", "application/json")
+                .header("x-api-key", anthropicConfig.getKey())
+                .header("anthropic-version", ANTHROPIC_VERSION)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
     }
 
+    private void recordPromptCache(int cacheWriteTokens, int cacheReadTokens) {
+        meterRegistry.counter("lockin.ai.prompt_cache.tokens", "type", "write").increment(cacheWriteTokens);
+        meterRegistry.counter("lockin.ai.prompt_cache.tokens", "type", "read").increment(cacheReadTokens);
+    }
+
+    private List<Map<String, Object>> systemBlocks(List<SystemBlockDTO> system) {
+        return system.stream()
+                .map(
+                        block -> {
+                            Map<String, Object> json = new HashMap<>();
+                            json.put("type", "text");
+                            json.put("text", block.getText());
+                            if (block.isCached()) {
+                                json.put("cache_control", Map.of("type", "ephemeral"));
+                            }
+                            return json;
+                        })
+                .toList();
+    }
 
     private ClaudeResponseDTO parseResponse(String responseBody) {
         try {
@@ -119,21 +686,28 @@ public class ClaudeAPIClientService {
                 }
             }
 
-            int inputTokens = 0;
-            int outputTokens = 0;
-            if (root.has("usage")) {
-                JsonNode usage = root.get("usage");
-                inputTokens = usage.get("input_tokens").asInt();
-                outputTokens = usage.get("output_tokens").asInt();
-            }
+            JsonNode usage = root.path("usage");
+            int inputTokens = usage.path("input_tokens").asInt();
+            int outputTokens = usage.path("output_tokens").asInt();
+            int cacheWriteTokens = usage.path("cache_creation_input_tokens").asInt();
+            int cacheReadTokens = usage.path("cache_read_input_tokens").asInt();
 
             log.info(
-                    "Claude API response: {} chars, {} input tokens, {} output tokens",
+                    "Claude API response: {} chars, {} input tokens ({} cache write, {} cache read), {} output tokens",
                     text.length(),
                     inputTokens,
+                    cacheWriteTokens,
+                    cacheReadTokens,
                     outputTokens);
+            recordPromptCache(cacheWriteTokens, cacheReadTokens);
 
-            return new ClaudeResponseDTO(text, inputTokens, outputTokens, root.get("model").asText());
+            return new ClaudeResponseDTO(
+                    text,
+                    inputTokens,
+                    outputTokens,
+                    root.get("model").asText(),
+                    cacheWriteTokens,
+                    cacheReadTokens);
 
         } catch (Exception e) {
             log.error("Failed to parse Claude API response", e);
@@ -1,75 +1,200 @@
 package com.lockin.lockin_app.features.ai.service;
 
+import com.lockin.lockin_app.config.AIPromptBudgetConfig;
 import com.lockin.lockin_app.features.ai.dto.BriefingResultDTO;
 import com.lockin.lockin_app.features.ai.dto.ClaudeResponseDTO;
-import com.lockin.lockin_app.features.ai.entity.AIUsage;
+import com.lockin.lockin_app.features.ai.dto.SystemBlockDTO;
 import com.lockin.lockin_app.features.tasks.entity.Task;
 import com.lockin.lockin_app.features.tasks.entity.TaskStatus;
 import com.lockin.lockin_app.features.users.entity.User;
-import com.lockin.lockin_app.features.ai.repository.AIUsageRepository;
 import com.lockin.lockin_app.features.notifications.service.NotificationService;
 import com.lockin.lockin_app.features.tasks.repository.TaskRepository;
 import com.lockin.lockin_app.features.users.repository.UserRepository;
+import com.lockin.lockin_app.exception.AIServiceUnavailableException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DailyBriefingService {
 
+    // part of the persistent cache key, bump when the prompts change
+    private static final String PROMPT_VERSION = "1";
+
+    // usage of briefings nobody asked for yet, kept apart from the user's own BRIEFING requests
+    static final String PRECOMPUTED_FEATURE = "BRIEFING_PRECOMPUTE";
+
+    private static final String SYSTEM_PROMPT = """
+        You are a warm, supportive productivity companion. Speak directly to the user in a personal, conversational tone.
+        Keep your briefing short and genuine - like a friend checking in.
+        Focus on what matters most TODAY.
+        """;
+
+    // fixed instructions, cacheable once the prompt is long enough for the API to cache it
+    private static final List<SystemBlockDTO> SYSTEM = List.of(SystemBlockDTO.cached(SYSTEM_PROMPT));
+
+    // within a quadrant: earliest due date first, then the most recently changed
+    private static final Comparator<Task> PRIORITY = Comparator
+            .comparing(Task::getDueDate, Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(Task::getUpdatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()));
+
     private final ClaudeAPIClientService claudeAPIClientService;
     private final TaskRepository taskRepository;
-    private final AIUsageRepository aiUsageRepository;
+    private final AIUsageWriter usageWriter;
     private final UserRepository userRepository;
     private final RateLimitService rateLimitService;
     private final NotificationService notificationService;
+    private final CacheManager cacheManager;
+    private final AIResponseCacheService responseCache;
+    private final AIPromptBudgetConfig promptBudgetConfig;
 
     @Cacheable(value = "dailyBriefings", key = "#userId + '_' + T(java.time.LocalDate).now()")
     public BriefingResultDTO generateDailyBriefing(Long userId) {
         log.info("Generating daily briefing for user: {}", userId);
 
-        rateLimitService.checkRateLimit(userId);
-
-        List<Task> q1UrgentImportant = taskRepository.findByQuadrantExcludingStatus(
-                userId, true, true, TaskStatus.COMPLETED);
-        List<Task> q2ImportantNotUrgent = taskRepository.findByQuadrantExcludingStatus(
-                userId, false, true, TaskStatus.COMPLETED);
-        List<Task> q3UrgentNotImportant = taskRepository.findByQuadrantExcludingStatus(
-                userId, true, false, TaskStatus.COMPLETED);
-        List<Task> q4NeitherUrgentNorImportant = taskRepository.findByQuadrantExcludingStatus(
-                userId, false, false, TaskStatus.COMPLETED);
-
-        int totalActiveTasks = q1UrgentImportant.size() + q2ImportantNotUrgent.size() +
-                q3UrgentNotImportant.size() + q4NeitherUrgentNorImportant.size();
-
-        if (totalActiveTasks == 0) {
-            return new BriefingResultDTO(
-                    "You have no active tasks. Great job staying on top of things!",
-                    0, 0, 0, 0,
-                    List.of(),
-                    0, 0.0
-            );
+        return generate(userId, true);
+    }
+
+    /**
+     * Generates today's briefing ahead of time
+     *
+     * <p>Fills the same caches as {@link #generateDailyBriefing(Long)}. The user didn't ask for
+     * it, so it doesn't count against their rate limit and they aren't notified. The cost is
+     * recorded under {@link #PRECOMPUTED_FEATURE}.
+     */
+    @CachePut(value = "dailyBriefings", key = "#userId + '_' + T(java.time.LocalDate).now()")
+    public BriefingResultDTO precomputeDailyBriefing(Long userId) {
+        log.info("Precomputing daily briefing for user: {}", userId);
+
+        return generate(userId, false);
+    }
+
+    private BriefingResultDTO generate(Long userId, boolean userRequest) {
+
+        String storedKey = responseCache.key("BRIEFING", PROMPT_VERSION, userId, LocalDate.now());
+        Optional<BriefingResultDTO> stored =
+                responseCache.get("BRIEFING", storedKey, BriefingResultDTO.class);
+        if (stored.isPresent()) {
+            return stored.get();
         }
 
-        String taskSummary = buildTaskSummary(
-                q1UrgentImportant,
-                q2ImportantNotUrgent,
-                q3UrgentNotImportant,
-                q4NeitherUrgentNorImportant
+        ActiveTasks tasks = loadActiveTasks(userId);
+
+        if (tasks.total() == 0) {
+            return noActiveTasksResult();
+        }
+
+        TaskSummary summary = buildTaskSummary(tasks);
+
+        RateLimitService.Reservation reservation = userRequest
+                ? rateLimitService.reserve(userId, "BRIEFING")
+                : RateLimitService.Reservation.NONE;
+
+        try {
+            ClaudeResponseDTO response = claudeAPIClientService.sendMessage(
+                    "BRIEFING", SYSTEM, buildUserPrompt(summary));
+
+            BriefingResultDTO result = completeBriefing(response, tasks, summary, userId, reservation, userRequest);
+            responseCache.put("BRIEFING", storedKey, result, response.getEstimatedCost(), response.getModel());
+
+            return result;
+
+        } catch (AIServiceUnavailableException e) {
+            reservation.release();
+            throw e;
+        } catch (Exception e) {
+            reservation.release();
+            log.error("Daily briefing generation failed: {}", e.getMessage());
+            throw new RuntimeException("AI daily briefing failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #generateDailyBriefing(Long)}
+     *
+     * <p>Briefing text is handed to {@code onText} as it is generated, the final result shares
+     * the cache entries of the blocking call.
+     */
+    public CompletableFuture<BriefingResultDTO> streamDailyBriefing(Long userId, Consumer<String> onText) {
+        Cache cache = cacheManager.getCache("dailyBriefings");
+        String cacheKey = userId + "_" + LocalDate.now();
+
+        BriefingResultDTO cached = cache.get(cacheKey, BriefingResultDTO.class);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        String storedKey = responseCache.key("BRIEFING", PROMPT_VERSION, userId, LocalDate.now());
+        Optional<BriefingResultDTO> stored =
+                responseCache.get("BRIEFING", storedKey, BriefingResultDTO.class);
+        if (stored.isPresent()) {
+            cache.put(cacheKey, stored.get());
+            return CompletableFuture.completedFuture(stored.get());
+        }
+
+        log.info("Streaming daily briefing for user: {}", userId);
+
+        ActiveTasks tasks = loadActiveTasks(userId);
+
+        if (tasks.total() == 0) {
+            BriefingResultDTO result = noActiveTasksResult();
+            cache.put(cacheKey, result);
+            return CompletableFuture.completedFuture(result);
+        }
+
+        TaskSummary summary = buildTaskSummary(tasks);
+
+        RateLimitService.Reservation reservation = rateLimitService.reserve(userId, "BRIEFING");
+
+        return reservation.releaseOnFailure(() -> claudeAPIClientService
+                .streamMessageAsync("BRIEFING", SYSTEM, buildUserPrompt(summary), onText)
+                .thenApply(response -> {
+                    BriefingResultDTO result =
+                            completeBriefing(response, tasks, summary, userId, reservation, true);
+                    cache.put(cacheKey, result);
+                    responseCache.put("BRIEFING", storedKey, result, response.getEstimatedCost(), response.getModel());
+                    return result;
+                }));
+    }
+
+    private ActiveTasks loadActiveTasks(Long userId) {
+        return new ActiveTasks(
+                taskRepository.findByQuadrantExcludingStatus(
+                        userId, true, true, TaskStatus.COMPLETED),
+                taskRepository.findByQuadrantExcludingStatus(
+                        userId, false, true, TaskStatus.COMPLETED),
+                taskRepository.findByQuadrantExcludingStatus(
+                        userId, true, false, TaskStatus.COMPLETED),
+                taskRepository.findByQuadrantExcludingStatus(
+                        userId, false, false, TaskStatus.COMPLETED)
         );
+    }
 
-        String systemPrompt = """
-            You are a warm, supportive productivity companion. Speak directly to the user in a personal, conversational tone.
-            Keep your briefing short and genuine - like a friend checking in.
-            Focus on what matters most TODAY.
-            """;
+    private BriefingResultDTO noActiveTasksResult() {
+        return new BriefingResultDTO(
+                "You have no active tasks. Great job staying on top of things!",
+                0, 0, 0, 0,
+                List.of(),
+                0, 0.0
+        );
+    }
 
-        String userPrompt = String.format(
+    private String buildUserPrompt(TaskSummary summary) {
+        return String.format(
                 """
                 Good morning! Here's what I have on my plate today:
 
@@ -82,104 +207,171 @@ public class DailyBriefingService {
 
                 Keep it casual and concise. Write like you're talking to me, not reading from a script.
                 """,
-                taskSummary
+                summary.text()
         );
+    }
 
-        try {
-            ClaudeResponseDTO response = claudeAPIClientService.sendMessage(systemPrompt, userPrompt);
-            String briefing = response.getText().trim();
-
-            List<String> topPriorities = q1UrgentImportant.stream()
-                                                          .limit(3)
-                                                          .map(Task::getTitle)
-                                                          .toList();
-
-            if (topPriorities.size() < 3) {
-                List<String> additional = q2ImportantNotUrgent.stream()
-                                                              .limit(3 - topPriorities.size())
-                                                              .map(Task::getTitle)
-                                                              .toList();
-
-                topPriorities = new java.util.ArrayList<>(topPriorities);
-                topPriorities.addAll(additional);
-            }
+    /** Builds the result, records usage and notifies the user if they asked for it */
+    private BriefingResultDTO completeBriefing(
+            ClaudeResponseDTO response,
+            ActiveTasks tasks,
+            TaskSummary summary,
+            Long userId,
+            RateLimitService.Reservation reservation,
+            boolean userRequest) {
+        String briefing = response.getText().trim();
+
+        List<String> topPriorities = tasks.urgentImportant().stream()
+                                          .limit(3)
+                                          .map(Task::getTitle)
+                                          .toList();
+
+        if (topPriorities.size() < 3) {
+            List<String> additional = tasks.importantNotUrgent().stream()
+                                           .limit(3 - topPriorities.size())
+                                           .map(Task::getTitle)
+                                           .toList();
+
+            topPriorities = new java.util.ArrayList<>(topPriorities);
+            topPriorities.addAll(additional);
+        }
 
-            BriefingResultDTO result = new BriefingResultDTO(
-                    briefing,
-                    q1UrgentImportant.size(),
-                    q2ImportantNotUrgent.size(),
-                    q3UrgentNotImportant.size(),
-                    q4NeitherUrgentNorImportant.size(),
-                    topPriorities,
-                    response.getTotalTokens(),
-                    response.getEstimatedCost()
-            );
+        BriefingResultDTO result = new BriefingResultDTO(
+                briefing,
+                tasks.urgentImportant().size(),
+                tasks.importantNotUrgent().size(),
+                tasks.urgentNotImportant().size(),
+                tasks.neither().size(),
+                topPriorities,
+                response.getTotalTokens(),
+                response.getEstimatedCost()
+        );
 
-            User user = userRepository.findById(userId)
-                                      .orElseThrow(() -> new RuntimeException("User not found"));
-
-            AIUsage usage = new AIUsage();
-            usage.setUser(user);
-            usage.setFeatureType("BRIEFING");
-            usage.setTokensUsed(response.getTotalTokens());
-            usage.setCostUSD(response.getEstimatedCost());
-            usage.setRequestDetails(String.format("{\"taskCount\":%d}", totalActiveTasks));
-
-            aiUsageRepository.save(usage);
-
-            log.info("Daily briefing generated and cached: {} tasks, {} tokens, ${} cost",
-                     totalActiveTasks,
-                     response.getTotalTokens(),
-                     String.format("%.4f", response.getEstimatedCost()));
-
-            try {
-                notificationService.createNotification(
-                        user,
-                        "DAILY_BRIEFING",
-                        "Your Daily Briefing is Ready",
-                        "Check out your personalized productivity advice for today!",
-                        "/tasks"
-                );
-            } catch (Exception e) {
-                log.warn("Failed to send briefing notification: {}", e.getMessage());
-            }
+        // nothing was billed for a coalesced response, it doesn't count against the limits either
+        if (response.isCoalesced()) {
+            reservation.release();
+        } else {
+            usageWriter.record(userId, userRequest ? "BRIEFING" : PRECOMPUTED_FEATURE, response, String.format(
+                    "{\"taskCount\":%d,\"tasksInPrompt\":%d,\"tokenBudget\":%d,\"promptTokens\":%d,\"tokensSaved\":%d}",
+                    tasks.total(),
+                    summary.includedTasks(),
+                    summary.budgetTokens(),
+                    summary.tokens(),
+                    summary.tokensSaved()));
+        }
 
-            return result;
+        log.info("Daily briefing generated and cached: {} tasks, {} tokens, ${} cost",
+                 tasks.total(),
+                 response.getTotalTokens(),
+                 String.format("%.4f", response.getEstimatedCost()));
+
+        if (userRequest) {
+            notifyReady(userId);
+        }
+
+        return result;
+    }
+
+    private void notifyReady(Long userId) {
+        User user = userRepository.findById(userId)
+                                  .orElseThrow(() -> new RuntimeException("User not found"));
 
+        try {
+            notificationService.createNotification(
+                    user,
+                    "DAILY_BRIEFING",
+                    "Your Daily Briefing is Ready",
+                    "Check out your personalized productivity advice for today!",
+                    "/tasks"
+            );
         } catch (Exception e) {
-            log.error("Daily briefing generation failed: {}", e.getMessage());
-            throw new RuntimeException("AI daily briefing failed: " + e.getMessage(), e);
+            log.warn("Failed to send briefing notification: {}", e.getMessage());
         }
     }
 
-    private String buildTaskSummary(
-            List<Task> q1, List<Task> q2, List<Task> q3, List<Task> q4) {
+    /**
+     * Lists the open tasks within the configured token budget
+     *
+     * <p>Tasks are ranked by quadrant, then by due date and then by how recently they changed.
+     * Titles are added in that order until the budget is used up, every quadrant still reports how
+     * many of its tasks were left out.
+     */
+    private TaskSummary buildTaskSummary(ActiveTasks tasks) {
+        int budget = promptBudgetConfig.getBriefingTaskTokens();
+
+        List<Section> sections = List.of(
+                new Section("URGENT & IMPORTANT (Do First)", tasks.urgentImportant()),
+                new Section("IMPORTANT (Schedule)", tasks.importantNotUrgent()),
+                new Section("URGENT (Delegate if possible)", tasks.urgentNotImportant()),
+                new Section("OTHER", tasks.neither())
+        );
 
         StringBuilder summary = new StringBuilder();
+        int usedTokens = 0;
+        int fullTokens = 0;
+        int included = 0;
+        boolean budgetSpent = false;
+
+        for (Section section : sections) {
+            if (section.tasks().isEmpty()) {
+                continue;
+            }
 
-        if (!q1.isEmpty()) {
-            summary.append("URGENT & IMPORTANT (Do First):\n");
-            q1.forEach(t -> summary.append("- ").append(t.getTitle()).append("\n"));
-            summary.append("\n");
-        }
+            String heading = section.heading() + ":\n";
+            summary.append(heading);
+            usedTokens += PromptBudget.estimateTokens(heading);
+            fullTokens += PromptBudget.estimateTokens(heading);
+
+            int left = 0;
+            for (Task task : section.tasks().stream().sorted(PRIORITY).toList()) {
+                String line = "- " + task.getTitle() + "\n";
+                int lineTokens = PromptBudget.estimateTokens(line);
+                fullTokens += lineTokens;
+
+                if (!budgetSpent && budget > 0 && usedTokens + lineTokens > budget) {
+                    budgetSpent = true;
+                }
+
+                if (budgetSpent) {
+                    left++;
+                } else {
+                    summary.append(line);
+                    usedTokens += lineTokens;
+                    included++;
+                }
+            }
 
-        if (!q2.isEmpty()) {
-            summary.append("IMPORTANT (Schedule):\n");
-            q2.forEach(t -> summary.append("- ").append(t.getTitle()).append("\n"));
+            if (left > 0) {
+                String more = "- ...and " + left + " more\n";
+                summary.append(more);
+                usedTokens += PromptBudget.estimateTokens(more);
+            }
             summary.append("\n");
         }
 
-        if (!q3.isEmpty()) {
-            summary.append("URGENT (Delegate if possible):\n");
-            q3.forEach(t -> summary.append("- ").append(t.getTitle()).append("\n"));
-            summary.append("\n");
-        }
+        int tokensSaved = Math.max(fullTokens - usedTokens, 0);
 
-        if (!q4.isEmpty()) {
-            summary.append("OTHER:\n");
-            q4.forEach(t -> summary.append("- ").append(t.getTitle()).append("\n"));
+        if (budgetSpent) {
+            log.debug("Briefing task list trimmed to {} of {} tasks, ~{} tokens saved",
+                      included, tasks.total(), tokensSaved);
         }
 
-        return summary.toString();
+        return new TaskSummary(summary.toString(), included, Math.max(budget, 0), usedTokens, tokensSaved);
+    }
+
+    private record Section(String heading, List<Task> tasks) {}
+
+    private record TaskSummary(String text, int includedTasks, int budgetTokens, int tokens, int tokensSaved) {}
+
+    private record ActiveTasks(
+            List<Task> urgentImportant,
+            List<Task> importantNotUrgent,
+            List<Task> urgentNotImportant,
+            List<Task> neither) {
+
+        int total() {
+            return urgentImportant.size() + importantNotUrgent.size()
+                    + urgentNotImportant.size() + neither.size();
+        }
     }
 }
\ No newline at end of file
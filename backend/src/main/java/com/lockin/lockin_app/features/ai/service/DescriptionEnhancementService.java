@@ -1,33 +1,121 @@
 package com.lockin.lockin_app.features.ai.service;
 
 import com.lockin.lockin_app.features.ai.dto.ClaudeResponseDTO;
+import com.lockin.lockin_app.features.ai.dto.SystemBlockDTO;
 import com.lockin.lockin_app.features.ai.dto.EnhancementResultDTO;
-import com.lockin.lockin_app.features.ai.entity.AIUsage;
-import com.lockin.lockin_app.features.users.entity.User;
-import com.lockin.lockin_app.features.ai.repository.AIUsageRepository;
-import com.lockin.lockin_app.features.users.repository.UserRepository;
+import com.lockin.lockin_app.exception.AIServiceUnavailableException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DescriptionEnhancementService {
 
+    // part of the persistent cache key, bump when the prompts change
+    private static final String PROMPT_VERSION = "1";
+
+    private static final String SYSTEM_PROMPT = """
+        You are a productivity assistant that improves task descriptions.
+        Given a task title and a vague or minimal description, expand it into
+        a clear, actionable description that helps the user understand what needs to be done.
+
+        Keep it concise (2-4 sentences) but specific.
+        Include relevant details about what, why, and how.
+        """;
+
+    // fixed instructions, cacheable once the prompt is long enough for the API to cache it
+    private static final List<SystemBlockDTO> SYSTEM = List.of(SystemBlockDTO.cached(SYSTEM_PROMPT));
+
     private final ClaudeAPIClientService claudeAPIClientService;
-    private final AIUsageRepository aiUsageRepository;
-    private final UserRepository userRepository;
+    private final AIUsageWriter usageWriter;
     private final RateLimitService rateLimitService;
+    private final CacheManager cacheManager;
+    private final AIResponseCacheService responseCache;
 
     @Cacheable(value = "enhancedDescriptions", key = "#title + '_' + (#description != null ? #description : '')")
     public EnhancementResultDTO enhanceDescription(String title, String description, Long userId) {
         log.info("Enhancing description for task: {} (user: {})", title, userId);
 
-        rateLimitService.checkRateLimit(userId);
+        String storedKey = responseCache.key("ENHANCE", PROMPT_VERSION, title, description);
+        Optional<EnhancementResultDTO> stored =
+                responseCache.get("ENHANCE", storedKey, EnhancementResultDTO.class);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+
+        validate(title, description);
+
+        RateLimitService.Reservation reservation = rateLimitService.reserve(userId, "ENHANCE");
+
+        try {
+            ClaudeResponseDTO response = claudeAPIClientService.sendMessage(
+                    "ENHANCE", SYSTEM, buildUserPrompt(title, description));
+
+            EnhancementResultDTO result = completeEnhancement(response, title, userId, reservation);
+            responseCache.put("ENHANCE", storedKey, result, response.getEstimatedCost(), response.getModel());
+
+            return result;
+
+        } catch (AIServiceUnavailableException e) {
+            reservation.release();
+            throw e;
+        } catch (Exception e) {
+            reservation.release();
+            log.error("Description enhancement failed: {}", e.getMessage());
+            throw new RuntimeException("AI description enhancement failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #enhanceDescription(String, String, Long)}, the final result
+     * shares the cache entries of the blocking call
+     */
+    public CompletableFuture<EnhancementResultDTO> streamEnhancement(
+            String title, String description, Long userId, Consumer<String> onText) {
+        Cache cache = cacheManager.getCache("enhancedDescriptions");
+        String cacheKey = title + "_" + (description != null ? description : "");
+
+        EnhancementResultDTO cached = cache.get(cacheKey, EnhancementResultDTO.class);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        String storedKey = responseCache.key("ENHANCE", PROMPT_VERSION, title, description);
+        Optional<EnhancementResultDTO> stored =
+                responseCache.get("ENHANCE", storedKey, EnhancementResultDTO.class);
+        if (stored.isPresent()) {
+            cache.put(cacheKey, stored.get());
+            return CompletableFuture.completedFuture(stored.get());
+        }
+
+        log.info("Streaming description enhancement for task: {} (user: {})", title, userId);
+
+        validate(title, description);
+
+        RateLimitService.Reservation reservation = rateLimitService.reserve(userId, "ENHANCE");
+
+        return reservation.releaseOnFailure(() -> claudeAPIClientService
+                .streamMessageAsync("ENHANCE", SYSTEM, buildUserPrompt(title, description), onText)
+                .thenApply(response -> {
+                    EnhancementResultDTO result = completeEnhancement(response, title, userId, reservation);
+                    cache.put(cacheKey, result);
+                    responseCache.put("ENHANCE", storedKey, result, response.getEstimatedCost(), response.getModel());
+                    return result;
+                }));
+    }
 
+    private void validate(String title, String description) {
         if (title == null || title.trim().isEmpty()) {
             throw new IllegalArgumentException("Task title cannot be empty");
         }
@@ -39,17 +127,10 @@ public class DescriptionEnhancementService {
         if (description.trim().length() < 3) {
             throw new IllegalArgumentException("Description is too short. Please provide at least 3 characters.");
         }
+    }
 
-        String systemPrompt = """
-            You are a productivity assistant that improves task descriptions.
-            Given a task title and a vague or minimal description, expand it into
-            a clear, actionable description that helps the user understand what needs to be done.
-
-            Keep it concise (2-4 sentences) but specific.
-            Include relevant details about what, why, and how.
-            """;
-
-        String userPrompt = String.format(
+    private String buildUserPrompt(String title, String description) {
+        return String.format(
                 """
                 Task Title: "%s"
                 Current Description: "%s"
@@ -63,36 +144,32 @@ public class DescriptionEnhancementService {
                 title,
                 description != null ? description : ""
         );
+    }
 
-        try {
-            ClaudeResponseDTO response = claudeAPIClientService.sendMessage(systemPrompt, userPrompt);
-            String enhancedDescription = response.getText().trim();
-
-            User user = userRepository.findById(userId)
-                                      .orElseThrow(() -> new RuntimeException("User not found"));
-
-            AIUsage usage = new AIUsage();
-            usage.setUser(user);
-            usage.setFeatureType("ENHANCE");
-            usage.setTokensUsed(response.getTotalTokens());
-            usage.setCostUSD(response.getEstimatedCost());
-            usage.setRequestDetails(String.format("{\"title\":\"%s\"}", title.replace("\"", "\\\"")));
-
-            aiUsageRepository.save(usage);
-
-            log.info("Description enhanced: {} tokens, ${} cost",
-                     response.getTotalTokens(),
-                     String.format("%.4f", response.getEstimatedCost()));
+    /** Records usage and builds the result */
+    private EnhancementResultDTO completeEnhancement(
+            ClaudeResponseDTO response, String title, Long userId, RateLimitService.Reservation reservation) {
+        String enhancedDescription = response.getText().trim();
+
+        // nothing was billed for a coalesced response, it doesn't count against the limits either
+        if (response.isCoalesced()) {
+            reservation.release();
+        } else {
+            usageWriter.record(
+                    userId,
+                    "ENHANCE",
+                    response,
+                    String.format("{\"title\":\"%s\"}", title.replace("\"", "\\\"")));
+        }
 
-            return new EnhancementResultDTO(
-                    enhancedDescription,
-                    response.getTotalTokens(),
-                    response.getEstimatedCost()
-            );
+        log.info("Description enhanced: {} tokens, ${} cost",
+                 response.getTotalTokens(),
+                 String.format("%.4f", response.getEstimatedCost()));
 
-        } catch (Exception e) {
-            log.error("Description enhancement failed: {}", e.getMessage());
-            throw new RuntimeException("AI description enhancement failed: " + e.getMessage(), e);
-        }
+        return new EnhancementResultDTO(
+                enhancedDescription,
+                response.getTotalTokens(),
+                response.getEstimatedCost()
+        );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import java.net.http.HttpRequest;
+import java.util.concurrent.CompletableFuture;
+
+/** One call to a model, shared by all of its attempts, a cancelled one stops between attempts */
+class Exchange {
+
+    private final String model;
+    private final HttpRequest request;
+    private final CircuitBreaker circuit;
+    private final int maxAttempts;
+
+    private volatile boolean cancelled;
+    private volatile CompletableFuture<?> pending;
+
+    Exchange(String model, HttpRequest request, CircuitBreaker circuit, int maxAttempts) {
+        this.model = model;
+        this.request = request;
+        this.circuit = circuit;
+        this.maxAttempts = maxAttempts;
+    }
+
+    String model() {
+        return model;
+    }
+
+    HttpRequest request() {
+        return request;
+    }
+
+    CircuitBreaker circuit() {
+        return circuit;
+    }
+
+    int maxAttempts() {
+        return maxAttempts;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void track(CompletableFuture<?> sent) {
+        pending = sent;
+        if (cancelled) {
+            sent.cancel(true);
+        }
+    }
+
+    /** Aborts the request on the wire, the HTTP client resets the stream */
+    void cancel() {
+        cancelled = true;
+        CompletableFuture<?> current = pending;
+        if (current != null) {
+            current.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.lockin.lockin_app.features.ai.service;
+
+/**
+ * Token bucket that caps hedged requests at a share of all requests
+ *
+ * <p>Every request adds {@code ratio} of a token up to {@code burst}, a hedge takes a whole one.
+ */
+class HedgeBudget {
+
+    private final double ratio;
+    private final double burst;
+    private double tokens;
+
+    HedgeBudget(double ratio, int burst) {
+        this.ratio = ratio;
+        this.burst = burst;
+    }
+
+    synchronized void onRequest() {
+        tokens = Math.min(burst, tokens + ratio);
+    }
+
+    synchronized boolean tryAcquire() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,167 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.lockin.lockin_app.config.AIHedgingConfig;
+import com.lockin.lockin_app.features.ai.dto.ClaudeResponseDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.OptionalLong;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Sends unary calls, hedging the slow ones
+ *
+ * <p>With hedging on, a call still running after the recent p90 latency of its model gets a
+ * second identical request, budgeted to a small share of all requests. The first success wins
+ * and the other request is cancelled. A hedge needs a bulkhead permit of its own.
+ */
+@Slf4j
+class Hedging {
+
+    private final AIHedgingConfig config;
+    private final HedgeBudget budget;
+    private final Semaphore bulkhead;
+    private final MeterRegistry meterRegistry;
+    private final Function<String, LatencyWindow> latencies;
+    private final Function<Exchange, CompletableFuture<ClaudeResponseDTO>> firstAttempt;
+
+    Hedging(
+            AIHedgingConfig config,
+            Semaphore bulkhead,
+            MeterRegistry meterRegistry,
+            Function<String, LatencyWindow> latencies,
+            Function<Exchange, CompletableFuture<ClaudeResponseDTO>> firstAttempt) {
+        this.config = config;
+        this.budget = new HedgeBudget(config.getBudgetRatio(), config.getBudgetBurst());
+        this.bulkhead = bulkhead;
+        this.meterRegistry = meterRegistry;
+        this.latencies = latencies;
+        this.firstAttempt = firstAttempt;
+    }
+
+    /** Sends the exchange, its hedge if one fires is cancelled along with it through {@code abort} */
+    CompletableFuture<ClaudeResponseDTO> send(Exchange primary, Abort abort) {
+        abort.register(primary);
+
+        if (!config.getEnabled()) {
+            return firstAttempt.apply(primary);
+        }
+
+        budget.onRequest();
+
+        OptionalLong threshold =
+                latencies.apply(primary.model()).percentile(config.getPercentile(), config.getMinSamples());
+        if (threshold.isEmpty()) {
+            return firstAttempt.apply(primary);
+        }
+
+        HedgedCall call = new HedgedCall(primary);
+        firstAttempt.apply(primary).whenComplete((response, error) -> call.settle(primary, response, error));
+
+        long delayMs = Math.max(config.getMinDelayMs(), threshold.getAsLong());
+        CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS)
+                .execute(() -> hedge(call, primary, abort));
+
+        return call.result;
+    }
+
+    /** Fires the second request of a hedged call unless it has finished or there is no room for it */
+    private void hedge(HedgedCall call, Exchange primary, Abort abort) {
+        if (call.result.isDone()) {
+            return;
+        }
+
+        if (!bulkhead.tryAcquire()) {
+            meterRegistry.counter("lockin.ai.hedge.skipped", "reason", "bulkhead").increment();
+            return;
+        }
+
+        if (!budget.tryAcquire()) {
+            bulkhead.release();
+            meterRegistry.counter("lockin.ai.hedge.skipped", "reason", "budget").increment();
+            return;
+        }
+
+        // a hedge is a single extra attempt, it doesn't retry on its own
+        Exchange hedge = new Exchange(primary.model(), primary.request(), primary.circuit(), 1);
+        if (!call.startHedge(hedge)) {
+            bulkhead.release();
+            return;
+        }
+        abort.register(hedge);
+
+        log.info("Hedging slow Claude API call to {}", primary.model());
+        meterRegistry.counter("lockin.ai.hedge.fired", "model", primary.model()).increment();
+
+        firstAttempt.apply(hedge)
+                .whenComplete(
+                        (response, error) -> {
+                            bulkhead.release();
+                            call.settle(hedge, response, error);
+                        });
+    }
+
+    /** The two requests of a hedged call, the first success wins and the other one is cancelled */
+    private final class HedgedCall {
+
+        private final CompletableFuture<ClaudeResponseDTO> result = new CompletableFuture<>();
+        private final Exchange primary;
+
+        private Exchange hedge;
+        private int running = 1;
+
+        HedgedCall(Exchange primary) {
+            this.primary = primary;
+            result.whenComplete(
+                    (response, error) -> {
+                        if (error instanceof CancellationException) {
+                            cancelAll();
+                        }
+                    });
+        }
+
+        synchronized boolean startHedge(Exchange exchange) {
+            if (result.isDone()) {
+                return false;
+            }
+            hedge = exchange;
+            running++;
+            return true;
+        }
+
+        synchronized void settle(Exchange leg, ClaudeResponseDTO response, Throwable error) {
+            running--;
+
+            if (result.isDone()) {
+                return;
+            }
+
+            if (error == null) {
+                // complete first, the loser's cancellation settles back into this call
+                result.complete(response);
+                Exchange loser = leg == primary ? hedge : primary;
+                if (loser != null) {
+                    loser.cancel();
+                }
+                if (leg == hedge) {
+                    meterRegistry.counter("lockin.ai.hedge.won", "model", leg.model()).increment();
+                }
+            } else if (running == 0) {
+                result.completeExceptionally(ClaudeAPIClientService.unwrap(error));
+            }
+        }
+
+        private synchronized void cancelAll() {
+            primary.cancel();
+            if (hedge != null) {
+                hedge.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+
+/** Latencies of the most recent calls, for percentiles taken on the request path */
+class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    /** Empty until at least {@code minSamples} calls were recorded */
+    OptionalLong percentile(double percentile, int minSamples) {
+        long[] sorted;
+        synchronized (this) {
+            if (count == 0 || count < minSamples) {
+                return OptionalLong.empty();
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return OptionalLong.of(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+    }
+}
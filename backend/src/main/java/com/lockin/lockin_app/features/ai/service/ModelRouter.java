@@ -0,0 +1,167 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.lockin.lockin_app.config.AIModelRoutingConfig;
+import com.lockin.lockin_app.config.AnthropicConfig;
+import com.lockin.lockin_app.exception.AIServiceUnavailableException;
+import com.lockin.lockin_app.exception.ClaudeAPIException;
+import com.lockin.lockin_app.features.ai.dto.ClaudeResponseDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Sends each feature's calls to its model and falls back to a faster one, see {@link
+ * AIModelRoutingConfig}
+ *
+ * <p>A feature with a fallback gives its model a single attempt bounded by the latency target, a
+ * timeout, a retryable failure or an open circuit sends the call to the fallback model, which gets
+ * the usual retries. A stream can only switch models until text has reached the caller.
+ */
+@Slf4j
+class ModelRouter {
+
+    /** One call to a model, {@code timeout} bounds each request and {@code maxAttempts} the retries */
+    @FunctionalInterface
+    interface ModelCall {
+        CompletableFuture<ClaudeResponseDTO> send(String model, Duration timeout, int maxAttempts);
+    }
+
+    /** One stream from a model, handing text fragments to {@code onText} */
+    @FunctionalInterface
+    interface ModelStream {
+        CompletableFuture<ClaudeResponseDTO> open(String model, Consumer<String> onText);
+    }
+
+    private final AnthropicConfig anthropicConfig;
+    private final AIModelRoutingConfig routingConfig;
+    private final Function<String, CircuitBreaker> circuits;
+    private final MeterRegistry meterRegistry;
+
+    ModelRouter(
+            AnthropicConfig anthropicConfig,
+            AIModelRoutingConfig routingConfig,
+            Function<String, CircuitBreaker> circuits,
+            MeterRegistry meterRegistry) {
+        this.anthropicConfig = anthropicConfig;
+        this.routingConfig = routingConfig;
+        this.circuits = circuits;
+        this.meterRegistry = meterRegistry;
+    }
+
+    AIModelRoutingConfig.Route routeFor(String featureType) {
+        return routingConfig.routeFor(featureType, anthropicConfig.getModel());
+    }
+
+    CompletableFuture<ClaudeResponseDTO> send(
+            String featureType, AIModelRoutingConfig.Route route, int maxTokens, ModelCall call) {
+        Duration requestTimeout = Duration.ofMillis(anthropicConfig.getRequestTimeoutMs());
+
+        if (!route.hasFallback()) {
+            return call.send(route.model(), requestTimeout, anthropicConfig.getMaxAttempts());
+        }
+
+        if (circuits.apply(route.model()).getState() == CircuitBreaker.State.OPEN) {
+            return fallback(featureType, route, "circuit", call);
+        }
+
+        // the target is for one result's worth of output, a batch prompt gets proportionally longer
+        Duration slo = Duration.ofMillis(
+                route.sloMs() * Math.max(1, maxTokens / anthropicConfig.getMaxTokens()));
+
+        return call.send(route.model(), slo.compareTo(requestTimeout) < 0 ? slo : requestTimeout, 1)
+                .exceptionallyCompose(
+                        error -> {
+                            Throwable cause = ClaudeAPIClientService.unwrap(error);
+                            Optional<String> reason = fallbackReason(route.model(), cause);
+                            if (reason.isEmpty()) {
+                                return CompletableFuture.failedFuture(cause);
+                            }
+                            return fallback(featureType, route, reason.get(), call);
+                        });
+    }
+
+    CompletableFuture<ClaudeResponseDTO> stream(
+            String featureType,
+            AIModelRoutingConfig.Route route,
+            Consumer<String> onText,
+            ModelStream stream) {
+        if (!route.hasFallback()) {
+            return stream.open(route.model(), onText);
+        }
+
+        if (circuits.apply(route.model()).getState() == CircuitBreaker.State.OPEN) {
+            countFallback(featureType, route, "circuit");
+            return stream.open(route.fallbackModel(), onText);
+        }
+
+        // once text reached the caller the stream can't switch models any more
+        AtomicBoolean textSent = new AtomicBoolean();
+        Consumer<String> tracking = fragment -> {
+            textSent.set(true);
+            onText.accept(fragment);
+        };
+
+        return stream.open(route.model(), tracking)
+                .exceptionallyCompose(
+                        error -> {
+                            Throwable cause = ClaudeAPIClientService.unwrap(error);
+                            Optional<String> reason = fallbackReason(route.model(), cause);
+                            if (textSent.get() || reason.isEmpty()) {
+                                return CompletableFuture.failedFuture(cause);
+                            }
+                            countFallback(featureType, route, reason.get());
+                            return stream.open(route.fallbackModel(), onText);
+                        });
+    }
+
+    private CompletableFuture<ClaudeResponseDTO> fallback(
+            String featureType, AIModelRoutingConfig.Route route, String reason, ModelCall call) {
+        countFallback(featureType, route, reason);
+
+        return call.send(
+                route.fallbackModel(),
+                Duration.ofMillis(anthropicConfig.getRequestTimeoutMs()),
+                anthropicConfig.getMaxAttempts());
+    }
+
+    private void countFallback(String featureType, AIModelRoutingConfig.Route route, String reason) {
+        log.warn("Falling back from {} to {} for {} ({})",
+                 route.model(), route.fallbackModel(), featureType, reason);
+        meterRegistry.counter(
+                        "lockin.ai.model.fallback",
+                        "feature", featureType,
+                        "model", route.model(),
+                        "reason", reason)
+                .increment();
+    }
+
+    /** Why a failed call of the primary model should go to the fallback, empty if it shouldn't */
+    private Optional<String> fallbackReason(String model, Throwable error) {
+        if (error instanceof ClaudeAPIException apiError) {
+            if (apiError.getCause() instanceof HttpTimeoutException) {
+                return Optional.of("timeout");
+            }
+            boolean retryable = apiError.getStatusCode() == 0
+                    ? apiError.getCause() != null && ClaudeAPIClientService.isRetryable(apiError.getCause())
+                    : ClaudeAPIClientService.RETRYABLE_STATUSES.contains(apiError.getStatusCode());
+            return retryable ? Optional.of("error") : Optional.empty();
+        }
+
+        // a full bulkhead is shared by all models, only a rejection by the circuit is worth a fallback
+        if (error instanceof AIServiceUnavailableException
+                && circuits.apply(model).getState() != CircuitBreaker.State.CLOSED) {
+            return Optional.of("circuit");
+        }
+
+        return Optional.empty();
+    }
+}
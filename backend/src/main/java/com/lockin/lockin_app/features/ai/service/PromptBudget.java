@@ -0,0 +1,55 @@
+package com.lockin.lockin_app.features.ai.service;
+
+/**
+ * Local token estimates for keeping prompt input within a budget
+ *
+ * <p>Counts roughly four characters per token, the usual ratio for English text. That is only
+ * an estimate but it needs no call to the API and errs on the high side for short words.
+ */
+final class PromptBudget {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private static final String TRUNCATION_MARKER = " [...]";
+
+    private PromptBudget() {}
+
+    static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /** Shortens text to about {@code budgetTokens}, cutting at a word boundary where possible */
+    static Fitted fit(String text, int budgetTokens) {
+        int tokens = estimateTokens(text);
+        if (budgetTokens <= 0 || tokens <= budgetTokens) {
+            return new Fitted(text, tokens, tokens);
+        }
+
+        // a budget too small for the marker gets a hard cut without one
+        if (budgetTokens * CHARS_PER_TOKEN <= TRUNCATION_MARKER.length()) {
+            String fitted = text.substring(0, budgetTokens * CHARS_PER_TOKEN);
+            return new Fitted(fitted, tokens, estimateTokens(fitted));
+        }
+
+        int limit = budgetTokens * CHARS_PER_TOKEN - TRUNCATION_MARKER.length();
+        int cut = limit;
+        int space = text.lastIndexOf(' ', limit);
+        // don't give up more than a fifth of the budget to find a word boundary
+        if (space > limit * 4 / 5) {
+            cut = space;
+        }
+
+        String fitted = text.substring(0, cut).stripTrailing() + TRUNCATION_MARKER;
+        return new Fitted(fitted, tokens, estimateTokens(fitted));
+    }
+
+    record Fitted(String text, int originalTokens, int tokens) {
+
+        int saved() {
+            return originalTokens - tokens;
+        }
+    }
+}
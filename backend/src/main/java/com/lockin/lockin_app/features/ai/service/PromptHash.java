@@ -0,0 +1,36 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * SHA-256 over normalised prompt parts
+ *
+ * <p>Runs of whitespace collapse to a single space and the ends are trimmed, so prompts that only
+ * differ in indentation or line breaks hash the same.
+ */
+final class PromptHash {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private PromptHash() {}
+
+    static String of(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            for (String part : parts) {
+                String normalised = part == null ? "" : WHITESPACE.matcher(part.strip()).replaceAll(" ");
+                digest.update(normalised.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
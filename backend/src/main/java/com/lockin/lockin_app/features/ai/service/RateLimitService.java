@@ -1,64 +1,180 @@
 package com.lockin.lockin_app.features.ai.service;
 
-import com.lockin.lockin_app.features.users.entity.User;
+import com.lockin.lockin_app.config.AIRateLimitConfig;
 import com.lockin.lockin_app.exception.RateLimitExceededException;
+import com.lockin.lockin_app.features.ai.dto.RateLimitStatusDTO;
 import com.lockin.lockin_app.features.ai.repository.AIUsageRepository;
-import com.lockin.lockin_app.features.users.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Per-user AI request limits over a sliding 24 hour window
+ *
+ * <p>Counters live in memory and are built from the user's recent ai_usage rows the first time
+ * the user is seen, after that checks make no database queries. A request reserves its slot
+ * before calling the model, checking and counting in one step, so concurrent requests of one user
+ * can't all pass the last free slot. The slot is released again when the request fails or turns
+ * out to cost nothing, a failed request isn't held against the user.
+ *
+ * <p>Each node keeps its own counters. With several nodes a user can go over the limit by what
+ * the other nodes counted since this node last built its counters.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class RateLimitService {
 
+    private static final Duration WINDOW = Duration.ofHours(24);
+
     private final AIUsageRepository aiUsageRepository;
-    private final UserRepository userRepository;
+    private final AIRateLimitConfig config;
+    private final Cache counters;
+
+    public RateLimitService(
+            AIUsageRepository aiUsageRepository,
+            AIRateLimitConfig config,
+            CacheManager cacheManager) {
+        this.aiUsageRepository = aiUsageRepository;
+        this.config = config;
+        this.counters = cacheManager.getCache("rateLimitCounters");
+    }
 
-    private static final int MAX_REQUESTS_PER_DAY = 10;
+    /** Takes one request off the user's limits, throws if they are used up */
+    public Reservation reserve(Long userId, String featureType) {
+        UserCounters userCounters = countersFor(userId);
+        int featureLimit = config.perDayFor(featureType);
+
+        // check and count under the user's lock, no other request can take the same slot
+        synchronized (userCounters) {
+            long now = System.currentTimeMillis();
+            int used = userCounters.total.count(now);
+
+            log.debug("User {} has made {} AI requests in the last 24 hours", userId, used);
+
+            if (used >= config.getPerUserPerDay()) {
+                log.warn("Rate limit exceeded for user {}: {} requests in 24 hours", userId, used);
+                throw new RateLimitExceededException(
+                        String.format("Rate limit exceeded. You can make %d AI requests per day. Please try again tomorrow.",
+                                      config.getPerUserPerDay())
+                );
+            }
+
+            if (featureLimit > 0 && userCounters.feature(featureType).count(now) >= featureLimit) {
+                log.warn("Rate limit exceeded for user {} on {}", userId, featureType);
+                throw new RateLimitExceededException(
+                        String.format("Rate limit exceeded. You can make %d %s requests per day. Please try again tomorrow.",
+                                      featureLimit, featureType.toLowerCase())
+                );
+            }
+
+            userCounters.total.add(now);
+            userCounters.feature(featureType).add(now);
+
+            return new Reservation(userCounters, featureType, now);
+        }
+    }
 
-    public void checkRateLimit(Long userId) {
-        User user = userRepository.findById(userId)
-                                  .orElseThrow(() -> new RuntimeException("User not found"));
+    public RateLimitStatusDTO getStatus(Long userId) {
+        int limit = config.getPerUserPerDay();
+        int used = countersFor(userId).total.count(System.currentTimeMillis());
 
-        LocalDateTime since = LocalDateTime.now().minusHours(24);
-        long requestCount = aiUsageRepository.countRecentRequests(user, since);
+        return new RateLimitStatusDTO(limit, Math.max(0, limit - used), used);
+    }
 
-        log.debug("User {} has made {} AI requests in the last 24 hours", userId, requestCount);
+    private UserCounters countersFor(Long userId) {
+        return counters.get(userId, () -> load(userId));
+    }
 
-        if (requestCount >= MAX_REQUESTS_PER_DAY) {
-            log.warn("Rate limit exceeded for user {}: {} requests in 24 hours", userId, requestCount);
-            throw new RateLimitExceededException(
-                    String.format("Rate limit exceeded. You can make %d AI requests per day. Please try again tomorrow.",
-                                  MAX_REQUESTS_PER_DAY)
-            );
+    private UserCounters load(Long userId) {
+        UserCounters userCounters = new UserCounters(config.getWindowBuckets());
+        ZoneId zone = ZoneId.systemDefault();
+
+        for (AIUsageRepository.UsageTime usage :
+                aiUsageRepository.findUsageTimesSince(userId, LocalDateTime.now().minus(WINDOW))) {
+            // the user didn't ask for a precomputed briefing, it isn't held against them
+            if (DailyBriefingService.PRECOMPUTED_FEATURE.equals(usage.getFeatureType())) {
+                continue;
+            }
+            long timestamp = usage.getCreatedAt().atZone(zone).toInstant().toEpochMilli();
+            userCounters.total.add(timestamp);
+            userCounters.feature(usage.getFeatureType()).add(timestamp);
         }
+
+        return userCounters;
     }
 
-    public int getRemainingRequests(Long userId) {
-        User user = userRepository.findById(userId)
-                                  .orElseThrow(() -> new RuntimeException("User not found"));
+    /** A request counted against the user's limits, {@link #release()} takes it back */
+    public static final class Reservation {
 
-        LocalDateTime since = LocalDateTime.now().minusHours(24);
-        long requestCount = aiUsageRepository.countRecentRequests(user, since);
+        // for requests that don't count against any limit
+        public static final Reservation NONE = new Reservation(null, null, 0);
 
-        return Math.max(0, MAX_REQUESTS_PER_DAY - (int) requestCount);
-    }
+        private final UserCounters userCounters;
+        private final String featureType;
+        private final long timestamp;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(UserCounters userCounters, String featureType, long timestamp) {
+            this.userCounters = userCounters;
+            this.featureType = featureType;
+            this.timestamp = timestamp;
+        }
 
-    public int getUsedRequests(Long userId) {
-        User user = userRepository.findById(userId)
-                                  .orElseThrow(() -> new RuntimeException("User not found"));
+        /** Hands on the future of {@code call}, giving the slot back if the call fails */
+        public <T> CompletableFuture<T> releaseOnFailure(Supplier<CompletableFuture<T>> call) {
+            CompletableFuture<T> future;
+            try {
+                future = call.get();
+            } catch (RuntimeException e) {
+                release();
+                throw e;
+            }
+
+            return future.whenComplete(
+                    (result, error) -> {
+                        if (error != null) {
+                            release();
+                        }
+                    });
+        }
 
-        LocalDateTime since = LocalDateTime.now().minusHours(24);
-        return (int) aiUsageRepository.countRecentRequests(user, since);
-    }
+        /** Gives the slot back, for a request that failed or cost nothing, only the first call counts */
+        public void release() {
+            if (userCounters == null || !released.compareAndSet(false, true)) {
+                return;
+            }
 
-    public int getMaxRequests() {
-        return MAX_REQUESTS_PER_DAY;
+            synchronized (userCounters) {
+                userCounters.total.remove(timestamp);
+                userCounters.feature(featureType).remove(timestamp);
+            }
+        }
     }
 
-}
\ No newline at end of file
+    private static class UserCounters {
+
+        private final int buckets;
+        private final SlidingWindowCounter total;
+        private final Map<String, SlidingWindowCounter> byFeature = new ConcurrentHashMap<>();
+
+        UserCounters(int buckets) {
+            this.buckets = buckets;
+            this.total = new SlidingWindowCounter(WINDOW.toMillis(), buckets);
+        }
+
+        SlidingWindowCounter feature(String featureType) {
+            return byFeature.computeIfAbsent(
+                    featureType, ignored -> new SlidingWindowCounter(WINDOW.toMillis(), buckets));
+        }
+    }
+}
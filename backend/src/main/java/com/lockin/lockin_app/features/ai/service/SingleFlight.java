@@ -0,0 +1,109 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.lockin.lockin_app.features.ai.dto.ClaudeResponseDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Shares one call between identical requests that are in flight at the same time
+ *
+ * <p>Joiners get the leader's response marked as coalesced. Every caller holds its own dependent
+ * future, cancelling it detaches that caller only and the shared call carries on for the others.
+ * Once the last caller has cancelled, the shared call is aborted too.
+ */
+@Slf4j
+class SingleFlight {
+
+    private final Map<String, SharedCall> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gauge("lockin.ai.singleflight.in_flight", inFlight, Map::size);
+    }
+
+    /** Joins the call running under {@code key}, or starts it with {@code call} */
+    CompletableFuture<ClaudeResponseDTO> execute(
+            String key, Function<Abort, CompletableFuture<ClaudeResponseDTO>> call) {
+        while (true) {
+            SharedCall created = new SharedCall();
+            SharedCall existing = inFlight.putIfAbsent(key, created);
+
+            if (existing == null) {
+                created.result.whenComplete((response, error) -> inFlight.remove(key, created));
+                CompletableFuture<ClaudeResponseDTO> caller = created.join(response -> response);
+
+                call.apply(created.abort)
+                        .whenComplete(
+                                (response, error) -> {
+                                    if (error != null) {
+                                        created.result.completeExceptionally(
+                                                ClaudeAPIClientService.unwrap(error));
+                                    } else {
+                                        created.result.complete(response);
+                                    }
+                                });
+
+                return caller;
+            }
+
+            CompletableFuture<ClaudeResponseDTO> joined = existing.join(ClaudeResponseDTO::asCoalesced);
+            if (joined != null) {
+                meterRegistry.counter("lockin.ai.singleflight.saved").increment();
+                log.info("Joining identical Claude API request already in flight");
+                return joined;
+            }
+
+            // every caller of that call gave up just now, it is being cancelled, start a new one
+            inFlight.remove(key, existing);
+        }
+    }
+
+    /** A call shared by identical requests, cancelled once every caller has given up on it */
+    private final class SharedCall {
+
+        private final CompletableFuture<ClaudeResponseDTO> result = new CompletableFuture<>();
+        private final Abort abort = new Abort();
+
+        private int callers;
+        private boolean abandoned;
+
+        /** Returns the new caller's own future, null if the call was already abandoned */
+        synchronized CompletableFuture<ClaudeResponseDTO> join(
+                Function<ClaudeResponseDTO, ClaudeResponseDTO> view) {
+            if (abandoned) {
+                return null;
+            }
+            callers++;
+
+            CompletableFuture<ClaudeResponseDTO> caller = result.thenApply(view);
+            caller.whenComplete(
+                    (response, error) -> {
+                        if (error instanceof CancellationException) {
+                            leave();
+                        }
+                    });
+            return caller;
+        }
+
+        private synchronized void leave() {
+            if (--callers > 0 || result.isDone()) {
+                return;
+            }
+
+            abandoned = true;
+            meterRegistry.counter("lockin.ai.singleflight.cancelled").increment();
+            abort.abort();
+            result.cancel(false);
+        }
+    }
+}
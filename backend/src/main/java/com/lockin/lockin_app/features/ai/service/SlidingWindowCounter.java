@@ -0,0 +1,82 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free event counter over a sliding window split into fixed buckets
+ *
+ * <p>Each slot packs the bucket's epoch into its upper bits and the count into the lower 20, so a
+ * slot is moved to a new bucket and incremented in one compare-and-set. Slots holding a bucket
+ * older than the window are ignored when counting and reused on the next write.
+ */
+class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final AtomicLongArray slots;
+
+    SlidingWindowCounter(long windowMillis, int buckets) {
+        this.bucketMillis = Math.max(1, windowMillis / buckets);
+        this.buckets = buckets;
+        this.slots = new AtomicLongArray(buckets);
+    }
+
+    void add(long timestampMillis) {
+        long epoch = timestampMillis / bucketMillis;
+        int index = (int) (epoch % buckets);
+
+        while (true) {
+            long current = slots.get(index);
+            long currentEpoch = current >>> COUNT_BITS;
+
+            if (currentEpoch > epoch) {
+                // the event is older than anything this slot still holds, it fell out of the window
+                return;
+            }
+
+            long next =
+                    currentEpoch == epoch
+                            ? current + 1
+                            : (epoch << COUNT_BITS) | 1;
+
+            if (slots.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /** Takes back an event added at {@code timestampMillis}, nothing to do once its bucket is gone */
+    void remove(long timestampMillis) {
+        long epoch = timestampMillis / bucketMillis;
+        int index = (int) (epoch % buckets);
+
+        while (true) {
+            long current = slots.get(index);
+
+            if ((current >>> COUNT_BITS) != epoch || (current & COUNT_MASK) == 0) {
+                return;
+            }
+
+            if (slots.compareAndSet(index, current, current - 1)) {
+                return;
+            }
+        }
+    }
+
+    int count(long nowMillis) {
+        long oldestEpoch = nowMillis / bucketMillis - buckets + 1;
+        int total = 0;
+
+        for (int i = 0; i < buckets; i++) {
+            long slot = slots.get(i);
+            if ((slot >>> COUNT_BITS) >= oldestEpoch) {
+                total += (int) (slot & COUNT_MASK);
+            }
+        }
+
+        return total;
+    }
+}
@@ -0,0 +1,146 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockin.lockin_app.features.ai.dto.SubtaskSuggestionDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.Consumer;
+
+/**
+ * Picks complete subtask objects out of a breakdown response while it is still streaming
+ *
+ * <p>Text is buffered until the array under the top level "subtasks" key opens, a mention of the
+ * word in another field's value doesn't count. After that every object in the array is handed on
+ * as soon as its closing brace arrives. Braces inside strings are skipped. An object that doesn't
+ * parse is dropped here, the full response is parsed again at the end.
+ */
+@Slf4j
+class SubtaskStreamParser {
+
+    private static final String SUBTASKS_KEY = "\"subtasks\"";
+
+    private final ObjectMapper objectMapper;
+    private final Consumer<SubtaskSuggestionDTO> onSubtask;
+    private final StringBuilder buffer = new StringBuilder();
+
+    private boolean inArray;
+    private boolean finished;
+    private int position;
+    private int depth;
+    private int objectStart;
+    private boolean inString;
+    private boolean escaped;
+
+    // the string that closed last at the top level of the response object, a key if ':' follows
+    private int stringStart;
+    private String lastString;
+    private boolean afterSubtasksKey;
+
+    SubtaskStreamParser(ObjectMapper objectMapper, Consumer<SubtaskSuggestionDTO> onSubtask) {
+        this.objectMapper = objectMapper;
+        this.onSubtask = onSubtask;
+    }
+
+    void feed(String fragment) {
+        if (finished) {
+            return;
+        }
+
+        buffer.append(fragment);
+
+        if (!inArray && !findArrayStart()) {
+            return;
+        }
+
+        for (; position < buffer.length(); position++) {
+            char c = buffer.charAt(position);
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> inString = true;
+                case '{' -> {
+                    if (depth++ == 0) {
+                        objectStart = position;
+                    }
+                }
+                case '}' -> {
+                    if (--depth == 0) {
+                        emit(buffer.substring(objectStart, position + 1));
+                    }
+                }
+                case ']' -> {
+                    if (depth == 0) {
+                        finished = true;
+                        return;
+                    }
+                }
+                default -> {}
+            }
+        }
+    }
+
+    /** Scans up to the array of the top level "subtasks" key, true once it has opened */
+    private boolean findArrayStart() {
+        for (; position < buffer.length(); position++) {
+            char c = buffer.charAt(position);
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                    lastString = depth == 1 ? buffer.substring(stringStart, position + 1) : null;
+                }
+                continue;
+            }
+
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+
+            if (afterSubtasksKey && c == '[') {
+                inArray = true;
+                position++;
+                depth = 0;
+                return true;
+            }
+            afterSubtasksKey = false;
+
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    stringStart = position;
+                }
+                case ':' -> afterSubtasksKey = SUBTASKS_KEY.equals(lastString);
+                case '{', '[' -> depth++;
+                case '}', ']' -> depth--;
+                default -> {}
+            }
+            if (c != '"') {
+                lastString = null;
+            }
+        }
+        return false;
+    }
+
+    private void emit(String json) {
+        try {
+            onSubtask.accept(objectMapper.readValue(json, SubtaskSuggestionDTO.class));
+        } catch (Exception e) {
+            log.debug("Skipping streamed subtask that didn't parse: {}", e.getMessage());
+        }
+    }
+}
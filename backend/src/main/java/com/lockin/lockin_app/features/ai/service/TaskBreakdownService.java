@@ -1,36 +1,126 @@
 package com.lockin.lockin_app.features.ai.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockin.lockin_app.config.AIModelRoutingConfig;
+import com.lockin.lockin_app.config.AIPromptBudgetConfig;
+import com.lockin.lockin_app.config.AnthropicConfig;
+import com.lockin.lockin_app.features.ai.dto.BatchBreakdownResultDTO;
 import com.lockin.lockin_app.features.ai.dto.ClaudeResponseDTO;
 import com.lockin.lockin_app.features.ai.dto.SubtaskSuggestionDTO;
+import com.lockin.lockin_app.features.ai.dto.SystemBlockDTO;
 import com.lockin.lockin_app.features.ai.dto.TaskBreakdownResultDTO;
-import com.lockin.lockin_app.features.ai.entity.AIUsage;
 import com.lockin.lockin_app.features.tasks.entity.Task;
 import com.lockin.lockin_app.features.users.entity.User;
-import com.lockin.lockin_app.features.ai.repository.AIUsageRepository;
 import com.lockin.lockin_app.features.notifications.service.NotificationService;
 import com.lockin.lockin_app.features.users.repository.UserRepository;
+import com.lockin.lockin_app.exception.AIServiceUnavailableException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TaskBreakdownService {
 
+    // part of the persistent cache key, bump when the prompts change
+    private static final String PROMPT_VERSION = "2";
+
+    private static final String SYSTEM_PROMPT = """
+        You are a productivity assistant that breaks down tasks into actionable subtasks.
+        You MUST always respond with valid JSON object, even for vague tasks.
+        If the task is vague, make reasonable assumptions and create general subtasks.
+
+        Your response must include:
+        1. A brief reasoning explaining your breakdown approach
+        2. An array of 3-7 actionable subtasks classified using the Eisenhower Matrix
+
+        RULES:
+        1. ALWAYS return valid JSON object (no other text)
+        2. If task is vague, make reasonable assumptions
+        3. Each subtask must start with action verb
+        4. Estimate realistic time (15-90 minutes per subtask)
+        5. Classify using Eisenhower Matrix - consider BOTH deadline AND task nature:
+
+           isUrgent: true if ANY of these apply:
+           • Time-sensitive by nature (bug fixes, critical issues, blocking others)
+           • Deadline approaching (due within 1-2 days)
+           • Has consequences if delayed (production issues, dependencies)
+
+           isImportant: true if ANY of these apply:
+           • Contributes to goals/objectives (strategic, high-value)
+           • Core work vs busywork (meaningful impact)
+           • Aligns with project priorities
+
+        6. URGENCY EXAMPLES by task type (deadline is just ONE factor):
+
+           CONTENT-DRIVEN urgency (urgent regardless of deadline):
+           • "Fix production bug" → URGENT (blocks users)
+           • "Review PR blocking deployment" → URGENT (blocks others)
+           • "Respond to client emergency" → URGENT (external dependency)
+
+           DEADLINE-DRIVEN urgency (depends on timeline):
+           • "Organize photos" due tomorrow → NOT urgent (can reschedule)
+           • "Submit tax return" due tomorrow → URGENT (penalty if late)
+           • "Prepare presentation" due in 2 hours → URGENT (imminent)
+
+           NEITHER urgent (even with deadline):
+           • "Clean downloads folder" → Never urgent
+           • "Read optional article" → Never urgent
+
+           Eisenhower Quadrants:
+           • Urgent + Important (Do First): Critical deadlines, crises, blocking work
+           • Important only (Schedule): Planning, learning, strategic work
+           • Urgent only (Delegate): Interruptions, some emails
+           • Neither (Eliminate): Busywork, time-wasters
+
+        JSON Format (respond with ONLY this, no other text):
+        {
+          "reasoning": "Brief explanation of your breakdown approach",
+          "subtasks": [
+            {
+              "title": "Action verb + specific task",
+              "description": "What and how to do it",
+              "estimatedMinutes": 30,
+              "isUrgent": false,
+              "isImportant": true
+            }
+          ]
+        }
+
+        CRITICAL: Return ONLY the JSON object, absolutely no other text.
+        """;
+
+    // the same on every call, cacheable once it grows past the API's minimum prefix length
+    private static final List<SystemBlockDTO> SYSTEM = List.of(SystemBlockDTO.cached(SYSTEM_PROMPT));
+
     private final ClaudeAPIClientService claudeAPIClientService;
-    private final AIUsageRepository aiUsageRepository;
+    private final AnthropicConfig anthropicConfig;
+    private final AIModelRoutingConfig routingConfig;
+    private final AIUsageWriter usageWriter;
     private final UserRepository userRepository;
     private final RateLimitService rateLimitService;
     private final NotificationService notificationService;
+    private final CacheManager cacheManager;
+    private final AIResponseCacheService responseCache;
+    private final AIPromptBudgetConfig promptBudgetConfig;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     public TaskBreakdownResultDTO breakdownTask(Task task) {
@@ -55,152 +145,429 @@ public class TaskBreakdownService {
     public TaskBreakdownResultDTO breakdownTask(String title, String description, LocalDateTime dueDate, Long userId) {
         log.info("Breaking down task: {} (due: {}) for user: {}", title, dueDate, userId);
 
-        rateLimitService.checkRateLimit(userId);
+        String storedKey = responseCache.key("BREAKDOWN", PROMPT_VERSION, title, description);
+        Optional<TaskBreakdownResultDTO> stored =
+                responseCache.get("BREAKDOWN", storedKey, TaskBreakdownResultDTO.class);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
 
         if (title == null || title.trim().isEmpty()) {
             throw new IllegalArgumentException("Task title cannot be empty");
         }
 
-        String deadlineContext = formatDeadlineContext(dueDate);
+        PromptBudget.Fitted fittedDescription = fitDescription(description);
 
-        String systemPrompt = """
-            You are a productivity assistant that breaks down tasks into actionable subtasks.
-            You MUST always respond with valid JSON object, even for vague tasks.
-            If the task is vague, make reasonable assumptions and create general subtasks.
+        RateLimitService.Reservation reservation = rateLimitService.reserve(userId, "BREAKDOWN");
 
-            Your response must include:
-            1. A brief reasoning explaining your breakdown approach
-            2. An array of 3-7 actionable subtasks classified using the Eisenhower Matrix
-            """;
+        try {
+            ClaudeResponseDTO response = claudeAPIClientService.sendMessage(
+                    "BREAKDOWN", SYSTEM, buildUserPrompt(title, fittedDescription, dueDate));
 
-        String userPrompt = String.format(
-                """
-                Break down this task into 3-7 actionable subtasks using the Eisenhower Matrix.
+            TaskBreakdownResultDTO result =
+                    completeBreakdown(response, title, fittedDescription, userId, reservation);
+            responseCache.put("BREAKDOWN", storedKey, result, response.getEstimatedCost(), response.getModel());
 
-                Task Title: "%s"
-                Description: "%s"
-                Deadline: %s
+            return result;
 
-                RULES:
-                1. ALWAYS return valid JSON object (no other text)
-                2. If task is vague, make reasonable assumptions
-                3. Each subtask must start with action verb
-                4. Estimate realistic time (15-90 minutes per subtask)
-                5. Classify using Eisenhower Matrix - consider BOTH deadline AND task nature:
-
-                   isUrgent: true if ANY of these apply:
-                   • Time-sensitive by nature (bug fixes, critical issues, blocking others)
-                   • Deadline approaching (due within 1-2 days)
-                   • Has consequences if delayed (production issues, dependencies)
-
-                   isImportant: true if ANY of these apply:
-                   • Contributes to goals/objectives (strategic, high-value)
-                   • Core work vs busywork (meaningful impact)
-                   • Aligns with project priorities
-
-                6. URGENCY EXAMPLES by task type (deadline is just ONE factor):
-
-                   CONTENT-DRIVEN urgency (urgent regardless of deadline):
-                   • "Fix production bug" → URGENT (blocks users)
-                   • "Review PR blocking deployment" → URGENT (blocks others)
-                   • "Respond to client emergency" → URGENT (external dependency)
-
-                   DEADLINE-DRIVEN urgency (depends on timeline):
-                   • "Organize photos" due tomorrow → NOT urgent (can reschedule)
-                   • "Submit tax return" due tomorrow → URGENT (penalty if late)
-                   • "Prepare presentation" due in 2 hours → URGENT (imminent)
-
-                   NEITHER urgent (even with deadline):
-                   • "Clean downloads folder" → Never urgent
-                   • "Read optional article" → Never urgent
-
-                   Eisenhower Quadrants:
-                   • Urgent + Important (Do First): Critical deadlines, crises, blocking work
-                   • Important only (Schedule): Planning, learning, strategic work
-                   • Urgent only (Delegate): Interruptions, some emails
-                   • Neither (Eliminate): Busywork, time-wasters
-
-                JSON Format (respond with ONLY this, no other text):
-                {
-                  "reasoning": "Brief explanation of your breakdown approach",
-                  "subtasks": [
-                    {
-                      "title": "Action verb + specific task",
-                      "description": "What and how to do it",
-                      "estimatedMinutes": 30,
-                      "isUrgent": false,
-                      "isImportant": true
+        } catch (AIServiceUnavailableException e) {
+            reservation.release();
+            throw e;
+        } catch (Exception e) {
+            reservation.release();
+            log.error("Failed to break down task: {}", e.getMessage());
+            throw new RuntimeException("AI task breakdown failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #breakdownTask(String, String, LocalDateTime, Long)}
+     *
+     * <p>Subtasks are handed to {@code onSubtask} as soon as each one has fully arrived. The final
+     * result goes into the same cache entries as the blocking call, a cached result is replayed
+     * without calling the API.
+     */
+    public CompletableFuture<TaskBreakdownResultDTO> streamBreakdown(
+            String title,
+            String description,
+            LocalDateTime dueDate,
+            Long userId,
+            Consumer<SubtaskSuggestionDTO> onSubtask) {
+
+        if (title == null || title.trim().isEmpty()) {
+            throw new IllegalArgumentException("Task title cannot be empty");
+        }
+
+        Cache cache = cacheManager.getCache("taskBreakdowns");
+        String cacheKey = cacheKey(title, description);
+
+        TaskBreakdownResultDTO cached = cache.get(cacheKey, TaskBreakdownResultDTO.class);
+        if (cached != null) {
+            cached.getSubtasks().forEach(onSubtask);
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        String storedKey = responseCache.key("BREAKDOWN", PROMPT_VERSION, title, description);
+        Optional<TaskBreakdownResultDTO> stored =
+                responseCache.get("BREAKDOWN", storedKey, TaskBreakdownResultDTO.class);
+        if (stored.isPresent()) {
+            cache.put(cacheKey, stored.get());
+            stored.get().getSubtasks().forEach(onSubtask);
+            return CompletableFuture.completedFuture(stored.get());
+        }
+
+        log.info("Streaming breakdown for task: {} (due: {}) for user: {}", title, dueDate, userId);
+
+        SubtaskStreamParser parser = new SubtaskStreamParser(objectMapper, onSubtask);
+        PromptBudget.Fitted fittedDescription = fitDescription(description);
+
+        RateLimitService.Reservation reservation = rateLimitService.reserve(userId, "BREAKDOWN");
+
+        return reservation.releaseOnFailure(() -> claudeAPIClientService
+                .streamMessageAsync(
+                        "BREAKDOWN", SYSTEM, buildUserPrompt(title, fittedDescription, dueDate), parser::feed)
+                .thenApply(response -> {
+                    try {
+                        TaskBreakdownResultDTO result =
+                                completeBreakdown(response, title, fittedDescription, userId, reservation);
+                        cache.put(cacheKey, result);
+                        responseCache.put("BREAKDOWN", storedKey, result, response.getEstimatedCost(), response.getModel());
+                        return result;
+                    } catch (Exception e) {
+                        log.error("Failed to break down task: {}", e.getMessage());
+                        throw new RuntimeException("AI task breakdown failed: " + e.getMessage(), e);
                     }
-                  ]
+                }));
+    }
+
+    /**
+     * Breaks down several tasks with a single model call
+     *
+     * <p>Tasks with a cached breakdown are answered from the caches, the rest share one prompt
+     * that reuses the cacheable instructions of the single-task call. Every new breakdown is
+     * stored under the entries a single-task call would use. A batch whose output would not fit
+     * the routed model is split over several calls, it still counts as one request against the
+     * rate limit.
+     */
+    public BatchBreakdownResultDTO breakdownTasks(List<Task> tasks, Long userId) {
+        log.info("Batch breakdown of {} tasks for user: {}", tasks.size(), userId);
+
+        Cache cache = cacheManager.getCache("taskBreakdowns");
+        Map<Long, TaskBreakdownResultDTO> breakdowns = new LinkedHashMap<>();
+
+        // tasks with the same title and description go into the prompt once
+        Map<String, List<Task>> pending = new LinkedHashMap<>();
+
+        for (Task task : tasks) {
+            if (task.getTitle() == null || task.getTitle().trim().isEmpty()) {
+                throw new IllegalArgumentException("Task title cannot be empty");
+            }
+
+            String cacheKey = cacheKey(task.getTitle(), task.getDescription());
+            TaskBreakdownResultDTO cached = cache.get(cacheKey, TaskBreakdownResultDTO.class);
+
+            if (cached == null) {
+                String storedKey = responseCache.key(
+                        "BREAKDOWN", PROMPT_VERSION, task.getTitle(), task.getDescription());
+                cached = responseCache.get("BREAKDOWN", storedKey, TaskBreakdownResultDTO.class)
+                                      .orElse(null);
+                if (cached != null) {
+                    cache.put(cacheKey, cached);
                 }
+            }
 
-                CRITICAL: Return ONLY the JSON object, absolutely no other text.
-                """,
-                title,
-                description != null && !description.trim().isEmpty()
-                        ? description
-                        : "No additional details provided",
-                deadlineContext
-        );
+            if (cached != null) {
+                breakdowns.put(task.getId(), cached);
+            } else {
+                pending.computeIfAbsent(cacheKey, key -> new ArrayList<>()).add(task);
+            }
+        }
+
+        if (pending.isEmpty()) {
+            return new BatchBreakdownResultDTO(breakdowns, List.of(), 0, 0.0);
+        }
+
+        // the whole batch counts as one request, given back only if none of its calls went through
+        RateLimitService.Reservation reservation = rateLimitService.reserve(userId, "BREAKDOWN");
+
+        List<List<Task>> groups = new ArrayList<>(pending.values());
+
+        // every task needs its own max_tokens, split the batch so a call never asks for more
+        // output than the routed model or its fallback allows
+        int perCall = Math.max(1, routingConfig.routeFor("BREAKDOWN", anthropicConfig.getModel()).maxOutputTokens()
+                / anthropicConfig.getMaxTokens());
+
+        List<Long> failedTaskIds = new ArrayList<>();
+        int subtaskCount = 0;
+        int totalTokens = 0;
+        double totalCost = 0.0;
+        int calls = 0;
 
         try {
-            ClaudeResponseDTO response = claudeAPIClientService.sendMessage(systemPrompt, userPrompt);
-            String jsonText = cleanJsonResponse(response.getText());
+            for (int from = 0; from < groups.size(); from += perCall) {
+                List<List<Task>> chunk = groups.subList(from, Math.min(from + perCall, groups.size()));
+                List<PromptBudget.Fitted> descriptions = chunk.stream()
+                                                              .map(group -> fitDescription(group.get(0).getDescription()))
+                                                              .toList();
+
+                ClaudeResponseDTO response = claudeAPIClientService.sendMessage(
+                        "BREAKDOWN",
+                        SYSTEM,
+                        buildBatchPrompt(chunk, descriptions),
+                        anthropicConfig.getMaxTokens() * chunk.size());
+
+                calls++;
+                int tokensSaved = descriptions.stream().mapToInt(PromptBudget.Fitted::saved).sum();
+                usageWriter.record(userId, "BREAKDOWN", response, String.format(
+                        "{\"batch\":%d,\"tokenBudget\":%d,\"tokensSaved\":%d}",
+                        chunk.size(), descriptionBudget(), tokensSaved));
+
+                subtaskCount += collectBatchEntries(response, chunk, cache, breakdowns, failedTaskIds);
+                totalTokens += response.getTotalTokens();
+                totalCost += response.getEstimatedCost();
+            }
+
+            log.info("Batch breakdown: {} tasks in {} calls, {} without a usable result",
+                     groups.size(), calls, failedTaskIds.size());
+
+            notifyBatchComplete(userId, groups.size(), subtaskCount);
+
+            return new BatchBreakdownResultDTO(breakdowns, failedTaskIds, totalTokens, totalCost);
+
+        } catch (AIServiceUnavailableException e) {
+            if (calls == 0) {
+                reservation.release();
+            }
+            throw e;
+        } catch (Exception e) {
+            if (calls == 0) {
+                reservation.release();
+            }
+            log.error("Failed to break down tasks: {}", e.getMessage());
+            throw new RuntimeException("AI batch breakdown failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** Stores every usable entry of one batch call and returns how many subtasks it produced */
+    private int collectBatchEntries(
+            ClaudeResponseDTO response,
+            List<List<Task>> groups,
+            Cache cache,
+            Map<Long, TaskBreakdownResultDTO> breakdowns,
+            List<Long> failedTaskIds) throws JsonProcessingException {
+        JsonNode entries = objectMapper.readTree(cleanJsonResponse(response.getText()))
+                                       .path("breakdowns");
+
+        Map<Integer, JsonNode> entriesByTask = new HashMap<>();
+        for (JsonNode entry : entries) {
+            entriesByTask.put(entry.path("task").asInt(), entry);
+        }
+
+        // the call's cost is split evenly so cached entries carry a fair share
+        int tokensShare = response.getTotalTokens() / groups.size();
+        double costShare = response.getEstimatedCost() / groups.size();
+        int subtaskCount = 0;
+
+        for (int i = 0; i < groups.size(); i++) {
+            List<Task> group = groups.get(i);
+            Task task = group.get(0);
+            TaskBreakdownResultDTO result =
+                    parseBatchEntry(entriesByTask.get(i + 1), tokensShare, costShare);
 
-            JsonNode root = objectMapper.readTree(jsonText);
+            if (result == null) {
+                group.forEach(t -> failedTaskIds.add(t.getId()));
+                continue;
+            }
+
+            cache.put(cacheKey(task.getTitle(), task.getDescription()), result);
+            responseCache.put(
+                    "BREAKDOWN",
+                    responseCache.key("BREAKDOWN", PROMPT_VERSION, task.getTitle(), task.getDescription()),
+                    result,
+                    costShare,
+                    response.getModel());
+
+            group.forEach(t -> breakdowns.put(t.getId(), result));
+            subtaskCount += result.getSubtasks().size();
+        }
+
+        return subtaskCount;
+    }
+
+    private String buildBatchPrompt(List<List<Task>> groups, List<PromptBudget.Fitted> descriptions) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append(String.format(
+                "Break down each of these %d tasks into 3-7 actionable subtasks using the Eisenhower Matrix.\n"
+                        + "Treat every task on its own.\n\n",
+                groups.size()));
+
+        for (int i = 0; i < groups.size(); i++) {
+            Task task = groups.get(i).get(0);
+            prompt.append(String.format(
+                    """
+                    Task %d
+                    Task Title: "%s"
+                    Description: "%s"
+                    Deadline: %s
+
+                    """,
+                    i + 1,
+                    task.getTitle(),
+                    describe(descriptions.get(i)),
+                    formatDeadlineContext(task.getDueDate())
+            ));
+        }
+
+        prompt.append("""
+                Respond with ONLY this JSON object, one entry per task, subtasks in the format above:
+                {
+                  "breakdowns": [
+                    {
+                      "task": 1,
+                      "reasoning": "Brief explanation of your breakdown approach",
+                      "subtasks": []
+                    }
+                  ]
+                }
+                """);
+
+        return prompt.toString();
+    }
 
-            String reasoning = root.has("reasoning")
-                    ? root.get("reasoning").asText()
-                    : "No reasoning provided";
+    private TaskBreakdownResultDTO parseBatchEntry(JsonNode entry, int tokensUsed, double costUSD) {
+        if (entry == null || !entry.path("subtasks").isArray() || entry.path("subtasks").isEmpty()) {
+            return null;
+        }
 
+        try {
             List<SubtaskSuggestionDTO> subtasks = objectMapper.readValue(
-                    root.get("subtasks").toString(),
+                    entry.get("subtasks").toString(),
                     new TypeReference<List<SubtaskSuggestionDTO>>() {}
             );
 
-            log.info("Successfully broke down task into {} subtasks", subtasks.size());
-
-            TaskBreakdownResultDTO result = new TaskBreakdownResultDTO(
+            return new TaskBreakdownResultDTO(
                     null,
                     subtasks,
-                    response.getTotalTokens(),
-                    response.getEstimatedCost(),
-                    reasoning
+                    tokensUsed,
+                    costUSD,
+                    entry.path("reasoning").asText("No reasoning provided")
             );
+        } catch (Exception e) {
+            log.warn("Skipping unparsable batch breakdown entry: {}", e.getMessage());
+            return null;
+        }
+    }
 
-            User user = userRepository.findById(userId)
-                                      .orElseThrow(() -> new RuntimeException("User not found"));
-
-            AIUsage usage = new AIUsage();
-            usage.setUser(user);
-            usage.setFeatureType("BREAKDOWN");
-            usage.setTokensUsed(response.getTotalTokens());
-            usage.setCostUSD(response.getEstimatedCost());
-            usage.setRequestDetails(String.format("{\"title\":\"%s\"}", title.replace("\"", "\\\"")));
-
-            aiUsageRepository.save(usage);
-
-            log.info("Saved AI usage: {} tokens, ${}", usage.getTokensUsed(), usage.getCostUSD());
-
-            try {
-                notificationService.createNotification(
-                        user,
-                        "AI_BREAKDOWN",
-                        "Task Breakdown Complete",
-                        String.format("AI generated %d subtasks for '%s'",
-                                      subtasks.size(), title),
-                        "/tasks"
-                );
-            } catch (Exception e) {
-                log.warn("Failed to send breakdown notification: {}", e.getMessage());
-            }
+    private void notifyBatchComplete(Long userId, int taskCount, int subtaskCount) {
+        try {
+            notificationService.createNotification(
+                    userRepository.getReferenceById(userId),
+                    "AI_BREAKDOWN",
+                    "Task Breakdown Complete",
+                    String.format("AI generated %d subtasks for %d tasks", subtaskCount, taskCount),
+                    "/tasks"
+            );
+        } catch (Exception e) {
+            log.warn("Failed to send breakdown notification: {}", e.getMessage());
+        }
+    }
 
-            return result;
+    private static String cacheKey(String title, String description) {
+        return title + "_" + (description != null ? description : "");
+    }
+
+    private int descriptionBudget() {
+        return Math.max(promptBudgetConfig.getBreakdownDescriptionTokens(), 0);
+    }
 
+    /** Keeps a long description within the configured budget, the cache keys still use the full text */
+    private PromptBudget.Fitted fitDescription(String description) {
+        return PromptBudget.fit(description, descriptionBudget());
+    }
+
+    private static String describe(PromptBudget.Fitted description) {
+        return description.text() != null && !description.text().trim().isEmpty()
+                ? description.text()
+                : "No additional details provided";
+    }
+
+    private String buildUserPrompt(String title, PromptBudget.Fitted description, LocalDateTime dueDate) {
+        return String.format(
+                """
+                Break down this task into 3-7 actionable subtasks using the Eisenhower Matrix.
+
+                Task Title: "%s"
+                Description: "%s"
+                Deadline: %s
+                """,
+                title,
+                describe(description),
+                formatDeadlineContext(dueDate)
+        );
+    }
+
+    /** Parses the response, records usage and notifies the user */
+    private TaskBreakdownResultDTO completeBreakdown(
+            ClaudeResponseDTO response,
+            String title,
+            PromptBudget.Fitted description,
+            Long userId,
+            RateLimitService.Reservation reservation)
+            throws JsonProcessingException {
+        String jsonText = cleanJsonResponse(response.getText());
+
+        JsonNode root = objectMapper.readTree(jsonText);
+
+        String reasoning = root.has("reasoning")
+                ? root.get("reasoning").asText()
+                : "No reasoning provided";
+
+        List<SubtaskSuggestionDTO> subtasks = objectMapper.readValue(
+                root.get("subtasks").toString(),
+                new TypeReference<List<SubtaskSuggestionDTO>>() {}
+        );
+
+        log.info("Successfully broke down task into {} subtasks", subtasks.size());
+
+        TaskBreakdownResultDTO result = new TaskBreakdownResultDTO(
+                null,
+                subtasks,
+                response.getTotalTokens(),
+                response.getEstimatedCost(),
+                reasoning
+        );
+
+        User user = userRepository.findById(userId)
+                                  .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // a coalesced response was paid for by the request it joined, like a cache hit it isn't
+        // recorded and doesn't count against the rate limit
+        if (response.isCoalesced()) {
+            reservation.release();
+        } else {
+            usageWriter.record(userId, "BREAKDOWN", response, String.format(
+                    "{\"title\":\"%s\",\"tokenBudget\":%d,\"tokensSaved\":%d}",
+                    title.replace("\"", "\\\""),
+                    descriptionBudget(),
+                    description.saved()));
+
+            log.info("Queued AI usage: {} tokens, ${}", response.getTotalTokens(), response.getEstimatedCost());
+        }
+
+        try {
+            notificationService.createNotification(
+                    user,
+                    "AI_BREAKDOWN",
+                    "Task Breakdown Complete",
+                    String.format("AI generated %d subtasks for '%s'",
+                                  subtasks.size(), title),
+                    "/tasks"
+            );
         } catch (Exception e) {
-            log.error("Failed to break down task: {}", e.getMessage());
-            throw new RuntimeException("AI task breakdown failed: " + e.getMessage(), e);
+            log.warn("Failed to send breakdown notification: {}", e.getMessage());
         }
+
+        return result;
     }
 
     private String cleanJsonResponse(String response) {
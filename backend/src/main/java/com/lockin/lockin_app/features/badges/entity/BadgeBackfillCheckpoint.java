@@ -0,0 +1,45 @@
+package com.lockin.lockin_app.features.badges.entity;
+
+import jakarta.persistence.*;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/** Progress of the badge backfill for one badge type, users up to lastUserId are done */
+@Entity
+@Table(name = "badge_backfill_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+public class BadgeBackfillCheckpoint {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "badge_type", length = 50)
+    private BadgeType badgeType;
+
+    @Column(name = "last_user_id", nullable = false)
+    private long lastUserId;
+
+    @Column(name = "awarded_count", nullable = false)
+    private long awardedCount;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public BadgeBackfillCheckpoint(BadgeType badgeType) {
+        this.badgeType = badgeType;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
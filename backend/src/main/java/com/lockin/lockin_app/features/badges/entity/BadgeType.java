@@ -3,28 +3,31 @@ package com.lockin.lockin_app.features.badges.entity;
 import lombok.Getter;
 
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Getter
 public enum BadgeType {
     // Task completion badges
-    FIRST_STEPS("First Steps", "Complete your first task", "🎯", 1, BadgeCategory.TASK),
-    TASK_WARRIOR("Task Warrior", "Complete 10 tasks", "⚔️", 10, BadgeCategory.TASK),
-    TASK_MASTER("Task Master", "Complete 50 tasks", "👑", 50, BadgeCategory.TASK),
-    TASK_TERMINATOR("Task Terminator", "Complete 100 tasks", "🏆", 100, BadgeCategory.TASK),
+    FIRST_STEPS(0, "First Steps", "Complete your first task", "🎯", 1, BadgeCategory.TASK),
+    TASK_WARRIOR(1, "Task Warrior", "Complete 10 tasks", "⚔️", 10, BadgeCategory.TASK),
+    TASK_MASTER(2, "Task Master", "Complete 50 tasks", "👑", 50, BadgeCategory.TASK),
+    TASK_TERMINATOR(3, "Task Terminator", "Complete 100 tasks", "🏆", 100, BadgeCategory.TASK),
 
     // Pomodoro badges
-    FOCUS_NOVICE("Focus Novice", "Complete your first pomodoro", "🌱", 1, BadgeCategory.POMODORO),
-    FOCUS_APPRENTICE("Focus Apprentice", "Complete 25 pomodoros", "🔥", 25, BadgeCategory.POMODORO),
-    POMODORO_100("Pomodoro Pro", "Complete 100 pomodoros", "💯", 100, BadgeCategory.POMODORO),
-    POMODORO_500("Pomodoro Legend", "Complete 500 pomodoros", "⭐", 500, BadgeCategory.POMODORO),
+    FOCUS_NOVICE(4, "Focus Novice", "Complete your first pomodoro", "🌱", 1, BadgeCategory.POMODORO),
+    FOCUS_APPRENTICE(5, "Focus Apprentice", "Complete 25 pomodoros", "🔥", 25, BadgeCategory.POMODORO),
+    POMODORO_100(6, "Pomodoro Pro", "Complete 100 pomodoros", "💯", 100, BadgeCategory.POMODORO),
+    POMODORO_500(7, "Pomodoro Legend", "Complete 500 pomodoros", "⭐", 500, BadgeCategory.POMODORO),
 
     // Goal badges
-    GOAL_SETTER("Goal Setter", "Complete your first goal", "🎪", 1, BadgeCategory.GOAL),
-    GOAL_ACHIEVER("Goal Achiever", "Complete 5 goals", "🎊", 5, BadgeCategory.GOAL),
-    GOAL_CRUSHER("Goal Crusher", "Complete 10 goals", "💪", 10, BadgeCategory.GOAL);
+    GOAL_SETTER(8, "Goal Setter", "Complete your first goal", "🎪", 1, BadgeCategory.GOAL),
+    GOAL_ACHIEVER(9, "Goal Achiever", "Complete 5 goals", "🎊", 5, BadgeCategory.GOAL),
+    GOAL_CRUSHER(10, "Goal Crusher", "Complete 10 goals", "💪", 10, BadgeCategory.GOAL);
 
+    // position in a user's earned badges mask, persisted, never reuse or change one
+    private final int bit;
     private final String name;
     private final String description;
     private final String icon;
@@ -32,7 +35,13 @@ public enum BadgeType {
     private final BadgeCategory category;
 
     BadgeType(
-            String name, String description, String icon, int requirement, BadgeCategory category) {
+            int bit,
+            String name,
+            String description,
+            String icon,
+            int requirement,
+            BadgeCategory category) {
+        this.bit = bit;
         this.name = name;
         this.description = description;
         this.icon = icon;
@@ -46,6 +55,43 @@ public enum BadgeType {
                 .collect(Collectors.toList());
     }
 
+    static {
+        long seen = 0L;
+        for (BadgeType badge : values()) {
+            if (badge.bit < 0 || badge.bit >= Long.SIZE || (seen & badge.getMask()) != 0) {
+                throw new IllegalStateException("Invalid or duplicate badge bit for " + badge);
+            }
+            seen |= badge.getMask();
+        }
+    }
+
+    /**
+     * Bit of this badge in a user's earned badges mask
+     *
+     * <p>Based on the explicit bit, not the ordinal, so badge types can be reordered or removed.
+     */
+    public long getMask() {
+        return 1L << bit;
+    }
+
+    public static long toMask(Iterable<BadgeType> badges) {
+        long mask = 0L;
+        for (BadgeType badge : badges) {
+            mask |= badge.getMask();
+        }
+        return mask;
+    }
+
+    public static EnumSet<BadgeType> fromMask(long mask) {
+        EnumSet<BadgeType> badges = EnumSet.noneOf(BadgeType.class);
+        for (BadgeType badge : values()) {
+            if ((mask & badge.getMask()) != 0) {
+                badges.add(badge);
+            }
+        }
+        return badges;
+    }
+
     public enum BadgeCategory {
         TASK,
         POMODORO,
@@ -0,0 +1,46 @@
+package com.lockin.lockin_app.features.badges.entity;
+
+import jakarta.persistence.*;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lifetime completion counters and earned badges of one user
+ *
+ * <p>Earned badges are stored as a bitmask of {@link BadgeType} bits. Counters only count
+ * completions that happened after countedSince, anything before that was included when the row
+ * was built from source data.
+ */
+@Entity
+@Table(name = "user_badge_state")
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserBadgeState {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "completed_tasks", nullable = false)
+    private long completedTasks;
+
+    @Column(name = "completed_pomodoros", nullable = false)
+    private long completedPomodoros;
+
+    @Column(name = "completed_goals", nullable = false)
+    private long completedGoals;
+
+    @Column(name = "earned_badges", nullable = false)
+    private long earnedBadges;
+
+    @Column(name = "counted_since", nullable = false)
+    private LocalDateTime countedSince;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
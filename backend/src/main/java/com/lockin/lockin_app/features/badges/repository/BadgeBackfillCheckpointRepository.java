@@ -0,0 +1,11 @@
+package com.lockin.lockin_app.features.badges.repository;
+
+import com.lockin.lockin_app.features.badges.entity.BadgeBackfillCheckpoint;
+import com.lockin.lockin_app.features.badges.entity.BadgeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BadgeBackfillCheckpointRepository
+        extends JpaRepository<BadgeBackfillCheckpoint, BadgeType> {}
@@ -4,6 +4,8 @@ import com.lockin.lockin_app.features.badges.entity.Badge;
 import com.lockin.lockin_app.features.badges.entity.BadgeType;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,4 +18,7 @@ public interface BadgeRepository extends JpaRepository<Badge, Long> {
     boolean existsByUserIdAndBadgeType(Long userId, BadgeType badgeType);
 
     long countByUserId(Long userId);
+
+    @Query("SELECT b.badgeType FROM Badge b WHERE b.user.id = :userId")
+    List<BadgeType> findBadgeTypesByUserId(@Param("userId") Long userId);
 }
\ No newline at end of file
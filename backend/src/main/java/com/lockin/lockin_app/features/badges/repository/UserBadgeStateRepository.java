@@ -0,0 +1,64 @@
+package com.lockin.lockin_app.features.badges.repository;
+
+import com.lockin.lockin_app.features.badges.entity.UserBadgeState;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface UserBadgeStateRepository extends JpaRepository<UserBadgeState, Long> {
+
+    /** Reads the user's state and locks the row until the transaction ends */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserBadgeState s WHERE s.userId = :userId")
+    Optional<UserBadgeState> findByIdForUpdate(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(
+            value =
+                    "INSERT INTO user_badge_state (user_id, completed_tasks, completed_pomodoros, "
+                            + "completed_goals, earned_badges, counted_since, updated_at) "
+                            + "VALUES (:userId, :tasks, :pomodoros, :goals, :earnedBadges, "
+                            + ":countedSince, LOCALTIMESTAMP) "
+                            + "ON CONFLICT (user_id) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(
+            @Param("userId") Long userId,
+            @Param("tasks") long tasks,
+            @Param("pomodoros") long pomodoros,
+            @Param("goals") long goals,
+            @Param("earnedBadges") long earnedBadges,
+            @Param("countedSince") LocalDateTime countedSince);
+
+    /**
+     * Applies counter deltas and newly earned badges
+     *
+     * <p>Relative updates commute, so concurrent workers never overwrite each other's progress.
+     */
+    @Modifying
+    @Query(
+            value =
+                    "UPDATE user_badge_state SET "
+                            + "completed_tasks = completed_tasks + :tasks, "
+                            + "completed_pomodoros = completed_pomodoros + :pomodoros, "
+                            + "completed_goals = completed_goals + :goals, "
+                            + "earned_badges = earned_badges | :earnedBadges, "
+                            + "updated_at = LOCALTIMESTAMP "
+                            + "WHERE user_id = :userId",
+            nativeQuery = true)
+    int applyProgress(
+            @Param("userId") Long userId,
+            @Param("tasks") long tasks,
+            @Param("pomodoros") long pomodoros,
+            @Param("goals") long goals,
+            @Param("earnedBadges") long earnedBadges);
+}
@@ -0,0 +1,328 @@
+package com.lockin.lockin_app.features.badges.service;
+
+import com.lockin.lockin_app.features.badges.entity.BadgeBackfillCheckpoint;
+import com.lockin.lockin_app.features.badges.entity.BadgeType;
+import com.lockin.lockin_app.features.badges.entity.BadgeType.BadgeCategory;
+import com.lockin.lockin_app.features.badges.repository.BadgeBackfillCheckpointRepository;
+import com.lockin.lockin_app.features.notifications.service.NotificationService;
+import com.lockin.lockin_app.features.users.entity.User;
+import com.lockin.lockin_app.features.users.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Grants badge types to existing users who already qualify for them
+ *
+ * <p>Users are walked in id order in pages. For each page the completion counts of every category
+ * with pending badge types are read with one grouped query, qualifying badges are inserted with a
+ * JDBC batch and each user gets one notification for everything they received, created through
+ * {@link NotificationService} so it is pushed and counted like any other. The page's inserts,
+ * notifications and checkpoints commit together, so an interrupted run resumes after the last
+ * finished page.
+ *
+ * <p>A badge type is pending until its checkpoint is marked completed, which means new types are
+ * picked up on the next run after they are added.
+ */
+@Slf4j
+@Service
+public class BadgeBackfillService {
+
+    private static final Map<BadgeCategory, String> COUNT_QUERIES =
+            Map.of(
+                    BadgeCategory.TASK,
+                    "SELECT user_id, COUNT(*) AS total FROM tasks "
+                            + "WHERE status = 'COMPLETED' AND user_id IN (:userIds) "
+                            + "GROUP BY user_id",
+                    BadgeCategory.POMODORO,
+                    "SELECT user_id, COUNT(*) AS total FROM focus_sessions "
+                            + "WHERE completed = true AND user_id IN (:userIds) "
+                            + "GROUP BY user_id",
+                    BadgeCategory.GOAL,
+                    "SELECT user_id, COUNT(*) AS total FROM goals "
+                            + "WHERE completed = true AND user_id IN (:userIds) "
+                            + "GROUP BY user_id");
+
+    private static final String INSERT_BADGE =
+            "INSERT INTO badges (user_id, badge_type, earned_at) "
+                    + "VALUES (:userId, :badgeType, :earnedAt) "
+                    + "ON CONFLICT (user_id, badge_type) DO NOTHING";
+
+    private static final String UPDATE_BADGE_STATE =
+            "UPDATE user_badge_state SET earned_badges = earned_badges | :mask, "
+                    + "updated_at = LOCALTIMESTAMP WHERE user_id = :userId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BadgeBackfillCheckpointRepository checkpointRepository;
+    private final BadgeStateService badgeStateService;
+    private final NotificationService notificationService;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public BadgeBackfillService(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            BadgeBackfillCheckpointRepository checkpointRepository,
+            BadgeStateService badgeStateService,
+            NotificationService notificationService,
+            UserRepository userRepository,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.badgeStateService = badgeStateService;
+        this.notificationService = notificationService;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Backfills every badge type that hasn't completed a backfill yet
+     *
+     * @param batchSize number of users per page
+     * @return number of badges awarded
+     */
+    public long backfillPendingBadges(int batchSize) {
+        Map<BadgeType, BadgeBackfillCheckpoint> checkpoints = loadPendingCheckpoints();
+        if (checkpoints.isEmpty()) {
+            log.debug("No badge types pending backfill");
+            return 0;
+        }
+
+        log.info("Starting badge backfill for {}", checkpoints.keySet());
+
+        long start = System.currentTimeMillis();
+        long cursor =
+                checkpoints.values().stream()
+                        .mapToLong(BadgeBackfillCheckpoint::getLastUserId)
+                        .min()
+                        .orElse(0L);
+        long awarded = 0;
+        int pages = 0;
+
+        while (true) {
+            List<Long> userIds = findUserIdsAfter(cursor, batchSize);
+            if (userIds.isEmpty()) {
+                break;
+            }
+
+            Integer pageAwarded =
+                    transactionTemplate.execute(status -> backfillPage(userIds, checkpoints));
+            awarded += pageAwarded != null ? pageAwarded : 0;
+            pages++;
+
+            cursor = userIds.get(userIds.size() - 1);
+        }
+
+        transactionTemplate.executeWithoutResult(
+                status -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    checkpoints.values().forEach(checkpoint -> checkpoint.setCompletedAt(now));
+                    checkpointRepository.saveAll(checkpoints.values());
+                });
+
+        log.info(
+                "Badge backfill complete. Pages: {}, Awarded: {}, Took: {} ms",
+                pages,
+                awarded,
+                System.currentTimeMillis() - start);
+
+        return awarded;
+    }
+
+    private Map<BadgeType, BadgeBackfillCheckpoint> loadPendingCheckpoints() {
+        Map<BadgeType, BadgeBackfillCheckpoint> existing =
+                checkpointRepository.findAll().stream()
+                        .collect(
+                                Collectors.toMap(
+                                        BadgeBackfillCheckpoint::getBadgeType,
+                                        checkpoint -> checkpoint));
+
+        Map<BadgeType, BadgeBackfillCheckpoint> pending = new EnumMap<>(BadgeType.class);
+        for (BadgeType badgeType : BadgeType.values()) {
+            BadgeBackfillCheckpoint checkpoint =
+                    existing.getOrDefault(badgeType, new BadgeBackfillCheckpoint(badgeType));
+
+            if (checkpoint.getCompletedAt() == null) {
+                pending.put(badgeType, checkpoint);
+            }
+        }
+
+        return pending;
+    }
+
+    private List<Long> findUserIdsAfter(long afterId, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE id > :afterId ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource().addValue("afterId", afterId).addValue("limit", limit),
+                Long.class);
+    }
+
+    private int backfillPage(
+            List<Long> userIds, Map<BadgeType, BadgeBackfillCheckpoint> checkpoints) {
+        Map<Long, EnumSet<BadgeType>> candidates = findQualifying(userIds, checkpoints);
+
+        Map<Long, EnumSet<BadgeType>> awarded = insertBadges(candidates);
+
+        if (!awarded.isEmpty()) {
+            updateBadgeStates(awarded);
+            notifyAwarded(awarded);
+        }
+
+        long lastUserId = userIds.get(userIds.size() - 1);
+        for (BadgeBackfillCheckpoint checkpoint : checkpoints.values()) {
+            long count =
+                    awarded.values().stream()
+                            .filter(badges -> badges.contains(checkpoint.getBadgeType()))
+                            .count();
+
+            checkpoint.setLastUserId(Math.max(checkpoint.getLastUserId(), lastUserId));
+            checkpoint.setAwardedCount(checkpoint.getAwardedCount() + count);
+        }
+        checkpointRepository.saveAll(checkpoints.values());
+
+        return awarded.values().stream().mapToInt(EnumSet::size).sum();
+    }
+
+    private Map<Long, EnumSet<BadgeType>> findQualifying(
+            List<Long> userIds, Map<BadgeType, BadgeBackfillCheckpoint> checkpoints) {
+        Map<Long, EnumSet<BadgeType>> qualifying = new LinkedHashMap<>();
+
+        for (BadgeCategory category : BadgeCategory.values()) {
+            List<BadgeType> pending =
+                    BadgeType.getByCategory(category).stream()
+                            .filter(checkpoints::containsKey)
+                            .toList();
+
+            if (pending.isEmpty()) {
+                continue;
+            }
+
+            Map<Long, Long> counts = new HashMap<>();
+            jdbcTemplate.query(
+                    COUNT_QUERIES.get(category),
+                    new MapSqlParameterSource("userIds", userIds),
+                    rs -> {
+                        counts.put(rs.getLong("user_id"), rs.getLong("total"));
+                    });
+
+            counts.forEach(
+                    (userId, count) -> {
+                        for (BadgeType badgeType : pending) {
+                            boolean alreadyDone =
+                                    userId <= checkpoints.get(badgeType).getLastUserId();
+
+                            if (!alreadyDone && count >= badgeType.getRequirement()) {
+                                qualifying
+                                        .computeIfAbsent(
+                                                userId, id -> EnumSet.noneOf(BadgeType.class))
+                                        .add(badgeType);
+                            }
+                        }
+                    });
+        }
+
+        return qualifying;
+    }
+
+    /** Inserts candidate badges in one batch and returns the ones that didn't exist yet */
+    private Map<Long, EnumSet<BadgeType>> insertBadges(Map<Long, EnumSet<BadgeType>> candidates) {
+        List<Long> rowUsers = new ArrayList<>();
+        List<BadgeType> rowBadges = new ArrayList<>();
+        List<MapSqlParameterSource> rows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        candidates.forEach(
+                (userId, badges) ->
+                        badges.forEach(
+                                badgeType -> {
+                                    rowUsers.add(userId);
+                                    rowBadges.add(badgeType);
+                                    rows.add(
+                                            new MapSqlParameterSource()
+                                                    .addValue("userId", userId)
+                                                    .addValue("badgeType", badgeType.name())
+                                                    .addValue("earnedAt", now));
+                                }));
+
+        Map<Long, EnumSet<BadgeType>> inserted = new LinkedHashMap<>();
+        if (rows.isEmpty()) {
+            return inserted;
+        }
+
+        int[] results =
+                jdbcTemplate.batchUpdate(
+                        INSERT_BADGE, rows.toArray(MapSqlParameterSource[]::new));
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] > 0) {
+                inserted.computeIfAbsent(rowUsers.get(i), id -> EnumSet.noneOf(BadgeType.class))
+                        .add(rowBadges.get(i));
+            }
+        }
+
+        return inserted;
+    }
+
+    private void updateBadgeStates(Map<Long, EnumSet<BadgeType>> awarded) {
+        MapSqlParameterSource[] rows =
+                awarded.entrySet().stream()
+                        .map(
+                                entry ->
+                                        new MapSqlParameterSource()
+                                                .addValue("userId", entry.getKey())
+                                                .addValue(
+                                                        "mask",
+                                                        BadgeType.toMask(entry.getValue())))
+                        .toArray(MapSqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate(UPDATE_BADGE_STATE, rows);
+
+        // cached states predate these badges
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        awarded.keySet().forEach(badgeStateService::evict);
+                    }
+                });
+    }
+
+    /** One notification per user, however many badges they received on this page */
+    private void notifyAwarded(Map<Long, EnumSet<BadgeType>> awarded) {
+        for (User user : userRepository.findAllById(awarded.keySet())) {
+            EnumSet<BadgeType> badges = awarded.get(user.getId());
+            String names =
+                    badges.stream()
+                            .map(badge -> badge.getIcon() + " " + badge.getName())
+                            .collect(Collectors.joining(", "));
+
+            notificationService.createNotification(
+                    user,
+                    "BADGE_EARNED",
+                    badges.size() == 1 ? "New badge earned!" : badges.size() + " new badges earned!",
+                    truncate("You've unlocked " + names, 500),
+                    "/badges");
+        }
+    }
+
+    private String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength - 3) + "...";
+    }
+}
@@ -0,0 +1,174 @@
+package com.lockin.lockin_app.features.badges.service;
+
+import com.lockin.lockin_app.features.badges.entity.BadgeType;
+import com.lockin.lockin_app.features.badges.entity.BadgeType.BadgeCategory;
+import com.lockin.lockin_app.features.badges.entity.UserBadgeState;
+import com.lockin.lockin_app.features.badges.repository.BadgeRepository;
+import com.lockin.lockin_app.features.badges.repository.UserBadgeStateRepository;
+import com.lockin.lockin_app.features.focus_sessions.repository.FocusSessionRepository;
+import com.lockin.lockin_app.features.goals.repository.GoalRepository;
+import com.lockin.lockin_app.features.tasks.entity.TaskStatus;
+import com.lockin.lockin_app.features.tasks.repository.TaskRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Keeps per-user lifetime counters and earned badges in user_badge_state
+ *
+ * <p>Each completion locks the user's row, counts the completion and compares the new count
+ * against the badge requirements, all in the transaction that handles the event. Events for the
+ * same user handled on different nodes therefore see each other's progress. The row is rebuilt
+ * from tasks, sessions, goals and badges for users who don't have one yet.
+ *
+ * <p>The cache only holds hints that never go stale in a harmful way: when counting started and
+ * which badges were earned, earned badges are never taken back. A user who has already earned
+ * every badge of a category needs no locked read for it, the completion is a relative update.
+ *
+ * <p>Counters are lifetime completions: a task that is reopened and completed again counts twice.
+ */
+@Slf4j
+@Service
+public class BadgeStateService {
+
+    private final UserBadgeStateRepository stateRepository;
+    private final BadgeRepository badgeRepository;
+    private final TaskRepository taskRepository;
+    private final FocusSessionRepository focusSessionRepository;
+    private final GoalRepository goalRepository;
+    private final Cache cache;
+
+    public BadgeStateService(
+            UserBadgeStateRepository stateRepository,
+            BadgeRepository badgeRepository,
+            TaskRepository taskRepository,
+            FocusSessionRepository focusSessionRepository,
+            GoalRepository goalRepository,
+            CacheManager cacheManager) {
+        this.stateRepository = stateRepository;
+        this.badgeRepository = badgeRepository;
+        this.taskRepository = taskRepository;
+        this.focusSessionRepository = focusSessionRepository;
+        this.goalRepository = goalRepository;
+        this.cache = cacheManager.getCache("badgeStates");
+    }
+
+    /**
+     * Counts one completion and returns the badges it unlocks
+     *
+     * <p>Completions at or before the state's countedSince were already included when it was
+     * built and are only evaluated, not counted again. Must run in a transaction, the user's row
+     * stays locked until it ends.
+     *
+     * @param occurredAt when the completion happened, null to always count it
+     * @return badges the user has just earned, already marked as earned in the state
+     */
+    @Transactional
+    public List<BadgeType> recordCompletion(
+            Long userId, BadgeCategory category, LocalDateTime occurredAt) {
+        List<BadgeType> categoryBadges = BadgeType.getByCategory(category);
+
+        Hint hint = cache.get(userId, Hint.class);
+        if (hint != null && hint.earned.containsAll(categoryBadges)) {
+            if (counts(occurredAt, hint.countedSince)) {
+                applyProgress(userId, category, 1, List.of());
+            }
+            return List.of();
+        }
+
+        UserBadgeState state =
+                stateRepository.findByIdForUpdate(userId).orElseGet(() -> rebuild(userId));
+
+        long counted = counts(occurredAt, state.getCountedSince()) ? 1 : 0;
+        long count = count(state, category) + counted;
+        EnumSet<BadgeType> earned = BadgeType.fromMask(state.getEarnedBadges());
+
+        List<BadgeType> unlocked = new ArrayList<>();
+        for (BadgeType badgeType : categoryBadges) {
+            if (count >= badgeType.getRequirement() && earned.add(badgeType)) {
+                unlocked.add(badgeType);
+            }
+        }
+
+        if (counted > 0 || !unlocked.isEmpty()) {
+            applyProgress(userId, category, counted, unlocked);
+        }
+
+        cacheAfterCommit(userId, new Hint(state.getCountedSince(), earned));
+
+        return unlocked;
+    }
+
+    /** Drops the cached hints of a user, e.g. after badges were granted outside this service */
+    public void evict(Long userId) {
+        cache.evict(userId);
+    }
+
+    private void applyProgress(
+            Long userId, BadgeCategory category, long counted, List<BadgeType> unlocked) {
+        stateRepository.applyProgress(
+                userId,
+                category == BadgeCategory.TASK ? counted : 0,
+                category == BadgeCategory.POMODORO ? counted : 0,
+                category == BadgeCategory.GOAL ? counted : 0,
+                BadgeType.toMask(unlocked));
+    }
+
+    private static boolean counts(LocalDateTime occurredAt, LocalDateTime countedSince) {
+        return occurredAt == null || occurredAt.isAfter(countedSince);
+    }
+
+    private static long count(UserBadgeState state, BadgeCategory category) {
+        return switch (category) {
+            case TASK -> state.getCompletedTasks();
+            case POMODORO -> state.getCompletedPomodoros();
+            case GOAL -> state.getCompletedGoals();
+        };
+    }
+
+    /** Creates the user's row from their history and returns it locked */
+    private UserBadgeState rebuild(Long userId) {
+        log.debug("Rebuilding badge state for user {}", userId);
+
+        LocalDateTime countedSince = LocalDateTime.now();
+
+        long tasks = taskRepository.countByUserIdAndStatus(userId, TaskStatus.COMPLETED);
+        long pomodoros = focusSessionRepository.countByUserIdAndCompleted(userId, true);
+        long goals = goalRepository.countByUserIdAndCompleted(userId, true);
+        long earned = BadgeType.toMask(badgeRepository.findBadgeTypesByUserId(userId));
+
+        // a row built concurrently elsewhere wins, either way the row is read back locked
+        stateRepository.insertIfAbsent(userId, tasks, pomodoros, goals, earned, countedSince);
+
+        return stateRepository.findByIdForUpdate(userId).orElseThrow();
+    }
+
+    /** Keeps the hints once the transaction commits, a rolled back award leaves no trace */
+    private void cacheAfterCommit(Long userId, Hint hint) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.put(userId, hint);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        cache.put(userId, hint);
+                    }
+                });
+    }
+
+    private record Hint(LocalDateTime countedSince, EnumSet<BadgeType> earned) {}
+}
@@ -2,6 +2,7 @@ package com.lockin.lockin_app.features.focus_sessions.controller;
 
 import com.lockin.lockin_app.features.focus_sessions.dto.FocusSessionRequestDTO;
 import com.lockin.lockin_app.features.focus_sessions.dto.FocusSessionResponseDTO;
+import com.lockin.lockin_app.features.focus_sessions.dto.TodayFocusStatsDTO;
 import com.lockin.lockin_app.features.focus_sessions.service.FocusSessionService;
 import com.lockin.lockin_app.features.users.service.UserService;
 import com.lockin.lockin_app.shared.controller.BaseController;
@@ -89,17 +90,15 @@ public class FocusSessionController extends BaseController {
     }
 
     @GetMapping("/today")
-    public ResponseEntity<Map<String, Object>> getTodayStats(
+    public ResponseEntity<TodayFocusStatsDTO> getTodayStats(
             @AuthenticationPrincipal UserDetails userDetails) {
 
         log.debug("GET /api/sessions/today: User: {}", getCurrentUserEmail(userDetails));
 
         Long userId = getCurrentUserId(userDetails);
-        Integer totalMinutes = sessionService.getTotalFocusMinutesToday(userId);
-        List<FocusSessionResponseDTO> sessions = sessionService.getTodaysSessions(userId);
+        TodayFocusStatsDTO stats = sessionService.getTodayStats(userId);
 
-        return ResponseEntity.ok(
-                Map.of("totalMinutes", totalMinutes, "sessionsCompleted", sessions.size()));
+        return ResponseEntity.ok(stats);
     }
 
     @PutMapping("/{id}/notes")
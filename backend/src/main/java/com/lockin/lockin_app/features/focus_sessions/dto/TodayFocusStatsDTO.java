@@ -0,0 +1,24 @@
+package com.lockin.lockin_app.features.focus_sessions.dto;
+
+import com.lockin.lockin_app.features.focus_sessions.entity.SessionType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodayFocusStatsDTO {
+    private LocalDate date;
+
+    // WORK sessions only, same as the old /today response
+    private Integer totalMinutes;
+    private Integer sessionsCompleted;
+
+    private Map<SessionType, Integer> minutesByType;
+    private Map<SessionType, Integer> sessionsByType;
+}
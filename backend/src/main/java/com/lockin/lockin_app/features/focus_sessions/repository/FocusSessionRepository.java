@@ -68,4 +68,17 @@ public interface FocusSessionRepository extends JpaRepository<FocusSession, Long
             @Param("end") LocalDateTime end);
 
     long countByUserIdAndCompleted(Long userId, Boolean completed);
+
+    @Query(
+            "SELECT s.sessionType, COUNT(s), COALESCE(SUM(s.actualMinutes), 0) "
+                    + "FROM FocusSession s "
+                    + "WHERE s.user.id = :userId "
+                    + "AND s.completed = true "
+                    + "AND s.startedAt >= :startOfDay "
+                    + "AND s.startedAt < :endOfDay "
+                    + "GROUP BY s.sessionType")
+    List<Object[]> sumCompletedSessionsByType(
+            @Param("userId") Long userId,
+            @Param("startOfDay") LocalDateTime startOfDay,
+            @Param("endOfDay") LocalDateTime endOfDay);
 }
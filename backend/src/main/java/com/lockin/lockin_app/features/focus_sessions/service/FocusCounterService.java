@@ -0,0 +1,211 @@
+package com.lockin.lockin_app.features.focus_sessions.service;
+
+import com.lockin.lockin_app.features.focus_sessions.dto.TodayFocusStatsDTO;
+import com.lockin.lockin_app.features.focus_sessions.entity.FocusSession;
+import com.lockin.lockin_app.features.focus_sessions.entity.SessionType;
+import com.lockin.lockin_app.features.focus_sessions.repository.FocusSessionRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Keeps running per-user focus counters for the current day
+ *
+ * <p>Counters are seeded from a single aggregate query the first time a user is read on a given
+ * day, then kept up to date by completed sessions once their transaction commits. Sessions are
+ * bucketed by the day they started, same as the old query behind /api/sessions/today. Everything
+ * is dropped at midnight. An edit of a completed session drops the user's counters instead.
+ *
+ * <p>A completion is marked as pending while its transaction runs and bumps the user's generation
+ * when it commits. A seed only installs its counters if nothing is pending and the generation is
+ * still the one it saw before querying, so a seed never misses a commit and never counts one that
+ * is added to the counters as well.
+ *
+ * <p>Completions on other instances don't reach these counters. With several instances set
+ * {@code focus.counters.ttl-seconds}, seeds older than that are rebuilt.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FocusCounterService {
+
+    private static final SessionType[] SESSION_TYPES = SessionType.values();
+
+    private final FocusSessionRepository sessionRepository;
+
+    private final Map<Long, DailyCounters> counters = new ConcurrentHashMap<>();
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> pending = new ConcurrentHashMap<>();
+
+    // 0 keeps seeds until midnight
+    @Value("${focus.counters.ttl-seconds:0}")
+    private long ttlSeconds;
+
+    public TodayFocusStatsDTO getTodayStats(Long userId) {
+        return getOrSeed(userId, LocalDate.now()).toDTO();
+    }
+
+    public int getTotalFocusMinutesToday(Long userId) {
+        return getOrSeed(userId, LocalDate.now()).minutes(SessionType.WORK);
+    }
+
+    /** Adds a completed session to its owner's counters once the surrounding transaction commits */
+    public void recordCompletion(FocusSession session) {
+        Long userId = session.getUser().getId();
+        LocalDate day = session.getStartedAt().toLocalDate();
+        SessionType type = session.getSessionType();
+        int minutes = session.getActualMinutes() != null ? session.getActualMinutes() : 0;
+
+        // counters are only touched inside compute, which runs one at a time per user
+        counters.compute(userId, (id, existing) -> {
+            pending.merge(userId, 1, Integer::sum);
+            return existing;
+        });
+
+        onCompletion(committed -> counters.compute(userId, (id, existing) -> {
+            pending.computeIfPresent(userId, (ignored, count) -> count > 1 ? count - 1 : null);
+            if (committed) {
+                generations.merge(userId, 1L, Long::sum);
+                if (existing != null && existing.date.equals(day)) {
+                    existing.add(type, minutes);
+                }
+            }
+            return existing;
+        }));
+    }
+
+    /** Drops the user's counters so the next read rebuilds them, e.g. after minutes are edited */
+    public void evict(Long userId) {
+        onCompletion(committed -> {
+            if (committed) {
+                counters.compute(userId, (id, existing) -> {
+                    generations.merge(userId, 1L, Long::sum);
+                    return null;
+                });
+            }
+        });
+    }
+
+    @Scheduled(cron = "0 0 0 * * ?")
+    public void rollover() {
+        int size = counters.size();
+        counters.clear();
+
+        log.info("Rolled over today's focus counters for {} users", size);
+    }
+
+    private DailyCounters getOrSeed(Long userId, LocalDate today) {
+        DailyCounters current = counters.get(userId);
+        if (current != null && current.date.equals(today) && !expired(current)) {
+            return current;
+        }
+
+        long generation = generations.getOrDefault(userId, 0L);
+        DailyCounters seeded = seed(userId, today);
+
+        // a completion committing while seeding wins, this read still gets the seed
+        counters.compute(
+                userId,
+                (id, existing) ->
+                        !pending.containsKey(userId) && generations.getOrDefault(userId, 0L) == generation
+                                ? seeded
+                                : existing);
+
+        return seeded;
+    }
+
+    private boolean expired(DailyCounters current) {
+        return ttlSeconds > 0 && System.nanoTime() - current.seededAt >= TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    private DailyCounters seed(Long userId, LocalDate day) {
+        log.debug("Seeding focus counters for user {} on {}", userId, day);
+
+        LocalDateTime startOfDay = day.atStartOfDay();
+        List<Object[]> rows =
+                sessionRepository.sumCompletedSessionsByType(
+                        userId, startOfDay, startOfDay.plusDays(1));
+
+        DailyCounters seeded = new DailyCounters(day);
+        for (Object[] row : rows) {
+            SessionType type = (SessionType) row[0];
+            seeded.counts.set(type.ordinal(), ((Number) row[1]).intValue());
+            seeded.minutes.set(type.ordinal(), ((Number) row[2]).intValue());
+        }
+
+        return seeded;
+    }
+
+    /** Runs {@code action} with true once the surrounding transaction commits, false on rollback */
+    private void onCompletion(CompletionAction action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run(true);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        action.run(status == STATUS_COMMITTED);
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface CompletionAction {
+        void run(boolean committed);
+    }
+
+    private static final class DailyCounters {
+        private final LocalDate date;
+        private final long seededAt = System.nanoTime();
+        private final AtomicIntegerArray minutes = new AtomicIntegerArray(SESSION_TYPES.length);
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(SESSION_TYPES.length);
+
+        private DailyCounters(LocalDate date) {
+            this.date = date;
+        }
+
+        private void add(SessionType type, int sessionMinutes) {
+            counts.incrementAndGet(type.ordinal());
+            minutes.addAndGet(type.ordinal(), sessionMinutes);
+        }
+
+        private int minutes(SessionType type) {
+            return minutes.get(type.ordinal());
+        }
+
+        private TodayFocusStatsDTO toDTO() {
+            Map<SessionType, Integer> minutesByType = new EnumMap<>(SessionType.class);
+            Map<SessionType, Integer> sessionsByType = new EnumMap<>(SessionType.class);
+
+            for (SessionType type : SESSION_TYPES) {
+                minutesByType.put(type, minutes.get(type.ordinal()));
+                sessionsByType.put(type, counts.get(type.ordinal()));
+            }
+
+            return new TodayFocusStatsDTO(
+                    date,
+                    minutesByType.get(SessionType.WORK),
+                    sessionsByType.get(SessionType.WORK),
+                    minutesByType,
+                    sessionsByType);
+        }
+    }
+}
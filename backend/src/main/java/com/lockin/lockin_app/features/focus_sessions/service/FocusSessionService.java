@@ -2,6 +2,7 @@ package com.lockin.lockin_app.features.focus_sessions.service;
 
 import com.lockin.lockin_app.features.focus_sessions.dto.FocusSessionRequestDTO;
 import com.lockin.lockin_app.features.focus_sessions.dto.FocusSessionResponseDTO;
+import com.lockin.lockin_app.features.focus_sessions.dto.TodayFocusStatsDTO;
 import com.lockin.lockin_app.features.focus_sessions.entity.FocusSession;
 import com.lockin.lockin_app.features.focus_sessions.entity.SessionType;
 import com.lockin.lockin_app.features.tasks.entity.Task;
@@ -34,6 +35,7 @@ public class FocusSessionService {
     private final UserRepository userRepository;
     private final TaskRepository taskRepository;
     private final GoalService goalService;
+    private final FocusCounterService focusCounterService;
     private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
@@ -138,10 +140,18 @@ public class FocusSessionService {
         session.setCompleted(true);
 
         FocusSession updated = sessionRepository.save(session);
+        focusCounterService.recordCompletion(updated);
 
         log.debug(
                 "Publishing PomodoroCompletedEvent for session {} and user {}", sessionId, userId);
-        eventPublisher.publishEvent(new PomodoroCompletedEvent(this, userId, sessionId));
+        eventPublisher.publishEvent(
+                new PomodoroCompletedEvent(
+                        this,
+                        userId,
+                        sessionId,
+                        updated.getSessionType(),
+                        updated.getActualMinutes(),
+                        updated.getCompletedAt()));
 
         log.info("Completed session: {}", updated.getId());
 
@@ -170,6 +180,9 @@ public class FocusSessionService {
         session.setActualMinutes(actualMinutes);
 
         FocusSession updated = sessionRepository.save(session);
+        if (Boolean.TRUE.equals(updated.getCompleted())) {
+            focusCounterService.evict(userId);
+        }
         FocusSessionResponseDTO response = FocusSessionResponseDTO.fromEntity(updated);
 
         log.info("Updated session: {} with {} minutes", updated.getId(), actualMinutes);
@@ -191,16 +204,13 @@ public class FocusSessionService {
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
+    /** Served from the running counters, the database is only read to seed them */
     public Integer getTotalFocusMinutesToday(Long userId) {
-        LocalDateTime startOfDay = LocalDateTime.now().toLocalDate().atStartOfDay();
-        LocalDateTime endOfDay = startOfDay.plusDays(1);
-
-        List<FocusSession> todaySessions =
-                sessionRepository.findTodaysCompletedSessions(
-                        userId, SessionType.WORK, startOfDay, endOfDay);
+        return focusCounterService.getTotalFocusMinutesToday(userId);
+    }
 
-        return todaySessions.stream().mapToInt(FocusSession::getActualMinutes).sum();
+    public TodayFocusStatsDTO getTodayStats(Long userId) {
+        return focusCounterService.getTodayStats(userId);
     }
 
     @Transactional
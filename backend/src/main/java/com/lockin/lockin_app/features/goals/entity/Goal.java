@@ -39,6 +39,9 @@ public class Goal {
     private Integer currentPomodoros = 0;
     private Integer currentFocusMinutes = 0;
 
+    // set when the user entered progress by hand, reconciliation then leaves the goal alone
+    private Boolean progressManual = false;
+
     private Boolean completed = false;
     private LocalDate completedDate;
 
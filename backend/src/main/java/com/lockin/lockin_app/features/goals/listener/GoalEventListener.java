@@ -1,96 +1,98 @@
 package com.lockin.lockin_app.features.goals.listener;
 
-import com.lockin.lockin_app.event.GoalCompletedEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockin.lockin_app.event.DomainEventConsumer;
 import com.lockin.lockin_app.event.PomodoroCompletedEvent;
 import com.lockin.lockin_app.event.TaskCompletedEvent;
+import com.lockin.lockin_app.event.entity.DomainEventRecord;
 import com.lockin.lockin_app.features.focus_sessions.dto.FocusSessionResponseDTO;
-import com.lockin.lockin_app.features.focus_sessions.repository.FocusSessionRepository;
+import com.lockin.lockin_app.features.focus_sessions.entity.SessionType;
 import com.lockin.lockin_app.features.goals.service.GoalService;
-import com.lockin.lockin_app.features.tasks.repository.TaskRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.event.TransactionPhase;
-import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.Set;
 
+/**
+ * Applies task and pomodoro completions to goals
+ *
+ * <p>Runs on the event pipeline's workers, so completing a task or session no longer waits on goal
+ * updates. Everything needed comes from the event payload.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class GoalEventListener {
+public class GoalEventListener implements DomainEventConsumer {
 
     private final GoalService goalService;
-    private final FocusSessionRepository focusSessionRepository;
-    private final TaskRepository taskRepository;
+    private final ObjectMapper objectMapper;
 
-    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
-    public void onTaskCompleted(TaskCompletedEvent event) {
-        log.debug(
-                "TaskCompletedEvent received for user {} and task {}",
-                event.getUserId(),
-                event.getTaskId());
+    @Override
+    public String getName() {
+        return "GOALS";
+    }
+
+    @Override
+    public Set<String> getEventTypes() {
+        return Set.of(TaskCompletedEvent.TYPE, PomodoroCompletedEvent.TYPE);
+    }
 
-        Long userId = event.getUserId();
-        Long taskId = event.getTaskId();
+    @Override
+    public void handle(DomainEventRecord event) {
+        JsonNode payload = readPayload(event);
 
-        try {
-            // Fetch task completion time
-            taskRepository
-                    .findById(taskId)
-                    .ifPresent(
-                            task -> {
-                                LocalDateTime completionTime =
-                                        task.getCompletedAt() != null
-                                                ? task.getCompletedAt()
-                                                : LocalDateTime.now();
-                                goalService.updateGoalsFromTaskCompletion(userId, completionTime);
-                                log.info(
-                                        "Updated goals after task {} completion for user {}",
-                                        taskId,
-                                        userId);
-                            });
-        } catch (Exception e) {
-            log.error("Failed to update goals for task completion: {}", e.getMessage(), e);
+        switch (event.getEventType()) {
+            case TaskCompletedEvent.TYPE -> onTaskCompleted(event.getUserId(), payload);
+            case PomodoroCompletedEvent.TYPE -> onPomodoroCompleted(event.getUserId(), payload);
+            default -> log.warn("Unexpected event type for goals: {}", event.getEventType());
         }
     }
 
-    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
-    public void onPomodoroCompleted(PomodoroCompletedEvent event) {
-        log.debug(
-                "PomodoroCompletedEvent received for user {} and session {}",
-                event.getUserId(),
-                event.getSessionId());
+    private void onTaskCompleted(Long userId, JsonNode payload) {
+        LocalDateTime completionTime = readDateTime(payload, "completedAt");
 
-        Long userId = event.getUserId();
-        Long sessionId = event.getSessionId();
+        goalService.updateGoalsFromTaskCompletion(userId, completionTime);
+
+        log.info(
+                "Updated goals after task {} completion for user {}",
+                payload.path("taskId").asLong(),
+                userId);
+    }
 
+    private void onPomodoroCompleted(Long userId, JsonNode payload) {
+        FocusSessionResponseDTO session =
+                FocusSessionResponseDTO.builder()
+                        .id(payload.path("sessionId").asLong())
+                        .userId(userId)
+                        .sessionType(SessionType.valueOf(payload.path("sessionType").asText()))
+                        .actualMinutes(payload.path("actualMinutes").asInt())
+                        .completedAt(readDateTime(payload, "completedAt"))
+                        .completed(true)
+                        .build();
+
+        goalService.updateGoalsFromSession(userId, session);
+
+        log.info(
+                "Updated goals after session {} completion for user {}", session.getId(), userId);
+    }
+
+    private JsonNode readPayload(DomainEventRecord event) {
         try {
-            focusSessionRepository
-                    .findById(sessionId)
-                    .ifPresent(
-                            session -> {
-                                FocusSessionResponseDTO sessionDTO =
-                                        FocusSessionResponseDTO
-                                                .fromEntity(session);
-                                goalService.updateGoalsFromSession(userId, sessionDTO);
-                                log.info(
-                                        "Updated goals after session {} completion for user {}",
-                                        sessionId,
-                                        userId);
-                            });
-        } catch (Exception e) {
-            log.error("Failed to update goals for session completion: {}", e.getMessage(), e);
+            return objectMapper.readTree(event.getPayload());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid payload for event " + event.getId(), e);
         }
     }
 
-    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
-    public void onGoalCompleted(GoalCompletedEvent event) {
-        log.info(
-                "GoalCompletedEvent received for user {} and goal {}",
-                event.getUserId(),
-                event.getGoalId());
+    private LocalDateTime readDateTime(JsonNode payload, String field) {
+        JsonNode value = payload.get(field);
+        return value != null && !value.isNull() ? LocalDateTime.parse(value.asText()) : null;
     }
 }
@@ -6,8 +6,12 @@ import com.lockin.lockin_app.features.goals.entity.Goal.GoalType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,4 +26,157 @@ public interface GoalRepository extends JpaRepository<Goal, Long> {
     List<Goal> findByUserIdAndTypeOrderByCreatedAtDesc(Long userId, GoalType type);
 
     long countByUserIdAndCompleted(Long userId, Boolean completed);
+
+    /**
+     * Adds session progress to every active goal whose date range contains the session date
+     *
+     * <p>Runs as one atomic UPDATE, each counter is capped at its target. Goals that are already at
+     * every relevant target are not touched.
+     *
+     * @return ids of the goals that were updated
+     */
+    @Query(
+            value =
+                    "UPDATE goals SET "
+                            + "current_pomodoros = CASE "
+                            + "  WHEN :pomodoros > 0 AND target_pomodoros > 0 "
+                            + "  THEN LEAST(COALESCE(current_pomodoros, 0) + :pomodoros, target_pomodoros) "
+                            + "  ELSE current_pomodoros END, "
+                            + "current_focus_minutes = CASE "
+                            + "  WHEN :minutes > 0 AND target_focus_minutes > 0 "
+                            + "  THEN LEAST(COALESCE(current_focus_minutes, 0) + :minutes, target_focus_minutes) "
+                            + "  ELSE current_focus_minutes END, "
+                            + "updated_at = LOCALTIMESTAMP "
+                            + "WHERE user_id = :userId "
+                            + "AND completed = false "
+                            + "AND :date BETWEEN start_date AND end_date "
+                            + "AND ((:pomodoros > 0 AND target_pomodoros > 0 "
+                            + "      AND COALESCE(current_pomodoros, 0) < target_pomodoros) "
+                            + "  OR (:minutes > 0 AND target_focus_minutes > 0 "
+                            + "      AND COALESCE(current_focus_minutes, 0) < target_focus_minutes)) "
+                            + "RETURNING id",
+            nativeQuery = true)
+    List<Long> incrementSessionProgress(
+            @Param("userId") Long userId,
+            @Param("date") LocalDate date,
+            @Param("pomodoros") int pomodoros,
+            @Param("minutes") int minutes);
+
+    /**
+     * Adds one completed task to every active goal whose date range contains the completion date
+     *
+     * @return ids of the goals that were updated
+     */
+    @Query(
+            value =
+                    "UPDATE goals SET "
+                            + "current_tasks = LEAST(COALESCE(current_tasks, 0) + 1, target_tasks), "
+                            + "updated_at = LOCALTIMESTAMP "
+                            + "WHERE user_id = :userId "
+                            + "AND completed = false "
+                            + "AND :date BETWEEN start_date AND end_date "
+                            + "AND target_tasks > 0 "
+                            + "AND COALESCE(current_tasks, 0) < target_tasks "
+                            + "RETURNING id",
+            nativeQuery = true)
+    List<Long> incrementTaskProgress(@Param("userId") Long userId, @Param("date") LocalDate date);
+
+    /**
+     * Marks the given goals completed if every target they set has been reached
+     *
+     * <p>The completed = false guard means only the transaction that actually crosses 100% gets a
+     * goal back.
+     *
+     * @return [goal id, user id] rows for the goals that just became completed
+     */
+    @Query(
+            value =
+                    "UPDATE goals SET completed = true, completed_date = :today, "
+                            + "updated_at = LOCALTIMESTAMP "
+                            + "WHERE id IN (:goalIds) "
+                            + "AND completed = false "
+                            + "AND (target_tasks > 0 OR target_pomodoros > 0 OR target_focus_minutes > 0) "
+                            + "AND (COALESCE(target_tasks, 0) <= 0 "
+                            + "  OR COALESCE(current_tasks, 0) >= target_tasks) "
+                            + "AND (COALESCE(target_pomodoros, 0) <= 0 "
+                            + "  OR COALESCE(current_pomodoros, 0) >= target_pomodoros) "
+                            + "AND (COALESCE(target_focus_minutes, 0) <= 0 "
+                            + "  OR COALESCE(current_focus_minutes, 0) >= target_focus_minutes) "
+                            + "RETURNING id, user_id",
+            nativeQuery = true)
+    List<Object[]> markCompletedIfTargetsMet(
+            @Param("goalIds") Collection<Long> goalIds, @Param("today") LocalDate today);
+
+    /**
+     * Recomputes progress of the given active goals from completed tasks and focus sessions
+     *
+     * <p>Counts come from two grouped queries across all the goals at once and are applied in a
+     * single UPDATE. Counters are capped at their target, rows already in sync are left alone.
+     * Goals whose progress was set by hand are skipped.
+     *
+     * @return ids of the goals whose progress had drifted and was corrected
+     */
+    @Query(
+            value =
+                    "WITH target AS ("
+                            + "  SELECT id, user_id, start_date, end_date FROM goals "
+                            + "  WHERE id IN (:goalIds) AND completed = false "
+                            + "  AND progress_manual IS NOT TRUE "
+                            + "  AND start_date IS NOT NULL AND end_date IS NOT NULL"
+                            + "), task_totals AS ("
+                            + "  SELECT g.id AS goal_id, COUNT(t.id) AS tasks "
+                            + "  FROM target g JOIN tasks t ON t.user_id = g.user_id "
+                            + "  WHERE t.status = 'COMPLETED' "
+                            + "  AND t.completed_at >= g.start_date AND t.completed_at < g.end_date + 1 "
+                            + "  GROUP BY g.id"
+                            + "), session_totals AS ("
+                            + "  SELECT g.id AS goal_id, "
+                            + "    COUNT(s.id) FILTER (WHERE s.session_type = 'WORK') AS pomodoros, "
+                            + "    COALESCE(SUM(s.actual_minutes), 0) AS minutes "
+                            + "  FROM target g JOIN focus_sessions s ON s.user_id = g.user_id "
+                            + "  WHERE s.completed = true "
+                            + "  AND s.completed_at >= g.start_date AND s.completed_at < g.end_date + 1 "
+                            + "  GROUP BY g.id"
+                            + "), progress AS ("
+                            + "  SELECT g.id, "
+                            + "    COALESCE(tt.tasks, 0) AS tasks, "
+                            + "    COALESCE(st.pomodoros, 0) AS pomodoros, "
+                            + "    COALESCE(st.minutes, 0) AS minutes "
+                            + "  FROM target g "
+                            + "  LEFT JOIN task_totals tt ON tt.goal_id = g.id "
+                            + "  LEFT JOIN session_totals st ON st.goal_id = g.id"
+                            + "), computed AS ("
+                            + "  SELECT g.id, "
+                            + "    CASE WHEN g.target_tasks > 0 "
+                            + "      THEN LEAST(p.tasks, g.target_tasks) ELSE g.current_tasks END AS tasks, "
+                            + "    CASE WHEN g.target_pomodoros > 0 "
+                            + "      THEN LEAST(p.pomodoros, g.target_pomodoros) ELSE g.current_pomodoros END AS pomodoros, "
+                            + "    CASE WHEN g.target_focus_minutes > 0 "
+                            + "      THEN LEAST(p.minutes, g.target_focus_minutes) ELSE g.current_focus_minutes END AS minutes "
+                            + "  FROM goals g JOIN progress p ON p.id = g.id"
+                            + ") "
+                            + "UPDATE goals g SET "
+                            + "current_tasks = c.tasks, "
+                            + "current_pomodoros = c.pomodoros, "
+                            + "current_focus_minutes = c.minutes, "
+                            + "updated_at = LOCALTIMESTAMP "
+                            + "FROM computed c "
+                            + "WHERE g.id = c.id "
+                            + "AND (g.current_tasks IS DISTINCT FROM c.tasks "
+                            + "  OR g.current_pomodoros IS DISTINCT FROM c.pomodoros "
+                            + "  OR g.current_focus_minutes IS DISTINCT FROM c.minutes) "
+                            + "RETURNING g.id",
+            nativeQuery = true)
+    List<Long> recomputeProgress(@Param("goalIds") Collection<Long> goalIds);
+
+    /** Keyset page of goals that are still running or ended no earlier than the given date */
+    @Query(
+            "SELECT g.id FROM Goal g WHERE g.completed = false "
+                    + "AND g.endDate >= :endedSince "
+                    + "AND g.id > :afterId "
+                    + "ORDER BY g.id")
+    List<Long> findActiveGoalIdsAfter(
+            @Param("endedSince") LocalDate endedSince,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
 }
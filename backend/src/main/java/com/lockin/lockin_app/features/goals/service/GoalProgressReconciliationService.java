@@ -0,0 +1,96 @@
+package com.lockin.lockin_app.features.goals.service;
+
+import com.lockin.lockin_app.event.GoalCompletedEvent;
+import com.lockin.lockin_app.features.goals.entity.Goal;
+import com.lockin.lockin_app.features.goals.repository.GoalRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Recomputes goal progress from completed tasks and focus sessions
+ *
+ * <p>Event driven increments only ever move forward, so goals created with a start date in the
+ * past start at zero and any missed event drifts forever. This rebuilds the counters from source
+ * data with grouped queries over many goals at once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GoalProgressReconciliationService {
+
+    private final GoalRepository goalRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext private EntityManager entityManager;
+
+    /**
+     * Reconciles a batch of goals and completes any that reached their targets
+     *
+     * @return number of goals whose progress was corrected
+     */
+    @Transactional
+    public int reconcile(Collection<Long> goalIds) {
+        if (goalIds.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> corrected = goalRepository.recomputeProgress(goalIds);
+
+        if (!corrected.isEmpty()) {
+            log.debug("Corrected progress of {} of {} goals", corrected.size(), goalIds.size());
+            publishCompleted(corrected);
+        }
+
+        return corrected.size();
+    }
+
+    /**
+     * Reconciles a single goal that is managed in the current persistence context
+     *
+     * <p>Used on goal creation and date edits, the entity is refreshed so callers see the
+     * recomputed values.
+     */
+    @Transactional
+    public void reconcile(Goal goal) {
+        goalRepository.flush();
+
+        reconcile(List.of(goal.getId()));
+
+        entityManager.refresh(goal);
+    }
+
+    /**
+     * Marks goals that reached every target as completed and publishes one event per goal
+     *
+     * <p>Only goals that actually crossed 100% in this transaction are returned by the update, so
+     * events are never published twice.
+     */
+    @Transactional
+    public void publishCompleted(Collection<Long> goalIds) {
+        if (goalIds.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> completed = goalRepository.markCompletedIfTargetsMet(goalIds, LocalDate.now());
+
+        for (Object[] row : completed) {
+            Long goalId = ((Number) row[0]).longValue();
+            Long userId = ((Number) row[1]).longValue();
+
+            log.debug("Publishing GoalCompletedEvent for goal {} and user {}", goalId, userId);
+            eventPublisher.publishEvent(new GoalCompletedEvent(this, userId, goalId));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.lockin.lockin_app.features.goals.service;
 
 import com.lockin.lockin_app.features.focus_sessions.dto.FocusSessionResponseDTO;
+import com.lockin.lockin_app.features.focus_sessions.entity.SessionType;
 import com.lockin.lockin_app.features.goals.dto.GoalRequestDTO;
 import com.lockin.lockin_app.features.goals.dto.GoalResponseDTO;
 import com.lockin.lockin_app.features.goals.entity.Goal;
@@ -30,6 +31,7 @@ public class GoalService {
 
     private final GoalRepository goalRepository;
     private final UserService userService;
+    private final GoalProgressReconciliationService reconciliationService;
     private final ApplicationEventPublisher eventPublisher;
 
     /**
@@ -61,14 +63,26 @@ public class GoalService {
         Goal goal = new Goal();
         goal.setUser(user);
         updateGoalFromRequest(goal, request);
+        goal.setProgressManual(setsProgress(request));
 
         Goal saved = goalRepository.save(goal);
 
+        // backfill progress made since the start date
+        if (saved.getStartDate() != null && saved.getEndDate() != null && !saved.getProgressManual()) {
+            reconciliationService.reconcile(saved);
+        }
+
         log.info("Created goal: {}", saved.getId());
 
         return GoalResponseDTO.fromEntity(saved);
     }
 
+    private boolean setsProgress(GoalRequestDTO request) {
+        return request.getCurrentTasks() != null
+                || request.getCurrentPomodoros() != null
+                || request.getCurrentFocusMinutes() != null;
+    }
+
     private void updateGoalFromRequest(Goal goal, GoalRequestDTO request) {
         if (request.getTitle() != null) {
             goal.setTitle(request.getTitle());
@@ -141,7 +155,8 @@ public class GoalService {
     /**
      * Updates an existing goal
      *
-     * <p>Automatically marks goal as complete when progress reaches 100%
+     * <p>Automatically marks goal as complete when progress reaches 100%. Progress is recomputed
+     * from completed tasks and sessions when the date range changes.
      *
      * @throws ResourceNotFoundException if goal doesn't exist
      * @throws UnauthorizedException if user doesn't own goal
@@ -164,12 +179,31 @@ public class GoalService {
             }
         }
 
+        boolean rangeChanged =
+                (request.getStartDate() != null
+                                && !request.getStartDate().equals(goal.getStartDate()))
+                        || (request.getEndDate() != null
+                                && !request.getEndDate().equals(goal.getEndDate()));
+        boolean progressSetManually = setsProgress(request);
+
         updateGoalFromRequest(goal, request);
 
+        // manual progress sticks until a new date range asks for it to be recomputed
+        if (progressSetManually) {
+            goal.setProgressManual(true);
+        } else if (rangeChanged) {
+            goal.setProgressManual(false);
+        }
+
         checkAndMarkComplete(goal);
 
         Goal updated = goalRepository.save(goal);
 
+        // progress depends on the date range, recompute it unless the caller set it explicitly
+        if (rangeChanged && !progressSetManually && !updated.getCompleted()) {
+            reconciliationService.reconcile(updated);
+        }
+
         log.info("Updated goal: {}", updated.getId());
 
         return GoalResponseDTO.fromEntity(updated);
@@ -206,130 +240,57 @@ public class GoalService {
         }
     }
 
+    /**
+     * Applies a completed session to the user's active goals
+     *
+     * <p>Progress is added with a single atomic UPDATE instead of loading and saving each goal, so
+     * concurrent completions can't overwrite each other.
+     */
     @Transactional
     public void updateGoalsFromSession(Long userId, FocusSessionResponseDTO session) {
         log.debug("Updating goals for user {} after session completion", userId);
 
-        List<Goal> activeGoals =
-                goalRepository.findByUserIdAndCompletedOrderByCreatedAtDesc(userId, false);
-
-        if (activeGoals.isEmpty()) {
-            log.debug("No active goals to update for user {}", userId);
-            return;
-        }
-
         LocalDate sessionDate =
                 session.getCompletedAt() != null
                         ? session.getCompletedAt().toLocalDate()
                         : LocalDate.now();
 
-        for (Goal goal : activeGoals) {
-            if (Boolean.TRUE.equals(goal.getCompleted())) {
-                log.debug("Skipping completed goal {}", goal.getId());
-                continue;
-            }
-
-            if (sessionDate.isBefore(goal.getStartDate())
-                    || sessionDate.isAfter(goal.getEndDate())) {
-                log.debug("⏭Session outside date range for goal {}", goal.getId());
-                continue;
-            }
+        int pomodoros =
+                session.getSessionType() == SessionType.WORK
+                                && Boolean.TRUE.equals(session.getCompleted())
+                        ? 1
+                        : 0;
+        int minutes =
+                session.getActualMinutes() != null && session.getActualMinutes() > 0
+                        ? session.getActualMinutes()
+                        : 0;
+
+        if (pomodoros == 0 && minutes == 0) {
+            log.debug("Session for user {} carries no goal progress", userId);
+            return;
+        }
 
-            boolean updated = false;
-
-            if ("WORK".equals(session.getSessionType().name())
-                    && Boolean.TRUE.equals(session.getCompleted())
-                    && goal.getTargetPomodoros() != null
-                    && goal.getTargetPomodoros() > 0) {
-
-                if (goal.getCurrentPomodoros() < goal.getTargetPomodoros()) {
-                    goal.setCurrentPomodoros(goal.getCurrentPomodoros() + 1);
-                    updated = true;
-                } else {
-                    log.debug(
-                            "Goal {} already at pomodoro target ({}/{})",
-                            goal.getId(),
-                            goal.getCurrentPomodoros(),
-                            goal.getTargetPomodoros());
-                }
-            }
+        List<Long> updatedGoalIds =
+                goalRepository.incrementSessionProgress(userId, sessionDate, pomodoros, minutes);
 
-            if (session.getActualMinutes() != null
-                    && session.getActualMinutes() > 0
-                    && goal.getTargetFocusMinutes() != null
-                    && goal.getTargetFocusMinutes() > 0) {
-
-                if (goal.getCurrentFocusMinutes() < goal.getTargetFocusMinutes()) {
-                    int newMinutes = goal.getCurrentFocusMinutes() + session.getActualMinutes();
-
-                    goal.setCurrentFocusMinutes(Math.min(newMinutes, goal.getTargetFocusMinutes()));
-                    updated = true;
-                } else {
-                    log.debug(
-                            "Goal {} already at focus minutes target ({}/{})",
-                            goal.getId(),
-                            goal.getCurrentFocusMinutes(),
-                            goal.getTargetFocusMinutes());
-                }
-            }
+        log.debug("Session progress applied to {} goals for user {}", updatedGoalIds.size(), userId);
 
-            if (updated) {
-                checkAndMarkComplete(goal);
-                goalRepository.save(goal);
-            }
-        }
+        reconciliationService.publishCompleted(updatedGoalIds);
     }
 
+    /** Applies a completed task to the user's active goals in a single atomic UPDATE */
     @Transactional
     public void updateGoalsFromTaskCompletion(Long userId, LocalDateTime taskCompletedAt) {
         log.debug("Updating goals for user {} after task completion", userId);
 
-        List<Goal> activeGoals =
-                goalRepository.findByUserIdAndCompletedOrderByCreatedAtDesc(userId, false);
-
-        if (activeGoals.isEmpty()) {
-            log.debug("No active goals to update for user {}", userId);
-            return;
-        }
-
         LocalDate completionDate =
                 taskCompletedAt != null ? taskCompletedAt.toLocalDate() : LocalDate.now();
 
-        for (Goal goal : activeGoals) {
-            if (Boolean.TRUE.equals(goal.getCompleted())) {
-                log.debug("Skipping completed goal {}", goal.getId());
-                continue;
-            }
-
-            if (completionDate.isBefore(goal.getStartDate())
-                    || completionDate.isAfter(goal.getEndDate())) {
-                log.debug("Task completion outside date range for goal {}", goal.getId());
-                continue;
-            }
-
-            if (goal.getTargetTasks() != null && goal.getTargetTasks() > 0) {
+        List<Long> updatedGoalIds = goalRepository.incrementTaskProgress(userId, completionDate);
 
-                if (goal.getCurrentTasks() < goal.getTargetTasks()) {
-                    goal.setCurrentTasks(goal.getCurrentTasks() + 1);
+        log.debug("Task progress applied to {} goals for user {}", updatedGoalIds.size(), userId);
 
-                    log.debug(
-                            "Incremented tasks for goal {}: {}/{}",
-                            goal.getId(),
-                            goal.getCurrentTasks(),
-                            goal.getTargetTasks());
-
-                    checkAndMarkComplete(goal);
-                    goalRepository.save(goal);
-
-                } else {
-                    log.debug(
-                            "Goal {} already at task target ({}/{})",
-                            goal.getId(),
-                            goal.getCurrentTasks(),
-                            goal.getTargetTasks());
-                }
-            }
-        }
+        reconciliationService.publishCompleted(updatedGoalIds);
     }
 
     /**
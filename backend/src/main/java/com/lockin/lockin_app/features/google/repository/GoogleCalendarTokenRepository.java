@@ -3,7 +3,13 @@ package com.lockin.lockin_app.features.google.repository;
 import com.lockin.lockin_app.features.google.entity.GoogleCalendarToken;
 import com.lockin.lockin_app.features.users.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface GoogleCalendarTokenRepository extends JpaRepository<GoogleCalendarToken, Long> {
@@ -13,4 +19,13 @@ public interface GoogleCalendarTokenRepository extends JpaRepository<GoogleCalen
     boolean existsByUser(User user);
 
     void deleteByUser(User user);
+
+    @Query("SELECT t FROM GoogleCalendarToken t JOIN FETCH t.user WHERE t.isActive = true")
+    List<GoogleCalendarToken> findActiveWithUser();
+
+    // only the sync time, a reconnect during the sync must not be overwritten with the old tokens
+    @Modifying
+    @Transactional
+    @Query("UPDATE GoogleCalendarToken t SET t.lastSyncAt = :syncedAt WHERE t.id = :id")
+    int updateLastSyncAt(@Param("id") Long id, @Param("syncedAt") ZonedDateTime syncedAt);
 }
\ No newline at end of file
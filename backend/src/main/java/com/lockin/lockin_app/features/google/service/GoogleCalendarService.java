@@ -27,6 +27,7 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -201,86 +202,103 @@ public class GoogleCalendarService {
         return tasks;
     }
 
-    @Transactional
+    /**
+     * Imports open Google Tasks due within the next 30 days
+     *
+     * <p>All Google calls happen before anything is written and outside a transaction, so no
+     * database connection is held while waiting on Google. Each new task is then saved on its own.
+     */
     public int syncCalendarToTasks(User user) {
         log.info("Syncing Google Tasks to Lockin for user {}", user.getId());
 
+        List<com.google.api.services.tasks.model.Task> dueTasks;
         try {
-            com.google.api.services.tasks.Tasks tasksClient = buildTasksClient(user);
-            int created = 0;
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime thirtyDaysFromNow = now.plusDays(30);
+            dueTasks = fetchDueGoogleTasks(user);
+        } catch (Exception e) {
+            log.error("Failed to sync Google Tasks", e);
+            throw new RuntimeException("Google Tasks sync failed: " + e.getMessage(), e);
+        }
 
-            TaskLists taskLists = tasksClient.tasklists().list().execute();
+        int created = 0;
 
-            if (taskLists.getItems() == null) {
-                log.info("No task lists found");
-                return 0;
+        for (com.google.api.services.tasks.model.Task googleTask : dueTasks) {
+            if (taskRepository.existsByGoogleEventId(googleTask.getId())) {
+                log.debug("Task already exists: {}", googleTask.getTitle());
+                continue;
             }
 
-            for (TaskList taskList : taskLists.getItems()) {
-                log.info("Processing task list: {}", taskList.getTitle());
+            Task task = createTaskFromGoogleTask(googleTask, user);
+            try {
+                taskRepository.save(task);
+                created++;
+                log.info("Created task from Google Task: {}", googleTask.getTitle());
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Task {} already exists (caught by constraint)", googleTask.getId());
+            }
+        }
+
+        log.info("Imported {} tasks from Google Tasks", created);
+        return created;
+    }
+
+    private List<com.google.api.services.tasks.model.Task> fetchDueGoogleTasks(User user) throws Exception {
+        com.google.api.services.tasks.Tasks tasksClient = buildTasksClient(user);
+        List<com.google.api.services.tasks.model.Task> dueTasks = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime thirtyDaysFromNow = now.plusDays(30);
+
+        TaskLists taskLists = tasksClient.tasklists().list().execute();
+
+        if (taskLists.getItems() == null) {
+            log.info("No task lists found");
+            return dueTasks;
+        }
+
+        for (TaskList taskList : taskLists.getItems()) {
+            log.info("Processing task list: {}", taskList.getTitle());
 
-                com.google.api.services.tasks.model.Tasks googleTasks = tasksClient.tasks()
-                                                                                   .list(taskList.getId())
-                                                                                   .setShowCompleted(false)
-                                                                                   .setShowHidden(false)
-                                                                                   .execute();
+            com.google.api.services.tasks.model.Tasks googleTasks = tasksClient.tasks()
+                                                                               .list(taskList.getId())
+                                                                               .setShowCompleted(false)
+                                                                               .setShowHidden(false)
+                                                                               .execute();
 
-                if (googleTasks.getItems() == null) {
+            if (googleTasks.getItems() == null) {
+                continue;
+            }
+
+            for (com.google.api.services.tasks.model.Task googleTask : googleTasks.getItems()) {
+                if (googleTask.getDue() == null) {
+                    log.debug("Skipping task without due date: {}", googleTask.getTitle());
                     continue;
                 }
 
-                for (com.google.api.services.tasks.model.Task googleTask : googleTasks.getItems()) {
-                    if (googleTask.getDue() == null) {
-                        log.debug("Skipping task without due date: {}", googleTask.getTitle());
-                        continue;
-                    }
-
-                    try {
-                        long millis = DateTime.parseRfc3339(googleTask.getDue().toString()).getValue();
-                        LocalDateTime dueDate = LocalDateTime.ofInstant(
-                                Instant.ofEpochMilli(millis),
-                                ZoneId.systemDefault()
-                        );
-
-                        if (dueDate.isBefore(now)) {
-                            log.debug("Skipping past task: {}", googleTask.getTitle());
-                            continue;
-                        }
-
-                        if (dueDate.isAfter(thirtyDaysFromNow)) {
-                            log.debug("Skipping task too far in future: {}", googleTask.getTitle());
-                            continue;
-                        }
-                    } catch (Exception e) {
-                        log.warn("Failed to parse due date for task: {}", googleTask.getTitle());
+                try {
+                    long millis = DateTime.parseRfc3339(googleTask.getDue().toString()).getValue();
+                    LocalDateTime dueDate = LocalDateTime.ofInstant(
+                            Instant.ofEpochMilli(millis),
+                            ZoneId.systemDefault()
+                    );
+
+                    if (dueDate.isBefore(now)) {
+                        log.debug("Skipping past task: {}", googleTask.getTitle());
                         continue;
                     }
 
-                    if (taskRepository.existsByGoogleEventId(googleTask.getId())) {
-                        log.debug("Task already exists: {}", googleTask.getTitle());
+                    if (dueDate.isAfter(thirtyDaysFromNow)) {
+                        log.debug("Skipping task too far in future: {}", googleTask.getTitle());
                         continue;
                     }
-
-                    Task task = createTaskFromGoogleTask(googleTask, user);
-                    try {
-                        taskRepository.save(task);
-                        created++;
-                        log.info("Created task from Google Task: {}", googleTask.getTitle());
-                    } catch (DataIntegrityViolationException e) {
-                        log.debug("Task {} already exists (caught by constraint)", googleTask.getId());
-                    }
+                } catch (Exception e) {
+                    log.warn("Failed to parse due date for task: {}", googleTask.getTitle());
+                    continue;
                 }
-            }
 
-            log.info("Imported {} tasks from Google Tasks", created);
-            return created;
-
-        } catch (Exception e) {
-            log.error("Failed to sync Google Tasks", e);
-            throw new RuntimeException("Google Tasks sync failed: " + e.getMessage(), e);
+                dueTasks.add(googleTask);
+            }
         }
+
+        return dueTasks;
     }
 
     private Task createTaskFromGoogleTask(com.google.api.services.tasks.model.Task googleTask, User user) {
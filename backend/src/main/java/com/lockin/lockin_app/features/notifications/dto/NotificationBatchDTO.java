@@ -0,0 +1,22 @@
+package com.lockin.lockin_app.features.notifications.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One real-time frame, droppedCount tells the client to refetch what didn't fit
+ *
+ * <p>unreadCount is the latest unread total when it changed, otherwise null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationBatchDTO {
+
+    private List<NotificationDTO> notifications;
+    private Integer droppedCount;
+    private Long unreadCount;
+}
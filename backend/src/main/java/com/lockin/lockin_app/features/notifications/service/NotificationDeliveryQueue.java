@@ -0,0 +1,195 @@
+package com.lockin.lockin_app.features.notifications.service;
+
+import com.lockin.lockin_app.config.NotificationDeliveryConfig;
+import com.lockin.lockin_app.features.notifications.dto.NotificationBatchDTO;
+import com.lockin.lockin_app.features.notifications.dto.NotificationDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-user outbound queue for real-time notifications
+ *
+ * <p>The first notification for a user starts a short window. Everything queued for that user
+ * before the window closes is sent as one frame. Each queue is bounded: when a user's
+ * notifications pile up, the oldest ones are dropped from the push and the frame reports how many
+ * were dropped. The notifications are still stored and the client can fetch them.
+ *
+ * <p>Unread count changes ride along in the same frames, only the latest count is sent.
+ */
+@Slf4j
+@Component
+public class NotificationDeliveryQueue {
+
+    private static final String DESTINATION = "/queue/notifications";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationDeliveryConfig config;
+    private final ScheduledExecutorService sender;
+
+    private final Map<String, UserQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final Timer deliveryLatency;
+    private final DistributionSummary batchSize;
+    private final Counter dropped;
+    private final Counter failed;
+
+    public NotificationDeliveryQueue(
+            SimpMessagingTemplate messagingTemplate,
+            NotificationDeliveryConfig config,
+            MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.config = config;
+        this.sender =
+                Executors.newScheduledThreadPool(
+                        config.getSenderThreads(),
+                        Thread.ofPlatform().name("notification-sender-", 0).daemon().factory());
+
+        meterRegistry.gauge("lockin.notifications.queue.depth", depth);
+        meterRegistry.gauge("lockin.notifications.queue.users", queues, Map::size);
+        this.deliveryLatency = meterRegistry.timer("lockin.notifications.delivery.latency");
+        this.batchSize = meterRegistry.summary("lockin.notifications.batch.size");
+        this.dropped = meterRegistry.counter("lockin.notifications.dropped");
+        this.failed = meterRegistry.counter("lockin.notifications.failed");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+    }
+
+    /** Queues a notification for the user's next frame, never blocks the caller */
+    public void enqueue(String userEmail, NotificationDTO notification) {
+        UserQueue queue = queues.computeIfAbsent(userEmail, UserQueue::new);
+
+        boolean schedule;
+        synchronized (queue) {
+            if (queue.items.size() >= config.getCapacityPerUser()) {
+                queue.items.pollFirst();
+                queue.dropped++;
+                depth.decrementAndGet();
+                dropped.increment();
+            }
+
+            queue.items.addLast(new Pending(notification, System.nanoTime()));
+            depth.incrementAndGet();
+
+            schedule = !queue.scheduled;
+            queue.scheduled = true;
+        }
+
+        if (schedule) {
+            scheduleFlush(queue);
+        }
+    }
+
+    /** Sends the user's new unread count with their next frame, replacing any pending count */
+    public void updateUnreadCount(String userEmail, long unreadCount) {
+        UserQueue queue = queues.computeIfAbsent(userEmail, UserQueue::new);
+
+        boolean schedule;
+        synchronized (queue) {
+            queue.unreadCount = unreadCount;
+
+            schedule = !queue.scheduled;
+            queue.scheduled = true;
+        }
+
+        if (schedule) {
+            scheduleFlush(queue);
+        }
+    }
+
+    private void scheduleFlush(UserQueue queue) {
+        sender.schedule(() -> flush(queue), config.getCoalesceWindowMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private void flush(UserQueue queue) {
+        List<Pending> batch;
+        int droppedCount;
+        Long unreadCount;
+
+        synchronized (queue) {
+            batch = new ArrayList<>(queue.items);
+            droppedCount = queue.dropped;
+            unreadCount = queue.unreadCount;
+
+            queue.items.clear();
+            queue.dropped = 0;
+            queue.unreadCount = null;
+            queue.scheduled = false;
+            depth.addAndGet(-batch.size());
+
+            // a concurrent enqueue that still holds this queue schedules its own flush
+            queues.remove(queue.userEmail, queue);
+        }
+
+        if (batch.isEmpty() && unreadCount == null) {
+            return;
+        }
+
+        try {
+            messagingTemplate.convertAndSendToUser(
+                    queue.userEmail,
+                    DESTINATION,
+                    new NotificationBatchDTO(
+                            batch.stream().map(Pending::notification).toList(),
+                            droppedCount,
+                            unreadCount));
+
+            long now = System.nanoTime();
+            batch.forEach(
+                    pending ->
+                            deliveryLatency.record(
+                                    now - pending.enqueuedAt(), TimeUnit.NANOSECONDS));
+            batchSize.record(batch.size());
+
+            log.debug(
+                    "Sent {} notifications to user {} ({} dropped)",
+                    batch.size(),
+                    queue.userEmail,
+                    droppedCount);
+        } catch (Exception e) {
+            failed.increment(Math.max(batch.size(), 1));
+            log.error(
+                    "Failed to send real-time notifications to {}: {}",
+                    queue.userEmail,
+                    e.getMessage());
+        }
+    }
+
+    private record Pending(NotificationDTO notification, long enqueuedAt) {}
+
+    private static final class UserQueue {
+        private final String userEmail;
+        private final Deque<Pending> items = new ArrayDeque<>();
+        private int dropped;
+        private Long unreadCount;
+        private boolean scheduled;
+
+        private UserQueue(String userEmail) {
+            this.userEmail = userEmail;
+        }
+    }
+}
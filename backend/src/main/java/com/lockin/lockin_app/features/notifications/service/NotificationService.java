@@ -4,6 +4,7 @@ import com.lockin.lockin_app.features.notifications.dto.NotificationDTO;
 import com.lockin.lockin_app.features.notifications.entity.Notification;
 import com.lockin.lockin_app.features.notifications.repository.NotificationRepository;
 import com.lockin.lockin_app.features.users.entity.User;
+import com.lockin.lockin_app.features.users.service.UserService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,9 +12,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,7 +26,9 @@ import java.util.List;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationDeliveryQueue deliveryQueue;
+    private final UnreadNotificationCounter unreadCounter;
+    private final UserService userService;
 
     @Transactional
     public Notification createNotification(
@@ -47,24 +51,31 @@ public class NotificationService {
         notification = notificationRepository.save(notification);
 
         sendRealTimeNotification(user.getEmail(), notification);
+        unreadCounter.adjust(user.getId(), user.getEmail(), 1);
 
         return notification;
     }
 
+    /**
+     * Hands the notification to the user's outbound queue once it is committed, so the client
+     * never receives a notification it can't fetch yet
+     */
     private void sendRealTimeNotification(String userEmail, Notification notification) {
-        try {
-            NotificationDTO dto = NotificationDTO.fromEntity(notification);
-            messagingTemplate.convertAndSendToUser(
-                    userEmail,
-                    "/queue/notifications",
-                    dto
-            );
-            log.debug("Sent real-time notification to user: {}", userEmail);
-        } catch (Exception e) {
-            log.error("Failed to send real-time notification to {}: {}", userEmail, e.getMessage());
+        NotificationDTO dto = NotificationDTO.fromEntity(notification);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deliveryQueue.enqueue(userEmail, dto);
+            return;
         }
-    }
 
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        deliveryQueue.enqueue(userEmail, dto);
+                    }
+                });
+    }
 
     @Transactional(readOnly = true)
     public Page<NotificationDTO> getNotifications(Long userId, int page, int size) {
@@ -98,9 +109,8 @@ public class NotificationService {
                 .toList();
     }
 
-    @Transactional(readOnly = true)
     public long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        return unreadCounter.get(userId);
     }
 
     @Transactional
@@ -109,10 +119,14 @@ public class NotificationService {
 
         notificationRepository.findById(notificationId)
                               .ifPresent(notification -> {
-                                  if (notification.getUser().getId().equals(userId)) {
+                                  if (notification.getUser().getId().equals(userId)
+                                          && !Boolean.TRUE.equals(notification.getIsRead())) {
                                       notification.setIsRead(true);
                                       notification.setReadAt(LocalDateTime.now());
                                       notificationRepository.save(notification);
+
+                                      unreadCounter.adjust(
+                                              userId, notification.getUser().getEmail(), -1);
                                   }
                               });
     }
@@ -121,6 +135,12 @@ public class NotificationService {
     public int markAllAsRead(Long userId) {
         log.info("Marking all notifications as read for user {}", userId);
 
-        return notificationRepository.markAllAsReadByUserId(userId);
+        int updated = notificationRepository.markAllAsReadByUserId(userId);
+
+        if (updated > 0) {
+            unreadCounter.adjust(userId, userService.getUserById(userId).getEmail(), -updated);
+        }
+
+        return updated;
     }
 }
@@ -0,0 +1,96 @@
+package com.lockin.lockin_app.features.notifications.service;
+
+import com.lockin.lockin_app.features.notifications.repository.NotificationRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cached per-user unread notification counts
+ *
+ * <p>Counts are seeded from the database on a cache miss and adjusted once the transaction that
+ * changed them commits, then pushed to the user. The cache is per node and only sees changes made
+ * on it, so entries expire after notifications.unread-count.ttl-seconds. A count that is stale
+ * because another node changed it, or that drifted through a race with seeding, is rebuilt from
+ * the database within that time.
+ */
+@Slf4j
+@Service
+public class UnreadNotificationCounter {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationDeliveryQueue deliveryQueue;
+    private final Cache cache;
+
+    public UnreadNotificationCounter(
+            NotificationRepository notificationRepository,
+            NotificationDeliveryQueue deliveryQueue,
+            CacheManager cacheManager) {
+        this.notificationRepository = notificationRepository;
+        this.deliveryQueue = deliveryQueue;
+        this.cache = cacheManager.getCache("unreadNotificationCounts");
+    }
+
+    public long get(Long userId) {
+        return counter(userId).get();
+    }
+
+    /**
+     * Adjusts the user's count after commit and pushes the new value
+     *
+     * <p>If the count isn't cached the adjustment is skipped, seeding after commit already
+     * includes it.
+     */
+    public void adjust(Long userId, String userEmail, long delta) {
+        afterCommit(
+                () -> {
+                    AtomicLong cached = cache.get(userId, AtomicLong.class);
+
+                    long count;
+                    if (cached == null) {
+                        count = counter(userId).get();
+                    } else if ((count = cached.addAndGet(delta)) < 0) {
+                        cache.evict(userId);
+                        count = counter(userId).get();
+                    }
+
+                    deliveryQueue.updateUnreadCount(userEmail, count);
+                });
+    }
+
+    /** Drops the user's count so it is rebuilt, e.g. after notifications were inserted in bulk */
+    public void evict(Long userId) {
+        cache.evict(userId);
+    }
+
+    private AtomicLong counter(Long userId) {
+        return cache.get(
+                userId,
+                () -> {
+                    log.debug("Seeding unread notification count for user {}", userId);
+                    return new AtomicLong(notificationRepository.countByUserIdAndIsReadFalse(userId));
+                });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                });
+    }
+}
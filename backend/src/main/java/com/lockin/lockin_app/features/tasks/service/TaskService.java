@@ -173,7 +173,8 @@ public class TaskService {
             task.setCompletedAt(completionTime);
 
             log.debug("Publishing TaskCompletedEvent for task {} and user {}", taskId, userId);
-            eventPublisher.publishEvent(new TaskCompletedEvent(this, userId, taskId));
+            eventPublisher.publishEvent(
+                    new TaskCompletedEvent(this, userId, taskId, completionTime));
         } else if (oldStatus == TaskStatus.COMPLETED && newStatus != TaskStatus.COMPLETED) {
             task.setCompletedAt(null);
         }
@@ -0,0 +1,68 @@
+package com.lockin.lockin_app.scheduler;
+
+import com.lockin.lockin_app.features.badges.service.BadgeBackfillService;
+import com.lockin.lockin_app.shared.service.JobLockService;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BadgeBackfillScheduler {
+
+    private static final String JOB = "badge-backfill";
+
+    private static final int BATCH_SIZE = 500;
+
+    // a run outliving its lease is still safe, existing badges are skipped on insert
+    private static final Duration LEASE = Duration.ofHours(1);
+
+    private final BadgeBackfillService backfillService;
+    private final JobLockService jobLockService;
+
+    // startup isn't held up by the backfill
+    private final ExecutorService runner =
+            Executors.newSingleThreadExecutor(
+                    Thread.ofPlatform().name("badge-backfill").daemon().factory());
+
+    /**
+     * Grants newly added badge types to users who already qualify
+     *
+     * <p>Runs once after startup, which is when new badge types appear, in the background and on
+     * one instance at a time. Resumes from the last checkpoint if a previous run was interrupted.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillNewBadges() {
+        runner.execute(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void run() {
+        if (!jobLockService.tryAcquire(JOB, LEASE)) {
+            return;
+        }
+
+        try {
+            backfillService.backfillPendingBadges(BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("Badge backfill failed, will resume on next startup: {}", e.getMessage());
+        } finally {
+            jobLockService.release(JOB);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.lockin.lockin_app.scheduler;
+
+import com.lockin.lockin_app.config.BriefingPrecomputeConfig;
+import com.lockin.lockin_app.features.ai.service.BriefingPrecomputeService;
+import com.lockin.lockin_app.shared.service.JobLockService;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BriefingPrecomputeScheduler {
+
+    private static final String JOB = "briefing-precompute";
+
+    private final BriefingPrecomputeService precomputeService;
+    private final BriefingPrecomputeConfig config;
+    private final JobLockService jobLockService;
+
+    // the run can take up to maxDurationMinutes, keep it off the shared scheduler threads
+    private final ExecutorService runner =
+            Executors.newSingleThreadExecutor(
+                    Thread.ofPlatform().name("briefing-precompute").daemon().factory());
+
+    // after the nightly jobs, before people start their day
+    @Scheduled(cron = "${ai.briefing.precompute.cron:0 0 5 * * ?}")
+    public void precomputeBriefings() {
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return;
+        }
+
+        // one instance per day, the lease is kept for the whole run window and never released early
+        if (!jobLockService.tryAcquire(JOB, Duration.ofMinutes(config.getMaxDurationMinutes()))) {
+            return;
+        }
+
+        runner.execute(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void run() {
+        long start = System.currentTimeMillis();
+
+        try {
+            int ready = precomputeService.precomputeBriefings();
+
+            log.info(
+                    "Briefing precomputation complete. Ready: {}, Took: {} ms",
+                    ready,
+                    System.currentTimeMillis() - start);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Briefing precomputation interrupted");
+        } catch (Exception e) {
+            log.error("Briefing precomputation failed: {}", e.getMessage(), e);
+        }
+    }
+}
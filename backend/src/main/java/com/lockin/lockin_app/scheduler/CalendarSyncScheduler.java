@@ -1,93 +1,321 @@
 package com.lockin.lockin_app.scheduler;
 
+import com.lockin.lockin_app.config.CalendarSyncConfig;
 import com.lockin.lockin_app.features.google.entity.GoogleCalendarToken;
 import com.lockin.lockin_app.features.google.repository.GoogleCalendarTokenRepository;
 import com.lockin.lockin_app.features.google.service.GoogleCalendarService;
 import com.lockin.lockin_app.features.notifications.service.NotificationService;
 import com.lockin.lockin_app.features.users.entity.User;
+import com.lockin.lockin_app.shared.service.JobLockService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Imports Google Tasks for every user with an active calendar connection
+ *
+ * <p>Each user is synced on its own virtual thread, at most {@code concurrency} at a time, and a
+ * sync that takes longer than the per-user timeout is cancelled. A run that would start while the
+ * previous one is still going, on this or any other instance, is skipped, and users not started
+ * within the run's time budget are left for the next run. Runs happen on their own thread, the scheduler thread is free again as
+ * soon as a run has started.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CalendarSyncScheduler {
 
+    private static final String JOB = "calendar-sync";
+
     private final GoogleCalendarTokenRepository tokenRepository;
     private final GoogleCalendarService calendarService;
     private final NotificationService notificationService;
+    private final CalendarSyncConfig config;
+    private final MeterRegistry meterRegistry;
+    private final JobLockService jobLockService;
+
+    // a run takes up to max-duration-minutes, keep it off the shared scheduler threads
+    private final ExecutorService runner =
+            Executors.newSingleThreadExecutor(
+                    Thread.ofPlatform().name("calendar-sync").daemon().factory());
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double lastRunUsersPerSecond;
+
+    // shared across runs, a sync that outlives its run still holds its permit
+    private Semaphore permits;
 
-    @Scheduled(fixedRate = 15 * 60 * 1000)
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(config.getConcurrency());
+        meterRegistry.gauge("lockin.calendar.sync.in_flight", inFlight);
+        meterRegistry.gauge("lockin.calendar.sync.last_run.throughput", this, s -> s.lastRunUsersPerSecond);
+    }
+
+    @Scheduled(fixedRateString = "${google.calendar.sync.interval-ms:900000}")
     public void syncAllUsers() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Previous calendar sync still running, skipping this run");
+            meterRegistry.counter("lockin.calendar.sync.runs.skipped").increment();
+            return;
+        }
+
+        // covers the run's time budget plus the wait for its last syncs, released when it ends
+        Duration lease =
+                Duration.ofMinutes(config.getMaxDurationMinutes())
+                        .plusSeconds(config.getUserTimeoutSeconds() + 5L);
+        if (!jobLockService.tryAcquire(JOB, lease)) {
+            meterRegistry.counter("lockin.calendar.sync.runs.skipped").increment();
+            running.set(false);
+            return;
+        }
+
+        try {
+            runner.execute(() -> {
+                try {
+                    syncActiveUsers();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Calendar sync interrupted");
+                } catch (Exception e) {
+                    log.error("Calendar sync failed: {}", e.getMessage(), e);
+                } finally {
+                    jobLockService.release(JOB);
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            jobLockService.release(JOB);
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void syncActiveUsers() throws InterruptedException {
         log.info("Starting scheduled calendar sync for all users");
 
-        List<GoogleCalendarToken> tokens = tokenRepository.findAll()
-                                                          .stream()
-                                                          .filter(GoogleCalendarToken::getIsActive)
-                                                          .toList();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MINUTES.toNanos(config.getMaxDurationMinutes());
+
+        List<GoogleCalendarToken> tokens = tokenRepository.findActiveWithUser();
 
         log.info(
                 "Found {} users with active calendar connections",
                 tokens.size());
 
-        int successCount = 0;
-        int failCount = 0;
-
-        for (GoogleCalendarToken token : tokens) {
-            try {
-                User user = token.getUser();
+        Map<Outcome, AtomicInteger> outcomes = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new AtomicInteger());
+        }
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService syncs = Executors.newVirtualThreadPerTaskExecutor();
+        ScheduledExecutorService watchdog =
+                Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("calendar-sync-watchdog").daemon().factory());
+        int dispatched = 0;
 
+        try {
+            for (GoogleCalendarToken token : tokens) {
                 if (token.getTokenExpiresAt().isBefore(ZonedDateTime.now())) {
                     log.warn(
                             "Token expired for user {}, skipping sync",
-                            user.getId());
-                    failCount++;
+                            token.getUser().getId());
+                    outcomes.get(Outcome.EXPIRED).incrementAndGet();
                     continue;
                 }
 
-                int created = calendarService.syncCalendarToTasks(user);
-
-                token.setLastSyncAt(ZonedDateTime.now());
-                tokenRepository.save(token);
-
-                log.info(
-                        "Synced calendar for user {}: {} new tasks",
-                        user.getId(),
-                        created);
-                successCount++;
-                
-                if (created > 0) {
-                    try {
-                        notificationService.createNotification(
-                                user,
-                                "CALENDAR_SYNC",
-                                "Calendar Sync Complete",
-                                String.format("%d new task%s imported from Google Calendar",
-                                              created, created > 1 ? "s" : ""),
-                                "/tasks"
-                        );
-                    } catch (Exception e) {
-                        log.warn("Failed to send calendar sync notification: {}", e.getMessage());
-                    }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !permits.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                    break;
                 }
 
-            } catch (Exception e) {
+                dispatched++;
+                try {
+                    syncs.execute(() -> {
+                        try {
+                            Outcome outcome = syncWithTimeout(watchdog, token, latencies);
+                            outcomes.get(outcome).incrementAndGet();
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+
+            syncs.shutdown();
+
+            // every started sync has its own timeout, give them that long to finish
+            if (!syncs.awaitTermination(config.getUserTimeoutSeconds() + 5L, TimeUnit.SECONDS)) {
+                log.warn("Calendar syncs still running at the end of the run, cancelling them");
+            }
+        } finally {
+            syncs.shutdownNow();
+            watchdog.shutdownNow();
+        }
+
+        int deferred = tokens.size() - dispatched - outcomes.get(Outcome.EXPIRED).get();
+        if (deferred > 0) {
+            log.warn("Calendar sync ran out of time, {} users left for the next run", deferred);
+            meterRegistry.counter("lockin.calendar.sync.users.deferred").increment(deferred);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        meterRegistry.timer("lockin.calendar.sync.run").record(elapsed, TimeUnit.NANOSECONDS);
+        lastRunUsersPerSecond = dispatched / Math.max(elapsed / 1e9, 0.001);
+
+        List<Long> sorted;
+        synchronized (latencies) {
+            sorted = new ArrayList<>(latencies);
+        }
+        Collections.sort(sorted);
+
+        log.info(
+                "Calendar sync complete: {} success, {} failed, {} timed out, {} expired in {} ms "
+                        + "({} users/s, p50 {} ms, p99 {} ms)",
+                outcomes.get(Outcome.SYNCED).get(),
+                outcomes.get(Outcome.FAILED).get(),
+                outcomes.get(Outcome.TIMEOUT).get(),
+                outcomes.get(Outcome.EXPIRED).get(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed),
+                String.format("%.1f", lastRunUsersPerSecond),
+                percentileMillis(sorted, 0.50),
+                percentileMillis(sorted, 0.99));
+    }
+
+    /**
+     * Syncs one user on the calling virtual thread, interrupting it once the timeout passes
+     *
+     * <p>The caller releases the permit only when this returns, so a sync that ignores the
+     * interrupt keeps counting against the concurrency limit until it really ends.
+     */
+    private Outcome syncWithTimeout(
+            ScheduledExecutorService watchdog, GoogleCalendarToken token, List<Long> latencies) {
+        Long userId = token.getUser().getId();
+        Thread syncThread = Thread.currentThread();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        long started = System.nanoTime();
+        Outcome outcome;
+
+        inFlight.incrementAndGet();
+        ScheduledFuture<?> timeout = null;
+        try {
+            timeout = watchdog.schedule(
+                    () -> {
+                        timedOut.set(true);
+                        syncThread.interrupt();
+                    },
+                    config.getUserTimeoutSeconds(),
+                    TimeUnit.SECONDS);
+
+            syncUser(token);
+            outcome = Outcome.SYNCED;
+
+        } catch (Exception e) {
+            if (timedOut.get()) {
+                log.warn(
+                        "Calendar sync for user {} timed out after {} s",
+                        userId,
+                        config.getUserTimeoutSeconds());
+                outcome = Outcome.TIMEOUT;
+            } else {
                 log.error(
                         "Failed to sync calendar for user {}: {}",
-                        token.getUser().getId(),
+                        userId,
                         e.getMessage());
-                failCount++;
+                outcome = Outcome.FAILED;
+            }
+        } finally {
+            if (timeout != null) {
+                timeout.cancel(false);
             }
+            inFlight.decrementAndGet();
         }
 
+        long elapsed = System.nanoTime() - started;
+        latencies.add(elapsed);
+        Timer.builder("lockin.calendar.sync.user")
+                .tag("outcome", outcome.name().toLowerCase())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+
+        return outcome;
+    }
+
+    private void syncUser(GoogleCalendarToken token) {
+        User user = token.getUser();
+
+        int created = calendarService.syncCalendarToTasks(user);
+
+        tokenRepository.updateLastSyncAt(token.getId(), ZonedDateTime.now());
+
         log.info(
-                "Calendar sync complete: {} success, {} failed",
-                successCount,
-                failCount);
+                "Synced calendar for user {}: {} new tasks",
+                user.getId(),
+                created);
+
+        if (created > 0) {
+            try {
+                notificationService.createNotification(
+                        user,
+                        "CALENDAR_SYNC",
+                        "Calendar Sync Complete",
+                        String.format("%d new task%s imported from Google Calendar",
+                                      created, created > 1 ? "s" : ""),
+                        "/tasks"
+                );
+            } catch (Exception e) {
+                log.warn("Failed to send calendar sync notification: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static long percentileMillis(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted.get(Math.max(0, index)));
+    }
+
+    private enum Outcome {
+        SYNCED,
+        FAILED,
+        TIMEOUT,
+        EXPIRED
     }
 }
@@ -51,5 +51,4 @@ public class DailyAnalyticsScheduler {
     }
 
     // TODO: add to calculate consecutive work days
-    // TODO: add  to cleanup old analytics
 }
@@ -0,0 +1,50 @@
+package com.lockin.lockin_app.scheduler;
+
+import com.lockin.lockin_app.config.RetentionConfig;
+import com.lockin.lockin_app.shared.dto.RetentionReportDTO;
+import com.lockin.lockin_app.shared.service.DataRetentionService;
+import com.lockin.lockin_app.shared.service.JobLockService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DataRetentionScheduler {
+
+    private static final String JOB = "data-retention";
+
+    private final DataRetentionService retentionService;
+    private final RetentionConfig config;
+    private final JobLockService jobLockService;
+
+    // after analytics (2:00) and goal reconciliation (3:30), on one instance only
+    @Scheduled(cron = "0 0 4 * * ?")
+    public void purgeExpiredData() {
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return;
+        }
+
+        // kept until it expires so instances with skewed clocks don't purge again the same night
+        if (!jobLockService.tryAcquire(JOB, Duration.ofMinutes(config.getLeaseMinutes()))) {
+            return;
+        }
+
+        log.info("Starting scheduled data retention");
+
+        List<RetentionReportDTO> reports = retentionService.purgeAll();
+
+        log.info(
+                "Data retention complete. Policies: {}, Rows purged: {}, Took: {} ms",
+                reports.size(),
+                reports.stream().mapToLong(RetentionReportDTO::getRowsPurged).sum(),
+                reports.stream().mapToLong(RetentionReportDTO::getDurationMs).sum());
+    }
+}
@@ -0,0 +1,89 @@
+package com.lockin.lockin_app.scheduler;
+
+import com.lockin.lockin_app.features.goals.repository.GoalRepository;
+import com.lockin.lockin_app.features.goals.service.GoalProgressReconciliationService;
+import com.lockin.lockin_app.shared.service.JobLockService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GoalReconciliationScheduler {
+
+    private static final String JOB = "goal-reconciliation";
+
+    private static final int BATCH_SIZE = 500;
+
+    // kept until it expires so instances with skewed clocks don't run it again the same night,
+    // a run outliving its lease is still safe, reconciling a goal twice gives the same progress
+    private static final Duration LEASE = Duration.ofHours(1);
+
+    private final GoalRepository goalRepository;
+    private final GoalProgressReconciliationService reconciliationService;
+    private final JobLockService jobLockService;
+
+    /**
+     * Recomputes progress of all active goals in keyset-ordered batches
+     *
+     * <p>Goals that ended yesterday are included so late events from the last day still count.
+     * Each batch runs in its own transaction. Goals with progress entered by hand are left alone.
+     * Runs on one instance only.
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void reconcileActiveGoals() {
+        if (!jobLockService.tryAcquire(JOB, LEASE)) {
+            return;
+        }
+
+        log.info("Starting scheduled goal progress reconciliation");
+
+        long start = System.currentTimeMillis();
+        LocalDate endedSince = LocalDate.now().minusDays(1);
+
+        long lastId = 0L;
+        int scanned = 0;
+        int corrected = 0;
+        int errorCount = 0;
+
+        while (true) {
+            List<Long> goalIds =
+                    goalRepository.findActiveGoalIdsAfter(
+                            endedSince, lastId, PageRequest.of(0, BATCH_SIZE));
+
+            if (goalIds.isEmpty()) {
+                break;
+            }
+
+            try {
+                corrected += reconciliationService.reconcile(goalIds);
+            } catch (Exception e) {
+                log.error(
+                        "Failed to reconcile goals {} to {}: {}",
+                        goalIds.get(0),
+                        goalIds.get(goalIds.size() - 1),
+                        e.getMessage());
+                errorCount++;
+            }
+
+            scanned += goalIds.size();
+            lastId = goalIds.get(goalIds.size() - 1);
+        }
+
+        log.info(
+                "Goal reconciliation complete. Scanned: {}, Corrected: {}, Failed batches: {}, Took: {} ms",
+                scanned,
+                corrected,
+                errorCount,
+                System.currentTimeMillis() - start);
+    }
+}
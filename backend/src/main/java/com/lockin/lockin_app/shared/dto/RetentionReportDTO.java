@@ -0,0 +1,17 @@
+package com.lockin.lockin_app.shared.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetentionReportDTO {
+    private String policy;
+    private String table;
+    private long rowsPurged;
+    private int batches;
+    private long durationMs;
+    private String archiveFile;
+}
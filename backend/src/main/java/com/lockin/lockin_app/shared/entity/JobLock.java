@@ -0,0 +1,31 @@
+package com.lockin.lockin_app.shared.entity;
+
+import jakarta.persistence.*;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/** Lease on a job that must only run on one instance at a time, see JobLockService */
+@Entity
+@Table(name = "job_locks")
+@Getter
+@Setter
+@NoArgsConstructor
+public class JobLock {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "locked_by", nullable = false, length = 200)
+    private String lockedBy;
+}
@@ -0,0 +1,41 @@
+package com.lockin.lockin_app.shared.repository;
+
+import com.lockin.lockin_app.shared.entity.JobLock;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    /** Takes the lease if nobody holds it or it ran out, database time so node clocks don't matter */
+    @Modifying
+    @Transactional
+    @Query(
+            value =
+                    "INSERT INTO job_locks (name, locked_at, locked_until, locked_by) "
+                            + "VALUES (:name, LOCALTIMESTAMP, LOCALTIMESTAMP + make_interval(secs => :seconds), :lockedBy) "
+                            + "ON CONFLICT (name) DO UPDATE SET "
+                            + "locked_at = EXCLUDED.locked_at, "
+                            + "locked_until = EXCLUDED.locked_until, "
+                            + "locked_by = EXCLUDED.locked_by "
+                            + "WHERE job_locks.locked_until <= LOCALTIMESTAMP",
+            nativeQuery = true)
+    int tryLock(
+            @Param("name") String name,
+            @Param("seconds") long seconds,
+            @Param("lockedBy") String lockedBy);
+
+    @Modifying
+    @Transactional
+    @Query(
+            value =
+                    "UPDATE job_locks SET locked_until = LOCALTIMESTAMP "
+                            + "WHERE name = :name AND locked_by = :lockedBy",
+            nativeQuery = true)
+    int unlock(@Param("name") String name, @Param("lockedBy") String lockedBy);
+}
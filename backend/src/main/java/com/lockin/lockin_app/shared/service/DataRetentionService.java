@@ -0,0 +1,219 @@
+package com.lockin.lockin_app.shared.service;
+
+import com.lockin.lockin_app.config.RetentionConfig;
+import com.lockin.lockin_app.shared.dto.RetentionReportDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Purges old rows according to per-table retention policies
+ *
+ * <p>Rows are deleted in small batches walked by id, each batch in its own transaction so locks
+ * are held briefly. With archiving enabled every batch is written to a gzipped JSON lines file
+ * before its transaction commits, a failed write rolls the delete back.
+ */
+@Slf4j
+@Service
+public class DataRetentionService {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final RetentionConfig config;
+    private final TransactionTemplate transactionTemplate;
+
+    public DataRetentionService(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            RetentionConfig config,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Applies every enabled policy, one failing policy doesn't stop the others */
+    public List<RetentionReportDTO> purgeAll() {
+        List<RetentionReportDTO> reports = new ArrayList<>();
+
+        for (RetentionPolicy policy : policies()) {
+            if (policy.days() <= 0) {
+                continue;
+            }
+
+            try {
+                reports.add(purge(policy));
+            } catch (Exception e) {
+                log.error("Retention policy {} failed: {}", policy.name(), e.getMessage());
+            }
+        }
+
+        return reports;
+    }
+
+    private List<RetentionPolicy> policies() {
+        return List.of(
+                new RetentionPolicy(
+                        "read-notifications",
+                        "notifications",
+                        "is_read = true AND COALESCE(read_at, created_at) < :cutoff",
+                        config.getReadNotificationsDays()),
+                new RetentionPolicy(
+                        "ai-usage", "ai_usage", "created_at < :cutoff", config.getAiUsageDays()),
+                new RetentionPolicy(
+                        "daily-analytics",
+                        "daily_analytics",
+                        "date < CAST(:cutoff AS date)",
+                        config.getDailyAnalyticsDays()),
+                new RetentionPolicy(
+                        "processed-events",
+                        "domain_events",
+                        "processed_at < :cutoff",
+                        config.getProcessedEventsDays()),
+                new RetentionPolicy(
+                        "expired-ai-responses",
+                        "ai_response_cache",
+                        "expires_at < :cutoff",
+                        config.getExpiredAiResponsesDays()));
+    }
+
+    private RetentionReportDTO purge(RetentionPolicy policy) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(policy.days());
+        boolean archive = Boolean.TRUE.equals(config.getArchiveEnabled());
+
+        String sql =
+                "WITH batch AS (SELECT id FROM "
+                        + policy.table()
+                        + " WHERE "
+                        + policy.condition()
+                        + " AND id > :afterId ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED) "
+                        + "DELETE FROM "
+                        + policy.table()
+                        + " t USING batch WHERE t.id = batch.id "
+                        + (archive ? "RETURNING t.id, row_to_json(t)::text AS row_json" : "RETURNING t.id");
+
+        Path archiveFile = archive ? archiveFile(policy) : null;
+
+        long afterId = 0L;
+        long purged = 0;
+        int batches = 0;
+
+        while (true) {
+            MapSqlParameterSource params =
+                    new MapSqlParameterSource()
+                            .addValue("cutoff", Timestamp.valueOf(cutoff))
+                            .addValue("afterId", afterId)
+                            .addValue("limit", config.getBatchSize());
+
+            List<DeletedRow> deleted =
+                    transactionTemplate.execute(
+                            status -> {
+                                List<DeletedRow> rows =
+                                        jdbcTemplate.query(
+                                                sql,
+                                                params,
+                                                (rs, rowNum) ->
+                                                        new DeletedRow(
+                                                                rs.getLong("id"),
+                                                                archive
+                                                                        ? rs.getString("row_json")
+                                                                        : null));
+
+                                if (archive && !rows.isEmpty()) {
+                                    appendToArchive(archiveFile, rows);
+                                }
+
+                                return rows;
+                            });
+
+            if (deleted == null || deleted.isEmpty()) {
+                break;
+            }
+
+            purged += deleted.size();
+            batches++;
+            afterId = deleted.stream().mapToLong(DeletedRow::id).max().orElse(afterId);
+
+            if (deleted.size() < config.getBatchSize()) {
+                break;
+            }
+
+            Thread.sleep(config.getPauseBetweenBatchesMs());
+        }
+
+        long durationMs = System.currentTimeMillis() - start;
+
+        log.info(
+                "Retention {}: purged {} rows from {} in {} batches, took {} ms",
+                policy.name(),
+                purged,
+                policy.table(),
+                batches,
+                durationMs);
+
+        return new RetentionReportDTO(
+                policy.name(),
+                policy.table(),
+                purged,
+                batches,
+                durationMs,
+                archiveFile != null && purged > 0 ? archiveFile.toString() : null);
+    }
+
+    private Path archiveFile(RetentionPolicy policy) {
+        return Paths.get(
+                config.getArchiveDir(),
+                policy.table() + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jsonl.gz");
+    }
+
+    /** Each batch is appended as its own gzip member, readers see one concatenated stream */
+    private void appendToArchive(Path file, List<DeletedRow> rows) {
+        try {
+            Files.createDirectories(file.getParent());
+
+            try (BufferedWriter writer =
+                    new BufferedWriter(
+                            new OutputStreamWriter(
+                                    new GZIPOutputStream(
+                                            Files.newOutputStream(
+                                                    file,
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.APPEND)),
+                                    StandardCharsets.UTF_8))) {
+                for (DeletedRow row : rows) {
+                    writer.write(row.json());
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive rows to " + file, e);
+        }
+    }
+
+    private record RetentionPolicy(String name, String table, String condition, int days) {}
+
+    private record DeletedRow(long id, String json) {}
+}
@@ -0,0 +1,44 @@
+package com.lockin.lockin_app.shared.service;
+
+import com.lockin.lockin_app.shared.repository.JobLockRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * Cluster-wide leases for jobs that must run on one instance only
+ *
+ * <p>A lease is a row in job_locks that expires on its own, so an instance that dies mid-run
+ * blocks the job for at most the lease duration and no database connection is held while the job
+ * runs.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobLockService {
+
+    private static final String INSTANCE = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final JobLockRepository jobLockRepository;
+
+    /** Returns true if this instance now holds the lease for {@code holdFor} */
+    public boolean tryAcquire(String name, Duration holdFor) {
+        boolean acquired = jobLockRepository.tryLock(name, holdFor.toSeconds(), INSTANCE) > 0;
+
+        if (!acquired) {
+            log.info("Job {} is running on another instance, skipping", name);
+        }
+
+        return acquired;
+    }
+
+    /** Ends this instance's lease early so the job can run again right away */
+    public void release(String name) {
+        jobLockRepository.unlock(name, INSTANCE);
+    }
+}
@@ -0,0 +1,392 @@
+package com.lockin.lockin_app.features.ai.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stand-in for the Anthropic Messages API
+ *
+ * <p>Answers breakdown, batch breakdown, briefing and enhancement prompts with canned payloads in
+ * the shape the services parse, unary or as server-sent events. Latency, server errors, overload
+ * and rate limit responses are drawn per request from the {@link Settings}. Prompt caching is
+ * imitated: the first request with a cached system prefix of at least 1024 tokens reports cache
+ * write tokens, later ones cache reads. Shorter prefixes are billed as plain input, like the API
+ * does.
+ *
+ * <p>Requests are handled on virtual threads, so simulated latency costs no platform threads.
+ */
+public final class FakeMessagesApi implements AutoCloseable {
+
+    private static final Pattern BATCH_TASK = Pattern.compile("(?m)^Task (\\d+)$");
+
+    // shortest prefix the API caches
+    private static final int MIN_CACHEABLE_TOKENS = 1024;
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Set<String> cachedPrefixes = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger streams = new AtomicInteger();
+    private final AtomicInteger rateLimited = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong messageIds = new AtomicLong();
+    private final Map<String, AtomicInteger> requestsByModel = new ConcurrentHashMap<>();
+
+    private FakeMessagesApi(Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(handlers);
+        server.createContext("/v1/messages", this::handle);
+        server.start();
+    }
+
+    public static FakeMessagesApi start(Settings settings) throws IOException {
+        return new FakeMessagesApi(settings);
+    }
+
+    /** Value for anthropic.api.url */
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/messages";
+    }
+
+    public int requests() {
+        return requests.get();
+    }
+
+    public int streams() {
+        return streams.get();
+    }
+
+    public int rateLimited() {
+        return rateLimited.get();
+    }
+
+    public int failed() {
+        return failed.get();
+    }
+
+    public int requestsFor(String model) {
+        AtomicInteger count = requestsByModel.get(model);
+        return count != null ? count.get() : 0;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, error("invalid_request_error", "POST only"));
+                return;
+            }
+
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            String model = request.path("model").asText();
+            boolean stream = request.path("stream").asBoolean(false);
+
+            requests.incrementAndGet();
+            requestsByModel.computeIfAbsent(model, m -> new AtomicInteger()).incrementAndGet();
+
+            sleep(settings.latency().sampleMillis());
+
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < settings.rateLimitRate()) {
+                rateLimited.incrementAndGet();
+                exchange.getResponseHeaders().add("retry-after", String.valueOf(settings.retryAfterSeconds()));
+                send(exchange, 429, error("rate_limit_error", "Number of requests has exceeded your rate limit"));
+                return;
+            }
+            roll -= settings.rateLimitRate();
+            if (roll < settings.overloadedRate()) {
+                failed.incrementAndGet();
+                send(exchange, 529, error("overloaded_error", "Overloaded"));
+                return;
+            }
+            roll -= settings.overloadedRate();
+            if (roll < settings.errorRate()) {
+                failed.incrementAndGet();
+                send(exchange, 500, error("api_error", "Internal server error"));
+                return;
+            }
+
+            String system = systemText(request.path("system"));
+            String user = request.path("messages").path(0).path("content").asText();
+            String text = cannedText(system, user);
+            Usage usage = usage(request.path("system"), system, user, text);
+
+            if (stream) {
+                streams.incrementAndGet();
+                stream(exchange, model, text, usage);
+            } else {
+                send(exchange, 200, message(model, text, usage));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String cannedText(String system, String user) {
+        if (user.contains("\"breakdowns\"")) {
+            return batchBreakdown(user);
+        }
+        if (user.contains("Break down this task")) {
+            return objectMapper.createObjectNode()
+                    .put("reasoning", "Split into preparation, the work itself and a final check")
+                    .set("subtasks", subtasks())
+                    .toString();
+        }
+        if (system.contains("improves task descriptions")) {
+            return "Outline the goal and the expected result first. Then list the concrete steps, "
+                    + "who needs to be involved and what has to be ready before starting. "
+                    + "Finish with a short review against the original goal.";
+        }
+        if (system.contains("productivity companion")) {
+            return "Morning! Your focus today: the two urgent items at the top of your list and one "
+                    + "important task you keep pushing back. You've handled busier days than this. "
+                    + "Tip: start with the smallest urgent task to get moving.";
+        }
+        return "Hello from the fake Messages API.";
+    }
+
+    private String batchBreakdown(String user) {
+        ArrayNode breakdowns = objectMapper.createArrayNode();
+        Matcher matcher = BATCH_TASK.matcher(user);
+        while (matcher.find()) {
+            ObjectNode entry = breakdowns.addObject();
+            entry.put("task", Integer.parseInt(matcher.group(1)));
+            entry.put("reasoning", "Split into preparation, the work itself and a final check");
+            entry.set("subtasks", subtasks());
+        }
+
+        ObjectNode root = objectMapper.createObjectNode();
+        root.set("breakdowns", breakdowns);
+        return root.toString();
+    }
+
+    private ArrayNode subtasks() {
+        ArrayNode subtasks = objectMapper.createArrayNode();
+        subtasks.add(subtask("Gather what is needed", 15, "MEDIUM", false, true));
+        subtasks.add(subtask("Do the main part", 45, "HIGH", true, true));
+        subtasks.add(subtask("Review and wrap up", 10, "LOW", false, false));
+        return subtasks;
+    }
+
+    private ObjectNode subtask(String title, int minutes, String priority, boolean urgent, boolean important) {
+        return objectMapper.createObjectNode()
+                .put("title", title)
+                .put("description", title + " for this task")
+                .put("estimatedMinutes", minutes)
+                .put("priority", priority)
+                .put("isUrgent", urgent)
+                .put("isImportant", important);
+    }
+
+    private Usage usage(JsonNode systemBlocks, String system, String user, String text) {
+        // the cached prefix is everything up to and including the last block with a breakpoint
+        int prefix = 0;
+        int cachedPrefix = 0;
+        for (JsonNode block : systemBlocks) {
+            prefix += estimateTokens(block.path("text").asText());
+            if (block.has("cache_control")) {
+                cachedPrefix = prefix;
+            }
+        }
+
+        int output = estimateTokens(text);
+
+        if (cachedPrefix < MIN_CACHEABLE_TOKENS) {
+            return new Usage(estimateTokens(system) + estimateTokens(user), output, 0, 0);
+        }
+
+        int input = estimateTokens(system) + estimateTokens(user) - cachedPrefix;
+        return cachedPrefixes.add(system)
+                ? new Usage(input, output, cachedPrefix, 0)
+                : new Usage(input, output, 0, cachedPrefix);
+    }
+
+    private String message(String model, String text, Usage usage) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("id", "msg_fake_" + messageIds.incrementAndGet());
+        message.put("type", "message");
+        message.put("role", "assistant");
+        message.put("model", model);
+        message.putArray("content").addObject().put("type", "text").put("text", text);
+        message.put("stop_reason", "end_turn");
+        message.set("usage", usage.toJson(objectMapper));
+        return message.toString();
+    }
+
+    private void stream(HttpExchange exchange, String model, String text, Usage usage)
+            throws IOException, InterruptedException {
+        exchange.getResponseHeaders().add("content-type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream out = exchange.getResponseBody();
+
+        ObjectNode start = objectMapper.createObjectNode().put("type", "message_start");
+        ObjectNode message = start.putObject("message");
+        message.put("id", "msg_fake_" + messageIds.incrementAndGet());
+        message.put("model", model);
+        ObjectNode startUsage = usage.toJson(objectMapper);
+        startUsage.put("output_tokens", 1);
+        message.set("usage", startUsage);
+        event(out, "message_start", start);
+
+        ObjectNode blockStart = objectMapper.createObjectNode().put("type", "content_block_start").put("index", 0);
+        blockStart.putObject("content_block").put("type", "text").put("text", "");
+        event(out, "content_block_start", blockStart);
+
+        int chunk = settings.streamChunkChars();
+        for (int i = 0; i < text.length(); i += chunk) {
+            ObjectNode delta = objectMapper.createObjectNode().put("type", "content_block_delta").put("index", 0);
+            delta.putObject("delta")
+                    .put("type", "text_delta")
+                    .put("text", text.substring(i, Math.min(text.length(), i + chunk)));
+            event(out, "content_block_delta", delta);
+            sleep(settings.streamChunkDelayMs());
+        }
+
+        event(out, "content_block_stop",
+              objectMapper.createObjectNode().put("type", "content_block_stop").put("index", 0));
+
+        ObjectNode messageDelta = objectMapper.createObjectNode().put("type", "message_delta");
+        messageDelta.putObject("delta").put("stop_reason", "end_turn");
+        messageDelta.putObject("usage").put("output_tokens", usage.output());
+        event(out, "message_delta", messageDelta);
+
+        event(out, "message_stop", objectMapper.createObjectNode().put("type", "message_stop"));
+    }
+
+    private void event(OutputStream out, String name, JsonNode data) throws IOException {
+        out.write(("event: " + name + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("content-type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private String error(String type, String message) {
+        ObjectNode body = objectMapper.createObjectNode().put("type", "error");
+        body.putObject("error").put("type", type).put("message", message);
+        return body.toString();
+    }
+
+    private static String systemText(JsonNode system) {
+        if (system.isTextual()) {
+            return system.asText();
+        }
+        StringBuilder text = new StringBuilder();
+        for (JsonNode block : system) {
+            text.append(block.path("text").asText());
+        }
+        return text.toString();
+    }
+
+    private static int estimateTokens(String text) {
+        return (text.length() + 3) / 4;
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private record Usage(int input, int output, int cacheWrite, int cacheRead) {
+
+        ObjectNode toJson(ObjectMapper objectMapper) {
+            return objectMapper.createObjectNode()
+                    .put("input_tokens", input)
+                    .put("output_tokens", output)
+                    .put("cache_creation_input_tokens", cacheWrite)
+                    .put("cache_read_input_tokens", cacheRead);
+        }
+    }
+
+    /**
+     * Behaviour of the fake API
+     *
+     * @param latency time before the response (or the first event of a stream) is sent
+     * @param rateLimitRate share of requests answered with 429 and a retry-after header
+     * @param overloadedRate share answered with 529
+     * @param errorRate share answered with 500
+     */
+    public record Settings(
+            LatencyProfile latency,
+            double rateLimitRate,
+            double overloadedRate,
+            double errorRate,
+            int retryAfterSeconds,
+            int streamChunkChars,
+            long streamChunkDelayMs) {
+
+        public static Settings defaults() {
+            return new Settings(LatencyProfile.fixed(0), 0, 0, 0, 1, 24, 0);
+        }
+
+        public Settings withLatency(LatencyProfile latency) {
+            return new Settings(latency, rateLimitRate, overloadedRate, errorRate,
+                                retryAfterSeconds, streamChunkChars, streamChunkDelayMs);
+        }
+
+        public Settings withFailures(double rateLimitRate, double overloadedRate, double errorRate) {
+            return new Settings(latency, rateLimitRate, overloadedRate, errorRate,
+                                retryAfterSeconds, streamChunkChars, streamChunkDelayMs);
+        }
+
+        public Settings withStreaming(int streamChunkChars, long streamChunkDelayMs) {
+            return new Settings(latency, rateLimitRate, overloadedRate, errorRate,
+                                retryAfterSeconds, streamChunkChars, streamChunkDelayMs);
+        }
+    }
+
+    /** Simulated upstream latency per request */
+    @FunctionalInterface
+    public interface LatencyProfile {
+
+        long sampleMillis();
+
+        static LatencyProfile fixed(long millis) {
+            return () -> millis;
+        }
+
+        static LatencyProfile uniform(long minMillis, long maxMillis) {
+            return () -> ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1);
+        }
+
+        /** Long-tailed like real model latency, {@code sigma} around 0.5 gives a p99 of about 3x the median */
+        static LatencyProfile logNormal(long medianMillis, double sigma) {
+            return () -> Math.round(medianMillis * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        }
+    }
+}
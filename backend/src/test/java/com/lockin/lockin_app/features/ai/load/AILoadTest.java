@@ -0,0 +1,379 @@
+package com.lockin.lockin_app.features.ai.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.lockin.lockin_app.config.AIExecutorConfig;
+import com.lockin.lockin_app.config.AnthropicConfig;
+import com.lockin.lockin_app.features.ai.fake.FakeMessagesApi;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test of the AI endpoints against {@link FakeMessagesApi}
+ *
+ * <p>Registers a set of users, then drives the enhancement, breakdown preview, briefing and
+ * streaming endpoints with a fixed number of concurrent clients and logs throughput, latency
+ * percentiles per endpoint, response statuses, AI worker pool saturation and the hit ratio of the
+ * response caches.
+ *
+ * <p>Opt-in, it needs the usual database and takes a while:
+ *
+ * <pre>
+ * mvn test -Dtest=AILoadTest -Dai.loadtest=true -Dai.loadtest.concurrency=64 -Dai.loadtest.requests=5000
+ * </pre>
+ *
+ * <p>Settings (system properties, prefix {@code ai.loadtest.}): users, concurrency, requests,
+ * distinct-prompts, mix (e.g. {@code enhance=4,breakdown=3,briefing=2,stream=1}),
+ * latency-median-ms, latency-sigma, error-rate, overloaded-rate, rate-limit-rate.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "ai.loadtest", matches = "true")
+class AILoadTest {
+
+    private static final FakeMessagesApi API = startApi();
+
+    private static final Duration CLIENT_TIMEOUT = Duration.ofMinutes(2);
+
+    private static final List<String> CACHES =
+            List.of("taskBreakdowns", "enhancedDescriptions", "dailyBriefings");
+
+    @DynamicPropertySource
+    static void aiProperties(DynamicPropertyRegistry registry) {
+        registry.add("anthropic.api.url", API::url);
+        registry.add("anthropic.api.key", () -> "load-test");
+        // the load test measures the service, not the per-user quota
+        registry.add("ai.requests.per-user-per-day", () -> Integer.MAX_VALUE);
+    }
+
+    @AfterAll
+    static void stopApi() {
+        API.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private AIExecutorConfig executorConfig;
+
+    @Autowired
+    private AnthropicConfig anthropicConfig;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient http =
+            HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+
+    @Test
+    void aiEndpointsUnderLoad() throws Exception {
+        int users = intProperty("users", 20);
+        int concurrency = intProperty("concurrency", 32);
+        int requests = intProperty("requests", 2000);
+        int distinctPrompts = intProperty("distinct-prompts", 100);
+        Map<Endpoint, Integer> mix = mix(System.getProperty("ai.loadtest.mix", "enhance=4,breakdown=3,briefing=2,stream=1"));
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            tokens.add(register());
+        }
+
+        Map<String, CacheStats> cachesBefore = cacheStats();
+        int upstreamBefore = API.requests();
+        Saturation saturation = new Saturation();
+
+        Map<Endpoint, List<Long>> latencies = new ConcurrentHashMap<>();
+        Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+        AtomicInteger remaining = new AtomicInteger(requests);
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(saturation::sample, 0, 50, TimeUnit.MILLISECONDS);
+
+        long started = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                clients.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        Endpoint endpoint = pick(mix, random);
+                        String token = tokens.get(random.nextInt(tokens.size()));
+                        int prompt = random.nextInt(distinctPrompts);
+
+                        long sent = System.nanoTime();
+                        String status = call(endpoint, token, prompt);
+                        long elapsed = System.nanoTime() - sent;
+
+                        latencies.computeIfAbsent(endpoint, e -> Collections.synchronizedList(new ArrayList<>()))
+                                .add(elapsed);
+                        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                    }
+                    return null;
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        sampler.shutdownNow();
+
+        report(requests, concurrency, seconds, latencies, statuses, saturation, cachesBefore,
+               API.requests() - upstreamBefore);
+
+        assertTrue(statuses.containsKey("200"), "no request succeeded: " + statuses);
+    }
+
+    private String call(Endpoint endpoint, String token, int prompt) {
+        String body = String.format(
+                "{\"title\":\"Load test task %d\",\"description\":\"Prepare the material for load test task %d\"}",
+                prompt, prompt);
+
+        HttpRequest.Builder request =
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + endpoint.path))
+                        .header("Authorization", "Bearer " + token)
+                        .timeout(CLIENT_TIMEOUT);
+
+        if (endpoint == Endpoint.BRIEFING) {
+            request.GET();
+        } else {
+            request.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(body));
+        }
+
+        try {
+            // the whole body, for streams that is until the last event
+            HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (endpoint == Endpoint.STREAM && response.statusCode() == 200 && response.body().contains("event:error")) {
+                return "stream-error";
+            }
+            return String.valueOf(response.statusCode());
+        } catch (IOException e) {
+            return e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    private String register() throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of(
+                "firstName", "Load",
+                "lastName", "Test",
+                "email", "loadtest-" + UUID.randomUUID() + "@example.com",
+                "password", "load-test-password"));
+
+        HttpResponse<String> response = http.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/register"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(201, response.statusCode(), "registration failed: " + response.body());
+        return objectMapper.readTree(response.body()).path("token").asText();
+    }
+
+    private void report(
+            int requests,
+            int concurrency,
+            double seconds,
+            Map<Endpoint, List<Long>> latencies,
+            Map<String, LongAdder> statuses,
+            Saturation saturation,
+            Map<String, CacheStats> cachesBefore,
+            int upstreamRequests) {
+        StringBuilder report = new StringBuilder("\n=== AI load test ===\n");
+        report.append(String.format("%d requests, %d clients, %.1f s, %.1f req/s%n",
+                                    requests, concurrency, seconds, requests / seconds));
+        report.append(String.format("upstream: %d calls (%.2f per request), %d rate limited, %d failed%n",
+                                    upstreamRequests, (double) upstreamRequests / requests,
+                                    API.rateLimited(), API.failed()));
+
+        report.append("latency (ms):\n");
+        for (Endpoint endpoint : Endpoint.values()) {
+            List<Long> samples = latencies.get(endpoint);
+            if (samples == null || samples.isEmpty()) {
+                continue;
+            }
+            List<Long> sorted = new ArrayList<>(samples);
+            Collections.sort(sorted);
+            report.append(String.format("  %-10s n=%-6d p50=%-8.1f p95=%-8.1f p99=%-8.1f max=%.1f%n",
+                                        endpoint.name().toLowerCase(), sorted.size(),
+                                        percentileMs(sorted, 0.50), percentileMs(sorted, 0.95),
+                                        percentileMs(sorted, 0.99), sorted.get(sorted.size() - 1) / 1e6));
+        }
+
+        report.append("statuses: ").append(new TreeMap<>(statuses)).append('\n');
+
+        report.append(String.format(
+                "ai executor: %d threads, busy avg %.0f%% max %.0f%%, queue max %d/%d%n",
+                executorConfig.getThreads(),
+                100 * saturation.activeAverage() / executorConfig.getThreads(),
+                100.0 * saturation.activeMax / executorConfig.getThreads(),
+                saturation.queueMax,
+                executorConfig.getQueueCapacity()));
+        report.append(String.format("api bulkhead: max %d/%d in flight%n",
+                                    saturation.inFlightMax, anthropicConfig.getMaxConcurrentRequests()));
+
+        Map<String, CacheStats> cachesAfter = cacheStats();
+        for (String name : CACHES) {
+            CacheStats stats = cachesAfter.get(name).minus(cachesBefore.get(name));
+            report.append(String.format("cache %-20s hits %-6d misses %-6d hit ratio %.2f%n",
+                                        name, stats.hitCount(), stats.missCount(), stats.hitRate()));
+        }
+
+        log.info("AI load test report\n{}", report);
+    }
+
+    private Map<String, CacheStats> cacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        for (String name : CACHES) {
+            CaffeineCache cache = (CaffeineCache) cacheManager.getCache(name);
+            stats.put(name, cache.getNativeCache().stats());
+        }
+        return stats;
+    }
+
+    private static double percentileMs(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+
+    private static Endpoint pick(Map<Endpoint, Integer> mix, ThreadLocalRandom random) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int roll = random.nextInt(total);
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("empty mix");
+    }
+
+    private static Map<Endpoint, Integer> mix(String spec) {
+        Map<Endpoint, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] weight = part.trim().split("=");
+            int value = Integer.parseInt(weight[1].trim());
+            if (value > 0) {
+                mix.put(Endpoint.valueOf(weight[0].trim().toUpperCase()), value);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("ai.loadtest.mix has no positive weight: " + spec);
+        }
+        return mix;
+    }
+
+    private static FakeMessagesApi startApi() {
+        FakeMessagesApi.Settings settings =
+                FakeMessagesApi.Settings.defaults()
+                        .withLatency(FakeMessagesApi.LatencyProfile.logNormal(
+                                intProperty("latency-median-ms", 800),
+                                Double.parseDouble(System.getProperty("ai.loadtest.latency-sigma", "0.5"))))
+                        .withFailures(
+                                doubleProperty("rate-limit-rate", 0.01),
+                                doubleProperty("overloaded-rate", 0.01),
+                                doubleProperty("error-rate", 0.01))
+                        .withStreaming(24, 20);
+        try {
+            return FakeMessagesApi.start(settings);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty("ai.loadtest." + name, String.valueOf(defaultValue)));
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        return Double.parseDouble(System.getProperty("ai.loadtest." + name, String.valueOf(defaultValue)));
+    }
+
+    private enum Endpoint {
+        ENHANCE("/api/ai/enhance-description"),
+        BREAKDOWN("/api/ai/breakdown-preview"),
+        BRIEFING("/api/ai/daily-briefing"),
+        STREAM("/api/ai/enhance-description/stream");
+
+        private final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+    }
+
+    /** Samples the AI worker pool and API bulkhead gauges while the load runs */
+    private class Saturation {
+
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder activeTotal = new LongAdder();
+        private volatile long activeMax;
+        private volatile long queueMax;
+        private volatile long inFlightMax;
+
+        void sample() {
+            long active = gauge("lockin.ai.executor.active");
+            samples.increment();
+            activeTotal.add(active);
+            activeMax = Math.max(activeMax, active);
+            queueMax = Math.max(queueMax, gauge("lockin.ai.executor.queue.size"));
+            inFlightMax = Math.max(inFlightMax, gauge("lockin.ai.requests.in_flight"));
+        }
+
+        double activeAverage() {
+            return samples.sum() == 0 ? 0 : (double) activeTotal.sum() / samples.sum();
+        }
+
+        private long gauge(String name) {
+            Gauge gauge = meterRegistry.find(name).gauge();
+            return gauge != null ? Math.round(gauge.value()) : 0;
+        }
+    }
+}
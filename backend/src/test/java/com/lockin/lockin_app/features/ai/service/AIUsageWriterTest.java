@@ -0,0 +1,208 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.lockin.lockin_app.config.AIUsageWriterConfig;
+import com.lockin.lockin_app.config.RetentionConfig;
+import com.lockin.lockin_app.features.ai.dto.ClaudeResponseDTO;
+import com.lockin.lockin_app.features.ai.entity.AIUsage;
+import com.lockin.lockin_app.features.ai.entity.AIUsageDaily;
+import com.lockin.lockin_app.shared.repository.JobLockRepository;
+import com.lockin.lockin_app.shared.service.JobLockService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.model.naming.Identifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The writer's native SQL is checked against the columns Hibernate maps for the usage entities
+ * with Spring Boot's naming strategy, ddl-auto creates exactly these columns
+ */
+class AIUsageWriterTest {
+
+    private static final Pattern INSERT = Pattern.compile("INSERT INTO (\\w+) \\(([^)]+)\\)");
+    private static final Pattern SELECT = Pattern.compile("SELECT (.+) FROM (\\w+) WHERE (.+) GROUP BY ([^O]+) ON");
+    private static final Pattern IDENTIFIER = Pattern.compile("(?<![:\\w])[a-z_]+(?![\\w(])");
+
+    // the physical naming strategy Spring Boot configures for Hibernate
+    private static final CamelCaseToUnderscoresNamingStrategy NAMING = new CamelCaseToUnderscoresNamingStrategy();
+
+    private static Map<String, Set<String>> schema;
+
+    private final RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+    private final JobLockRepository jobLockRepository = mock(JobLockRepository.class);
+
+    private AIUsageWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        if (schema == null) {
+            schema = mappedSchema();
+        }
+
+        when(jobLockRepository.tryLock(anyString(), anyLong(), anyString())).thenReturn(1);
+
+        writer = new AIUsageWriter(
+                jdbcTemplate,
+                mock(PlatformTransactionManager.class),
+                new AIUsageWriterConfig(),
+                new RetentionConfig(),
+                new JobLockService(jobLockRepository),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void insertsIntoMappedColumns() throws Exception {
+        writer.record(1L, "BREAKDOWN", response(), "details");
+        writer.shutdown();
+
+        assertEquals(2, statements().size());
+        statements().forEach(AIUsageWriterTest::assertInsertColumnsExist);
+    }
+
+    @Test
+    void reconciliationReadsMappedColumns() throws Exception {
+        writer.reconcileRecentDays();
+        writer.shutdown();
+
+        assertEquals(1, statements().size());
+        String sql = statements().get(0);
+        assertInsertColumnsExist(sql);
+
+        Matcher select = SELECT.matcher(sql);
+        assertTrue(select.find(), sql);
+        Set<String> columns = schema.get(select.group(2));
+        for (int group = 1; group <= 4; group++) {
+            if (group == 2) {
+                continue;
+            }
+            Matcher identifier = IDENTIFIER.matcher(select.group(group));
+            while (identifier.find()) {
+                assertTrue(columns.contains(identifier.group()),
+                           select.group(2) + " has no column " + identifier.group());
+            }
+        }
+    }
+
+    @Test
+    void writesAFailedBatchRecordByRecord() throws Exception {
+        jdbcTemplate.rejectBatches = true;
+
+        writer.record(1L, "BREAKDOWN", response(), "first");
+        writer.record(2L, "ENHANCE", response(), "second");
+        writer.shutdown();
+
+        List<String> usageInserts = statements().stream()
+                .filter(sql -> sql.startsWith("INSERT INTO ai_usage "))
+                .toList();
+        assertEquals(2, usageInserts.size());
+    }
+
+    private static void assertInsertColumnsExist(String sql) {
+        Matcher insert = INSERT.matcher(sql);
+        assertTrue(insert.find(), sql);
+
+        Set<String> columns = schema.get(insert.group(1));
+        assertNotNull(columns, "no entity maps table " + insert.group(1));
+        for (String column : insert.group(2).split(",")) {
+            assertTrue(columns.contains(column.trim()), insert.group(1) + " has no column " + column.trim());
+        }
+    }
+
+    private List<String> statements() {
+        return jdbcTemplate.statements;
+    }
+
+    private static ClaudeResponseDTO response() {
+        return new ClaudeResponseDTO("text", 100, 50, "claude-sonnet-4-20250514", 10, 20);
+    }
+
+    /** Table name to the columns Hibernate maps for each usage entity, as Spring Boot names them */
+    private static Map<String, Set<String>> mappedSchema() {
+        Map<String, Set<String>> tables = new HashMap<>();
+        for (Class<?> entity : List.of(AIUsage.class, AIUsageDaily.class)) {
+            tables.put(entity.getAnnotation(Table.class).name(), mappedColumns(entity));
+        }
+        return tables;
+    }
+
+    private static Set<String> mappedColumns(Class<?> entity) {
+        Set<String> columns = new HashSet<>();
+
+        for (Field field : entity.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isAnnotationPresent(Transient.class)) {
+                continue;
+            }
+
+            JoinColumn joinColumn = field.getAnnotation(JoinColumn.class);
+            Column column = field.getAnnotation(Column.class);
+            String name;
+            if (joinColumn != null && !joinColumn.name().isEmpty()) {
+                name = joinColumn.name();
+            } else if (column != null && !column.name().isEmpty()) {
+                name = column.name();
+            } else if (field.isAnnotationPresent(ManyToOne.class)) {
+                name = field.getName() + "_id";
+            } else {
+                name = field.getName();
+            }
+
+            columns.add(NAMING.toPhysicalColumnName(Identifier.toIdentifier(name), null).getText());
+        }
+
+        return columns;
+    }
+
+    /** Keeps the statements instead of running them, optionally rejecting multi-row batches */
+    private static final class RecordingJdbcTemplate extends NamedParameterJdbcTemplate {
+
+        private final List<String> statements = new ArrayList<>();
+        private boolean rejectBatches;
+
+        RecordingJdbcTemplate() {
+            super(mock(DataSource.class));
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, SqlParameterSource[] batchArgs) {
+            if (rejectBatches && batchArgs.length > 1) {
+                throw new IllegalStateException("batch rejected");
+            }
+            statements.add(sql);
+            return new int[batchArgs.length];
+        }
+
+        @Override
+        public int update(String sql, SqlParameterSource paramSource) {
+            statements.add(sql);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.lockin.lockin_app.config.AIHedgingConfig;
+import com.lockin.lockin_app.config.AIModelRoutingConfig;
+import com.lockin.lockin_app.config.AnthropicConfig;
+import com.lockin.lockin_app.exception.ClaudeAPIException;
+import com.lockin.lockin_app.features.ai.dto.ClaudeResponseDTO;
+import com.lockin.lockin_app.features.ai.dto.SystemBlockDTO;
+import com.lockin.lockin_app.features.ai.fake.FakeMessagesApi;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs the client against {@link FakeMessagesApi}, no Spring context or database needed */
+class ClaudeAPIClientServiceTest {
+
+    private static final List<SystemBlockDTO> SYSTEM =
+            List.of(SystemBlockDTO.cached("You are a productivity assistant that improves task descriptions."));
+
+    private FakeMessagesApi api;
+
+    @AfterEach
+    void stopApi() {
+        if (api != null) {
+            api.close();
+        }
+    }
+
+    @Test
+    void sendsMessageWithoutCachingAShortPrefix() throws Exception {
+        api = FakeMessagesApi.start(FakeMessagesApi.Settings.defaults());
+        ClaudeAPIClientService client = client(api, 3);
+
+        ClaudeResponseDTO first = client.sendMessage("ENHANCE", SYSTEM, "Task Title: \"Write report\"");
+        ClaudeResponseDTO second = client.sendMessage("ENHANCE", SYSTEM, "Task Title: \"Plan trip\"");
+
+        assertTrue(first.getText().startsWith("Outline the goal"));
+        assertEquals(0, first.getCacheWriteTokens());
+        assertEquals(0, second.getCacheReadTokens());
+        assertEquals(2, api.requests());
+    }
+
+    @Test
+    void reportsCacheUsageForAPrefixPastTheMinimumLength() throws Exception {
+        api = FakeMessagesApi.start(FakeMessagesApi.Settings.defaults());
+        ClaudeAPIClientService client = client(api, 3);
+
+        // about 1250 tokens by the fake's estimate
+        List<SystemBlockDTO> system = List.of(SystemBlockDTO.cached(
+                "You are a productivity assistant that improves task descriptions.\n".repeat(75)));
+
+        ClaudeResponseDTO first = client.sendMessage("ENHANCE", system, "Task Title: \"Write report\"");
+        ClaudeResponseDTO second = client.sendMessage("ENHANCE", system, "Task Title: \"Plan trip\"");
+
+        assertTrue(first.getCacheWriteTokens() >= 1024);
+        assertEquals(first.getCacheWriteTokens(), second.getCacheReadTokens());
+        assertEquals(0, second.getCacheWriteTokens());
+    }
+
+    @Test
+    void retriesServerErrorsUntilAttemptsRunOut() throws Exception {
+        api = FakeMessagesApi.start(FakeMessagesApi.Settings.defaults().withFailures(0, 0, 1));
+        ClaudeAPIClientService client = client(api, 3);
+
+        assertThrows(ClaudeAPIException.class, () -> client.sendMessage("system", "Hello"));
+        assertEquals(3, api.requests());
+    }
+
+    @Test
+    void givesUpWhenRetryAfterIsTooLong() throws Exception {
+        api = FakeMessagesApi.start(FakeMessagesApi.Settings.defaults().withFailures(1, 0, 0));
+        AnthropicConfig config = config(api, 3);
+        config.setMaxRetryAfterMs(500L);
+        ClaudeAPIClientService client = client(config);
+
+        assertThrows(ClaudeAPIException.class, () -> client.sendMessage("system", "Hello"));
+        assertEquals(1, api.rateLimited());
+    }
+
+    @Test
+    void streamsTextInChunks() throws Exception {
+        api = FakeMessagesApi.start(FakeMessagesApi.Settings.defaults().withStreaming(16, 1));
+        ClaudeAPIClientService client = client(api, 3);
+
+        StringBuilder streamed = new StringBuilder();
+        ClaudeResponseDTO response =
+                client.await(client.streamMessageAsync("ENHANCE", SYSTEM, "Task Title: \"Write report\"", streamed::append));
+
+        assertEquals(response.getText(), streamed.toString());
+        assertTrue(response.getOutputTokens() > 0);
+        assertEquals(1, api.streams());
+    }
+
+    @Test
+    void cancellingOneCallerKeepsTheSharedCall() throws Exception {
+        api = FakeMessagesApi.start(
+                FakeMessagesApi.Settings.defaults().withLatency(FakeMessagesApi.LatencyProfile.fixed(300)));
+        ClaudeAPIClientService client = client(api, 3);
+
+        CompletableFuture<ClaudeResponseDTO> first = client.sendMessageAsync("ENHANCE", SYSTEM, "Task Title: \"Write report\"", 1024);
+        CompletableFuture<ClaudeResponseDTO> second = client.sendMessageAsync("ENHANCE", SYSTEM, "Task Title: \"Write report\"", 1024);
+
+        first.cancel(true);
+
+        ClaudeResponseDTO response = client.await(second);
+        assertTrue(response.isCoalesced());
+        assertTrue(response.getText().startsWith("Outline the goal"));
+        assertEquals(1, api.requests());
+    }
+
+    @Test
+    void cancellingEveryCallerCancelsTheSharedCall() throws Exception {
+        api = FakeMessagesApi.start(
+                FakeMessagesApi.Settings.defaults().withLatency(FakeMessagesApi.LatencyProfile.fixed(300)));
+        ClaudeAPIClientService client = client(api, 3);
+
+        CompletableFuture<ClaudeResponseDTO> first = client.sendMessageAsync("ENHANCE", SYSTEM, "Task Title: \"Write report\"", 1024);
+        CompletableFuture<ClaudeResponseDTO> second = client.sendMessageAsync("ENHANCE", SYSTEM, "Task Title: \"Write report\"", 1024);
+
+        first.cancel(true);
+        second.cancel(true);
+
+        // the abandoned call is gone, an identical request starts its own
+        ClaudeResponseDTO response =
+                client.await(client.sendMessageAsync("ENHANCE", SYSTEM, "Task Title: \"Write report\"", 1024));
+        assertFalse(response.isCoalesced());
+    }
+
+    private static ClaudeAPIClientService client(FakeMessagesApi api, int maxAttempts) {
+        return client(config(api, maxAttempts));
+    }
+
+    private static ClaudeAPIClientService client(AnthropicConfig config) {
+        return new ClaudeAPIClientService(
+                config, new AIModelRoutingConfig(), new AIHedgingConfig(), new SimpleMeterRegistry());
+    }
+
+    private static AnthropicConfig config(FakeMessagesApi api, int maxAttempts) {
+        AnthropicConfig config = new AnthropicConfig();
+        config.setKey("test");
+        config.setUrl(api.url());
+        config.setMaxAttempts(maxAttempts);
+        config.setInitialBackoffMs(10L);
+        config.setMaxBackoffMs(50L);
+        config.setRequestTimeoutMs(5000L);
+        return config;
+    }
+}
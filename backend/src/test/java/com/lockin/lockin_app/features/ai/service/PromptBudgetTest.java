@@ -0,0 +1,74 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptBudgetTest {
+
+    @Test
+    void zeroBudgetKeepsTheText() {
+        String text = "word ".repeat(100);
+
+        PromptBudget.Fitted fitted = PromptBudget.fit(text, 0);
+
+        assertEquals(text, fitted.text());
+        assertEquals(0, fitted.saved());
+    }
+
+    @Test
+    void textWithinBudgetIsUnchanged() {
+        PromptBudget.Fitted fitted = PromptBudget.fit("a".repeat(40), 10);
+
+        assertEquals("a".repeat(40), fitted.text());
+        assertEquals(10, fitted.tokens());
+    }
+
+    @Test
+    void textJustOverBudgetIsCut() {
+        // 42 characters estimate to 11 tokens
+        String text = "Plan the quarterly review with the team ok";
+
+        PromptBudget.Fitted fitted = PromptBudget.fit(text, 10);
+
+        assertTrue(fitted.text().endsWith(" [...]"));
+        assertTrue(fitted.tokens() <= 10);
+        assertEquals(fitted.originalTokens() - fitted.tokens(), fitted.saved());
+    }
+
+    @Test
+    void cutsAtWordBoundary() {
+        String text = "alpha beta gamma delta epsilon zeta eta theta iota kappa";
+
+        PromptBudget.Fitted fitted = PromptBudget.fit(text, 10);
+
+        assertEquals("alpha beta gamma delta epsilon [...]", fitted.text());
+    }
+
+    @Test
+    void textWithoutSpacesIsCutMidWord() {
+        String text = "x".repeat(100);
+
+        PromptBudget.Fitted fitted = PromptBudget.fit(text, 10);
+
+        assertEquals("x".repeat(34) + " [...]", fitted.text());
+        assertEquals(10, fitted.tokens());
+        assertEquals(15, fitted.saved());
+    }
+
+    @Test
+    void budgetTooSmallForTheMarkerCutsHard() {
+        PromptBudget.Fitted fitted = PromptBudget.fit("x".repeat(100), 1);
+
+        assertEquals("xxxx", fitted.text());
+        assertEquals(1, fitted.tokens());
+    }
+
+    @Test
+    void nullTextHasNoTokens() {
+        PromptBudget.Fitted fitted = PromptBudget.fit(null, 10);
+
+        assertNull(fitted.text());
+        assertEquals(0, fitted.tokens());
+    }
+}
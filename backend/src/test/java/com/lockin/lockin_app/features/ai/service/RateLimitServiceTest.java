@@ -0,0 +1,148 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.lockin.lockin_app.config.AIRateLimitConfig;
+import com.lockin.lockin_app.exception.RateLimitExceededException;
+import com.lockin.lockin_app.features.ai.repository.AIUsageRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class RateLimitServiceTest {
+
+    private static final long USER_ID = 1L;
+
+    private final AIUsageRepository usageRepository = mock(AIUsageRepository.class);
+    private final AIRateLimitConfig config = new AIRateLimitConfig();
+
+    private RateLimitService rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        config.setPerUserPerDay(3);
+        when(usageRepository.findUsageTimesSince(anyLong(), any())).thenReturn(List.of());
+
+        rateLimitService = new RateLimitService(
+                usageRepository, config, new ConcurrentMapCacheManager("rateLimitCounters"));
+    }
+
+    @Test
+    void reservingTheLastSlotRejectsTheNextRequest() {
+        for (int i = 0; i < 3; i++) {
+            rateLimitService.reserve(USER_ID, "ENHANCE");
+        }
+
+        assertThrows(RateLimitExceededException.class, () -> rateLimitService.reserve(USER_ID, "ENHANCE"));
+        assertEquals(0, rateLimitService.getStatus(USER_ID).getRemaining());
+    }
+
+    @Test
+    void releasedSlotCanBeReservedAgain() {
+        rateLimitService.reserve(USER_ID, "ENHANCE");
+        rateLimitService.reserve(USER_ID, "ENHANCE");
+        RateLimitService.Reservation third = rateLimitService.reserve(USER_ID, "ENHANCE");
+
+        third.release();
+        third.release();
+
+        assertEquals(1, rateLimitService.getStatus(USER_ID).getRemaining());
+        assertDoesNotThrow(() -> rateLimitService.reserve(USER_ID, "ENHANCE"));
+    }
+
+    @Test
+    void featureLimitAppliesOnTopOfTheOverallOne() {
+        config.setBriefingPerDay(1);
+        rateLimitService.reserve(USER_ID, "BRIEFING");
+
+        assertThrows(RateLimitExceededException.class, () -> rateLimitService.reserve(USER_ID, "BRIEFING"));
+        assertDoesNotThrow(() -> rateLimitService.reserve(USER_ID, "ENHANCE"));
+    }
+
+    @Test
+    void concurrentRequestsCannotShareTheLastSlot() throws Exception {
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    rateLimitService.reserve(USER_ID, "BREAKDOWN");
+                    granted.incrementAndGet();
+                } catch (RateLimitExceededException e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(3, granted.get());
+        assertEquals(threads - 3, rejected.get());
+    }
+
+    @Test
+    void failedCallGivesItsSlotBack() {
+        RateLimitService.Reservation reservation = rateLimitService.reserve(USER_ID, "ENHANCE");
+
+        CompletableFuture<String> call = reservation.releaseOnFailure(
+                () -> CompletableFuture.failedFuture(new IllegalStateException("API down")));
+
+        assertTrue(call.isCompletedExceptionally());
+        assertEquals(3, rateLimitService.getStatus(USER_ID).getRemaining());
+    }
+
+    @Test
+    void successfulCallKeepsItsSlot() {
+        RateLimitService.Reservation reservation = rateLimitService.reserve(USER_ID, "ENHANCE");
+
+        reservation.releaseOnFailure(() -> CompletableFuture.completedFuture("done"));
+
+        assertEquals(2, rateLimitService.getStatus(USER_ID).getRemaining());
+    }
+
+    @Test
+    void precomputedBriefingsDoNotCountWhenRebuilding() {
+        LocalDateTime recently = LocalDateTime.now().minusHours(1);
+        when(usageRepository.findUsageTimesSince(anyLong(), any())).thenReturn(List.of(
+                usage("BRIEFING", recently),
+                usage(DailyBriefingService.PRECOMPUTED_FEATURE, recently),
+                usage(DailyBriefingService.PRECOMPUTED_FEATURE, recently)));
+
+        assertEquals(2, rateLimitService.getStatus(USER_ID).getRemaining());
+    }
+
+    private static AIUsageRepository.UsageTime usage(String featureType, LocalDateTime createdAt) {
+        return new AIUsageRepository.UsageTime() {
+            @Override
+            public String getFeatureType() {
+                return featureType;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return createdAt;
+            }
+        };
+    }
+}
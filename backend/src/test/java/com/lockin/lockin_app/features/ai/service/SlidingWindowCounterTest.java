@@ -0,0 +1,122 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** One second window in ten 100 ms buckets */
+class SlidingWindowCounterTest {
+
+    private final SlidingWindowCounter counter = new SlidingWindowCounter(1000, 10);
+
+    @Test
+    void countsEventsInsideTheWindow() {
+        counter.add(0);
+        counter.add(50);
+        counter.add(150);
+        counter.add(999);
+
+        assertEquals(4, counter.count(999));
+    }
+
+    @Test
+    void dropsBucketsThatRollOutOfTheWindow() {
+        counter.add(0);
+        counter.add(99);
+        counter.add(950);
+
+        assertEquals(3, counter.count(999));
+        // the first bucket is 1000 ms old now
+        assertEquals(1, counter.count(1000));
+        assertEquals(0, counter.count(2000));
+    }
+
+    @Test
+    void reusesSlotForNewBucket() {
+        counter.add(0);
+        counter.add(10);
+        counter.add(1000);
+
+        // same slot one window later, the old count is replaced, not added to
+        assertEquals(1, counter.count(1000));
+    }
+
+    @Test
+    void ignoresEventsOlderThanTheSlotsBucket() {
+        counter.add(1000);
+        counter.add(0);
+
+        assertEquals(1, counter.count(1000));
+    }
+
+    @Test
+    void ignoresEventsOutsideTheWindowWhenCounting() {
+        counter.add(50);
+
+        assertEquals(1, counter.count(500));
+        assertEquals(0, counter.count(5000));
+    }
+
+    @Test
+    void removeTakesBackAnEvent() {
+        counter.add(100);
+        counter.add(150);
+        counter.remove(150);
+
+        assertEquals(1, counter.count(999));
+    }
+
+    @Test
+    void removeIgnoresAReusedSlot() {
+        counter.add(0);
+        counter.add(1000);
+        counter.remove(0);
+
+        assertEquals(1, counter.count(1000));
+    }
+
+    @Test
+    void removeNeverGoesBelowZero() {
+        counter.add(100);
+        counter.remove(100);
+        counter.remove(100);
+        counter.add(100);
+
+        assertEquals(1, counter.count(999));
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        int threads = 8;
+        int addsPerThread = 10000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < addsPerThread; i++) {
+                    // spread over every bucket of one window
+                    counter.add((i + offset) % 1000);
+                }
+            }));
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads * addsPerThread, counter.count(999));
+    }
+}
@@ -0,0 +1,104 @@
+package com.lockin.lockin_app.features.ai.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockin.lockin_app.features.ai.dto.SubtaskSuggestionDTO;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubtaskStreamParserTest {
+
+    private static final String RESPONSE = """
+            {
+              "subtasks": [
+                {"title": "Outline {draft}", "estimatedMinutes": 20, "priority": "HIGH"},
+                {"title": "Say \\"done\\"", "description": "close with ]", "estimatedMinutes": 5}
+              ],
+              "reasoning": "Two steps"
+            }""";
+
+    private final List<SubtaskSuggestionDTO> subtasks = new ArrayList<>();
+    private final SubtaskStreamParser parser = new SubtaskStreamParser(new ObjectMapper(), subtasks::add);
+
+    @Test
+    void emitsEachSubtaskOfACompleteResponse() {
+        parser.feed(RESPONSE);
+
+        assertEquals(2, subtasks.size());
+        assertEquals("Outline {draft}", subtasks.get(0).getTitle());
+        assertEquals(Integer.valueOf(20), subtasks.get(0).getEstimatedMinutes());
+        assertEquals("Say \"done\"", subtasks.get(1).getTitle());
+        assertEquals("close with ]", subtasks.get(1).getDescription());
+    }
+
+    @Test
+    void emitsTheSameSubtasksWhateverTheFragmentBoundaries() {
+        for (int size = 1; size <= 7; size++) {
+            List<SubtaskSuggestionDTO> received = new ArrayList<>();
+            SubtaskStreamParser chunked = new SubtaskStreamParser(new ObjectMapper(), received::add);
+
+            for (int i = 0; i < RESPONSE.length(); i += size) {
+                chunked.feed(RESPONSE.substring(i, Math.min(RESPONSE.length(), i + size)));
+            }
+
+            assertEquals(2, received.size(), "fragments of " + size);
+            assertEquals("Outline {draft}", received.get(0).getTitle());
+            assertEquals("Say \"done\"", received.get(1).getTitle());
+        }
+    }
+
+    @Test
+    void emitsASubtaskAsSoonAsItCloses() {
+        parser.feed("{\"subtasks\": [{\"title\": \"First\"");
+        assertTrue(subtasks.isEmpty());
+
+        parser.feed("}, {\"title\": ");
+        assertEquals(1, subtasks.size());
+
+        parser.feed("\"Second\"}]}");
+        assertEquals(2, subtasks.size());
+    }
+
+    @Test
+    void ignoresTheKeyMentionedInsideAnotherValue() {
+        parser.feed("{\"reasoning\": \"Split into \\\"subtasks\\\": [{\\\"title\\\": \\\"Fake\\\"}]\", ");
+        parser.feed("\"subtasks\": [{\"title\": \"Real\"}]}");
+
+        assertEquals(1, subtasks.size());
+        assertEquals("Real", subtasks.get(0).getTitle());
+    }
+
+    @Test
+    void ignoresANestedSubtasksKey() {
+        parser.feed("{\"meta\": {\"subtasks\": [{\"title\": \"Nested\"}]}, \"subtasks\": [{\"title\": \"Top\"}]}");
+
+        assertEquals(1, subtasks.size());
+        assertEquals("Top", subtasks.get(0).getTitle());
+    }
+
+    @Test
+    void skipsProseBeforeTheResponseObject() {
+        parser.feed("Here is the breakdown:\n```json\n" + RESPONSE + "\n```");
+
+        assertEquals(2, subtasks.size());
+    }
+
+    @Test
+    void dropsAnObjectThatDoesNotParseAndKeepsGoing() {
+        parser.feed("{\"subtasks\": [{\"title\": }, {\"title\": \"Fine\"}]}");
+
+        assertEquals(1, subtasks.size());
+        assertEquals("Fine", subtasks.get(0).getTitle());
+    }
+
+    @Test
+    void stopsAtTheEndOfTheArray() {
+        parser.feed("{\"subtasks\": [{\"title\": \"Only\"}], \"other\": [{\"title\": \"Later\"}]}");
+
+        assertEquals(1, subtasks.size());
+    }
+}
@@ -0,0 +1,181 @@
+package com.lockin.lockin_app.features.focus_sessions.service;
+
+import com.lockin.lockin_app.features.focus_sessions.entity.FocusSession;
+import com.lockin.lockin_app.features.focus_sessions.entity.SessionType;
+import com.lockin.lockin_app.features.focus_sessions.repository.FocusSessionRepository;
+import com.lockin.lockin_app.features.users.entity.User;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FocusCounterServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Mock
+    private FocusSessionRepository sessionRepository;
+
+    private FocusCounterService counterService;
+
+    @BeforeEach
+    void setUp() {
+        counterService = new FocusCounterService(sessionRepository);
+    }
+
+    @Test
+    void servesRepeatedReadsFromTheSeed() {
+        when(sessionRepository.sumCompletedSessionsByType(eq(USER_ID), any(), any()))
+                .thenReturn(workMinutes(25));
+
+        assertEquals(25, counterService.getTotalFocusMinutesToday(USER_ID));
+        assertEquals(25, counterService.getTotalFocusMinutesToday(USER_ID));
+
+        verify(sessionRepository, times(1)).sumCompletedSessionsByType(eq(USER_ID), any(), any());
+    }
+
+    @Test
+    void completionIsAddedWithoutQuerying() {
+        when(sessionRepository.sumCompletedSessionsByType(eq(USER_ID), any(), any()))
+                .thenReturn(workMinutes(25));
+
+        assertEquals(25, counterService.getTotalFocusMinutesToday(USER_ID));
+
+        counterService.recordCompletion(completedSession());
+
+        assertEquals(50, counterService.getTotalFocusMinutesToday(USER_ID));
+        assertEquals(Integer.valueOf(2), counterService.getTodayStats(USER_ID).getSessionsCompleted());
+        verify(sessionRepository, times(1)).sumCompletedSessionsByType(eq(USER_ID), any(), any());
+    }
+
+    @Test
+    void completionIsAddedOnlyOnceItsTransactionCommits() {
+        when(sessionRepository.sumCompletedSessionsByType(eq(USER_ID), any(), any()))
+                .thenReturn(workMinutes(25));
+        assertEquals(25, counterService.getTotalFocusMinutesToday(USER_ID));
+
+        inTransaction(() -> {
+            counterService.recordCompletion(completedSession());
+            assertEquals(25, counterService.getTotalFocusMinutesToday(USER_ID));
+        }, TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(50, counterService.getTotalFocusMinutesToday(USER_ID));
+        verify(sessionRepository, times(1)).sumCompletedSessionsByType(eq(USER_ID), any(), any());
+    }
+
+    @Test
+    void rolledBackCompletionIsNotAdded() {
+        when(sessionRepository.sumCompletedSessionsByType(eq(USER_ID), any(), any()))
+                .thenReturn(workMinutes(25));
+        assertEquals(25, counterService.getTotalFocusMinutesToday(USER_ID));
+
+        inTransaction(
+                () -> counterService.recordCompletion(completedSession()),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(25, counterService.getTotalFocusMinutesToday(USER_ID));
+    }
+
+    @Test
+    void completionCommittedWhileSeedingIsNotLost() {
+        // the first seed reads the database, then the completion commits before the seed is stored
+        when(sessionRepository.sumCompletedSessionsByType(eq(USER_ID), any(), any()))
+                .thenAnswer(invocation -> {
+                    counterService.recordCompletion(completedSession());
+                    return workMinutes(25);
+                })
+                .thenReturn(workMinutes(50));
+
+        assertEquals(25, counterService.getTotalFocusMinutesToday(USER_ID));
+        assertEquals(50, counterService.getTotalFocusMinutesToday(USER_ID));
+        assertEquals(50, counterService.getTotalFocusMinutesToday(USER_ID));
+
+        verify(sessionRepository, times(2)).sumCompletedSessionsByType(eq(USER_ID), any(), any());
+    }
+
+    @Test
+    void seedThatMaySeeAPendingCompletionIsNotKept() {
+        // the seed reads a completion that is committed but not yet added to the counters
+        when(sessionRepository.sumCompletedSessionsByType(eq(USER_ID), any(), any()))
+                .thenReturn(workMinutes(50));
+
+        inTransaction(() -> {
+            counterService.recordCompletion(completedSession());
+            assertEquals(50, counterService.getTotalFocusMinutesToday(USER_ID));
+        }, TransactionSynchronization.STATUS_COMMITTED);
+
+        // not 75, the seed wasn't stored so the commit isn't counted twice
+        assertEquals(50, counterService.getTotalFocusMinutesToday(USER_ID));
+        verify(sessionRepository, times(2)).sumCompletedSessionsByType(eq(USER_ID), any(), any());
+    }
+
+    @Test
+    void editDropsTheCounters() {
+        when(sessionRepository.sumCompletedSessionsByType(eq(USER_ID), any(), any()))
+                .thenReturn(workMinutes(25))
+                .thenReturn(workMinutes(30));
+
+        assertEquals(25, counterService.getTotalFocusMinutesToday(USER_ID));
+
+        counterService.evict(USER_ID);
+
+        assertEquals(30, counterService.getTotalFocusMinutesToday(USER_ID));
+    }
+
+    @Test
+    void expiredSeedIsRebuilt() throws InterruptedException {
+        ReflectionTestUtils.setField(counterService, "ttlSeconds", 1L);
+        when(sessionRepository.sumCompletedSessionsByType(eq(USER_ID), any(), any()))
+                .thenReturn(workMinutes(25))
+                .thenReturn(workMinutes(40));
+
+        assertEquals(25, counterService.getTotalFocusMinutesToday(USER_ID));
+        Thread.sleep(1100);
+        assertEquals(40, counterService.getTotalFocusMinutesToday(USER_ID));
+    }
+
+    /** Runs {@code work} as if inside a transaction that ends with {@code status} */
+    private static void inTransaction(Runnable work, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            for (TransactionSynchronization synchronization :
+                    TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(status);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static List<Object[]> workMinutes(int minutes) {
+        return List.<Object[]>of(new Object[] {SessionType.WORK, 1L, (long) minutes});
+    }
+
+    private static FocusSession completedSession() {
+        User user = new User();
+        user.setId(USER_ID);
+
+        FocusSession session = new FocusSession();
+        session.setUser(user);
+        session.setSessionType(SessionType.WORK);
+        session.setStartedAt(LocalDateTime.now());
+        session.setActualMinutes(25);
+        session.setCompleted(true);
+        return session;
+    }
+}
@@ -27,6 +27,7 @@ import {
   notificationService,
   type Notification,
 } from "../../services/notificationService";
+import { websocketService } from "../../services/websocketService";
 import { useNavigate } from "react-router-dom";
 
 const getNotificationIcon = (type: string) => {
@@ -115,6 +116,22 @@ const NotificationCenter: React.FC<NotificationCenterProps> = ({
     updateUnreadCount();
   }, [updateUnreadCount]);
 
+  // the server pushes the count whenever it changes, no need to poll
+  useEffect(() => websocketService.onUnreadCount(setUnreadCount), []);
+
+  // notifications that didn't fit the last push are only in the database, fetch them from there
+  useEffect(
+    () =>
+      websocketService.onDropped(() => {
+        if (open) {
+          fetchNotifications(0, false);
+        } else {
+          updateUnreadCount();
+        }
+      }),
+    [open, fetchNotifications, updateUnreadCount]
+  );
+
   useEffect(() => {
     if (open) {
       setPage(0);
@@ -129,7 +146,7 @@ const NotificationCenter: React.FC<NotificationCenterProps> = ({
       setNotifications((prev) =>
         prev.map((n) => (n.id === notificationId ? { ...n, isRead: true } : n))
       );
-      updateUnreadCount();
+      setUnreadCount((prev) => Math.max(0, prev - 1));
     } catch (error) {
       console.error("Failed to mark as read:", error);
     }
@@ -18,6 +18,13 @@ export interface TaskBreakdownResult {
   reasoning: string;
 }
 
+export interface BatchBreakdownResult {
+  breakdowns: Record<number, TaskBreakdownResult>;
+  failedTaskIds: number[];
+  tokensUsed: number;
+  costUSD: number;
+}
+
 export interface TaskBreakdownRequest {
   title: string;
   description?: string;
@@ -46,6 +53,22 @@ export interface RateLimitStatus {
   used: number;
 }
 
+export interface UsageTotals {
+  calls: number;
+  tokens: number;
+  costUSD: number;
+}
+
+export interface AIUsageReport {
+  from: string;
+  to: string;
+  totalCalls: number;
+  totalTokens: number;
+  totalCostUSD: number;
+  byFeature: Record<string, UsageTotals>;
+  days: (UsageTotals & { date: string })[];
+}
+
 export const aiService = {
   breakdownTask: async (taskId: number): Promise<TaskBreakdownResult> => {
     const response = await api.post<TaskBreakdownResult>(
@@ -54,6 +77,14 @@ export const aiService = {
     return response.data;
   },
 
+  breakdownTasks: async (taskIds: number[]): Promise<BatchBreakdownResult> => {
+    const response = await api.post<BatchBreakdownResult>(
+      "/ai/breakdown/batch",
+      { taskIds }
+    );
+    return response.data;
+  },
+
   breakdownPreview: async (
     title: string,
     description?: string
@@ -91,6 +122,13 @@ export const aiService = {
     const response = await api.get<RateLimitStatus>("/ai/rate-limit");
     return response.data;
   },
+
+  getUsageReport: async (days = 30): Promise<AIUsageReport> => {
+    const response = await api.get<AIUsageReport>("/ai/usage", {
+      params: { days },
+    });
+    return response.data;
+  },
 };
 
 export default aiService;
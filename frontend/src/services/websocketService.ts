@@ -3,6 +3,16 @@ import SockJS from "sockjs-client";
 
 export type NotificationHandler = (notification: unknown) => void;
 export type ConnectionStatusHandler = (connected: boolean) => void;
+export type UnreadCountHandler = (count: number) => void;
+export type DroppedHandler = (droppedCount: number) => void;
+
+// notifications sent within a short window arrive together in one frame
+interface NotificationBatch {
+  notifications: unknown[];
+  droppedCount: number;
+  // latest unread total, only present when it changed
+  unreadCount: number | null;
+}
 
 class WebSocketService {
   private client: Client | null = null;
@@ -13,6 +23,8 @@ class WebSocketService {
   private maxReconnectDelay = 30000;
   private notificationHandler: NotificationHandler | null = null;
   private connectionStatusHandler: ConnectionStatusHandler | null = null;
+  private unreadCountHandlers = new Set<UnreadCountHandler>();
+  private droppedHandlers = new Set<DroppedHandler>();
   private userEmail: string | null = null;
   private isIntentionalDisconnect = false;
 
@@ -54,9 +66,20 @@ class WebSocketService {
         `/user/${userEmail}/queue/notifications`,
         (message: IMessage) => {
           try {
-            const notification = JSON.parse(message.body);
-            console.log("Received notification:", notification);
-            this.notificationHandler?.(notification);
+            const batch: NotificationBatch = JSON.parse(message.body);
+            console.log("Received notifications:", batch);
+            batch.notifications.forEach((notification) =>
+              this.notificationHandler?.(notification)
+            );
+            if (batch.unreadCount != null) {
+              const count = batch.unreadCount;
+              this.unreadCountHandlers.forEach((handler) => handler(count));
+            }
+            if (batch.droppedCount > 0) {
+              const dropped = batch.droppedCount;
+              console.warn(`${dropped} notifications were not pushed, refetching`);
+              this.droppedHandlers.forEach((handler) => handler(dropped));
+            }
           } catch (error) {
             console.error("Failed to parse notification:", error);
           }
@@ -87,6 +110,21 @@ class WebSocketService {
     this.client.activate();
   }
 
+  onUnreadCount(handler: UnreadCountHandler): () => void {
+    this.unreadCountHandlers.add(handler);
+    return () => {
+      this.unreadCountHandlers.delete(handler);
+    };
+  }
+
+  // called when the server dropped notifications instead of pushing them
+  onDropped(handler: DroppedHandler): () => void {
+    this.droppedHandlers.add(handler);
+    return () => {
+      this.droppedHandlers.delete(handler);
+    };
+  }
+
   private handleReconnect(): void {
     if (this.isIntentionalDisconnect) {
       return;